@@ -2,23 +2,78 @@ package ru.romanow.core.commons.annotations;
 
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.springframework.util.StringUtils.hasText;
+
 class AspectHelper {
 
     static Object getAnnotatedObject(JoinPoint joinPoint, Class<?> annotationType) {
-        Object[] args = joinPoint.getArgs();
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Annotation[][] annotations = signature.getMethod().getParameterAnnotations();
+        int index = getAnnotatedParameterIndex(signature.getMethod(), annotationType);
+        return index >= 0 ? joinPoint.getArgs()[index] : null;
+    }
+
+    /**
+     * @return index of the first parameter with annotation or -1
+     */
+    static int getAnnotatedParameterIndex(Method method, Class<?> annotationType) {
+        Annotation[][] annotations = method.getParameterAnnotations();
         for (int i = 0; i < annotations.length; ++i) {
             if (Stream.of(annotations[i])
                       .anyMatch(a -> a.annotationType().equals(annotationType))) {
-                return args[i];
+                return i;
             }
         }
 
-        return null;
+        return -1;
+    }
+
+    /**
+     * @return path of class and method <code>@RequestMapping</code>, including composed annotations
+     * like <code>@GetMapping</code>
+     */
+    static String getEndpoint(Class<?> targetClass, Method method) {
+        String classEndpoint = getEndpointPath(targetClass);
+        String methodEndpoint = getEndpointPath(method);
+
+        return hasText(classEndpoint) ?
+                classEndpoint + methodEndpoint : methodEndpoint;
+    }
+
+    /**
+     * @return HTTP methods of method <code>@RequestMapping</code> or of class mapping, if method mapping
+     * has none, joined by comma; empty string if mapping accepts any method
+     */
+    static String getHttpMethod(Class<?> targetClass, Method method) {
+        RequestMethod[] methods = getRequestMethods(method);
+        if (methods.length == 0) {
+            methods = getRequestMethods(targetClass);
+        }
+        return Stream.of(methods)
+                     .map(RequestMethod::name)
+                     .collect(Collectors.joining(","));
+    }
+
+    private static RequestMethod[] getRequestMethods(AnnotatedElement element) {
+        RequestMapping requestMapping = AnnotatedElementUtils.findMergedAnnotation(element, RequestMapping.class);
+        return requestMapping != null ? requestMapping.method() : new RequestMethod[0];
+    }
+
+    private static String getEndpointPath(AnnotatedElement element) {
+        RequestMapping requestMapping = AnnotatedElementUtils.findMergedAnnotation(element, RequestMapping.class);
+        return requestMapping != null && notEmpty(requestMapping.value()) ? requestMapping.value()[0] : "";
+    }
+
+    private static boolean notEmpty(String[] value) {
+        return value != null && value.length > 0;
     }
 }
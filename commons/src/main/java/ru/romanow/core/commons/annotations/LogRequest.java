@@ -5,8 +5,47 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Log request arguments and response of the method as JSON at DEBUG level of <code>classLogger</code>.
+ * With {@link ru.romanow.core.commons.logging.AsyncPayloadLogger} created with <code>deferSerialization</code>
+ * payloads are serialized after the method returns: arguments and response modified after that
+ * (e.g. cached or reused objects) are logged in their later state.
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface LogRequest {
     Class<?> classLogger();
+
+    /**
+     * Max length of logged request and response JSON in chars, longer payloads are truncated.
+     * Zero or negative - no limit
+     */
+    int maxPayloadLength() default 8192;
+
+    /**
+     * Log payloads as pretty printed JSON instead of compact
+     */
+    boolean prettyPrint() default false;
+
+    /**
+     * Fraction of calls logged, from 0 to 1
+     */
+    double sampleRate() default 1.0;
+
+    /**
+     * Max logged calls per <code>intervalMillis</code>, first calls of interval are logged. Zero - no limit
+     */
+    int maxPerInterval() default 0;
+
+    long intervalMillis() default 1000;
+
+    /**
+     * Log request and exception of failed calls, even if call is not sampled
+     */
+    boolean logErrors() default false;
+
+    /**
+     * Log request and response of calls slower than threshold (ms), even if call is not sampled. Zero - disabled
+     */
+    long slowThresholdMillis() default 0;
 }
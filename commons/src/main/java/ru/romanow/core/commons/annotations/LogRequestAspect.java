@@ -1,73 +1,160 @@
 package ru.romanow.core.commons.annotations;
 
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
+import ru.romanow.core.commons.logging.AsyncPayloadLogger;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
-import static org.springframework.util.StringUtils.hasText;
+import static ru.romanow.core.commons.utils.JsonSerializer.toJson;
 import static ru.romanow.core.commons.utils.JsonSerializer.toPrettyJson;
 
+/**
+ * Logs request body and result of <code>@LogRequest</code> methods at debug level. Logger, endpoint and
+ * <code>@RequestBody</code> parameter are resolved once per controller method, so with debug disabled
+ * aspect costs cache lookup and <code>isDebugEnabled</code> check.
+ * <p>
+ * Payloads are serialized to compact JSON (pretty with <code>prettyPrint</code>) not longer than
+ * <code>maxPayloadLength</code>: serialization stops at the limit, so large responses are not copied
+ * into log message.
+ * <p>
+ * Calls are logged according to sampling attributes of <code>@LogRequest</code>. Not sampled call costs
+ * one random number and counter read, unless <code>logErrors</code> or <code>slowThresholdMillis</code>
+ * are set: then failed and slow calls are logged after completion.
+ * <p>
+ * Aspect created with {@link AsyncPayloadLogger} writes log events on its background thread, request thread
+ * serializes payloads and puts them into bounded queue. Logger with <code>deferSerialization</code> moves
+ * serialization to background thread too, then returned objects must not be modified after the call.
+ */
 @Aspect
 public class LogRequestAspect {
+    private final Map<Class<?>, Map<Method, EndpointMetadata>> metadata = new ConcurrentHashMap<>();
+    private final AsyncPayloadLogger payloadLogger;
 
-    @Before("@annotation(ru.romanow.core.commons.annotations.LogRequest)")
-    public void logRequest(JoinPoint joinPoint) {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        Logger logger = getLogger(method);
-        if (logger.isDebugEnabled()) {
-            String endpoint = getEndpoint(joinPoint.getTarget(), method);
-            Object object = AspectHelper.getAnnotatedObject(joinPoint, RequestBody.class);
-            if (object != null) {
-                logger.debug("Request for endpoint [{}]:\n{}", endpoint, toPrettyJson(object));
+    public LogRequestAspect() {
+        this(null);
+    }
+
+    public LogRequestAspect(AsyncPayloadLogger payloadLogger) {
+        this.payloadLogger = payloadLogger;
+    }
+
+    @Around("@annotation(ru.romanow.core.commons.annotations.LogRequest)")
+    public Object logRequest(ProceedingJoinPoint joinPoint) throws Throwable {
+        EndpointMetadata endpoint = getMetadata(joinPoint);
+        if (!endpoint.logger.isDebugEnabled()) {
+            return joinPoint.proceed();
+        }
+        boolean sampled = endpoint.sampler.sample();
+        if (!sampled && !endpoint.logErrors && endpoint.slowThreshold <= 0) {
+            return joinPoint.proceed();
+        }
+
+        Object request = endpoint.requestBodyIndex >= 0 ? joinPoint.getArgs()[endpoint.requestBodyIndex] : null;
+        if (sampled) {
+            logRequestBody(endpoint, request);
+        }
+
+        long start = endpoint.slowThreshold > 0 ? System.nanoTime() : 0;
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable throwable) {
+            if (endpoint.logErrors) {
+                if (!sampled) {
+                    logRequestBody(endpoint, request);
+                }
+                endpoint.logger.debug("Endpoint [{}] failed: {}", endpoint.endpoint, throwable.toString());
             }
+            throw throwable;
         }
-    }
 
-    @AfterReturning(value = "@annotation(ru.romanow.core.commons.annotations.LogRequest)", returning = "result")
-    public void logResponse(JoinPoint joinPoint, Object result) {
-        if (result != null) {
-            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-            Method method = signature.getMethod();
-            Logger logger = getLogger(method);
-            if (logger.isDebugEnabled()) {
-                String endpoint = getEndpoint(joinPoint.getTarget(), method);
-                logger.debug("Returning result for endpoint [{}]:\n{}", endpoint, toPrettyJson(result));
+        long elapsed = endpoint.slowThreshold > 0 ? System.nanoTime() - start : 0;
+        boolean slow = endpoint.slowThreshold > 0 && elapsed >= endpoint.slowThreshold;
+        if (slow) {
+            if (!sampled) {
+                logRequestBody(endpoint, request);
             }
+            endpoint.logger.debug("Slow call of endpoint [{}]: {} ms", endpoint.endpoint,
+                                  TimeUnit.NANOSECONDS.toMillis(elapsed));
         }
+        if ((sampled || slow) && result != null) {
+            debug(endpoint, "Returning result for endpoint [{}]:\n{}", result);
+        }
+        return result;
     }
 
-    private String getEndpointPath(RequestMapping requestMapping) {
-        return notEmpty(requestMapping.value()) ? requestMapping.value()[0] : "";
+    private void logRequestBody(EndpointMetadata endpoint, Object request) {
+        if (request != null) {
+            debug(endpoint, "Request for endpoint [{}]:\n{}", request);
+        }
     }
 
-    private boolean notEmpty(String[] value) {
-        return value != null && value.length > 0;
+    private void debug(EndpointMetadata endpoint, String message, Object payload) {
+        if (payloadLogger != null) {
+            payloadLogger.debug(endpoint.logger, message, endpoint.endpoint, payload,
+                                endpoint.maxPayloadLength, endpoint.prettyPrint);
+        } else {
+            String json = endpoint.prettyPrint ?
+                    toPrettyJson(payload, endpoint.maxPayloadLength) : toJson(payload, endpoint.maxPayloadLength);
+            endpoint.logger.debug(message, endpoint.endpoint, json);
+        }
     }
 
-    private Logger getLogger(Method method) {
+    private EndpointMetadata getMetadata(JoinPoint joinPoint) {
+        Class<?> targetClass = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Map<Method, EndpointMetadata> methods = metadata.get(targetClass);
+        if (methods == null) {
+            methods = metadata.computeIfAbsent(targetClass, cls -> new ConcurrentHashMap<>());
+        }
+        EndpointMetadata endpoint = methods.get(method);
+        if (endpoint == null) {
+            endpoint = methods.computeIfAbsent(method, m -> createMetadata(targetClass, m));
+        }
+        return endpoint;
+    }
+
+    private EndpointMetadata createMetadata(Class<?> targetClass, Method method) {
         LogRequest logRequest = method.getAnnotation(LogRequest.class);
-        return LoggerFactory.getLogger(logRequest.classLogger());
+        Logger logger = LoggerFactory.getLogger(logRequest.classLogger());
+        int requestBodyIndex = AspectHelper.getAnnotatedParameterIndex(method, RequestBody.class);
+        LogSampler sampler = new LogSampler(logRequest.sampleRate(), logRequest.maxPerInterval(),
+                                            logRequest.intervalMillis(), TimeUnit.MILLISECONDS);
+        return new EndpointMetadata(logger, AspectHelper.getEndpoint(targetClass, method), requestBodyIndex,
+                                    logRequest.maxPayloadLength(), logRequest.prettyPrint(), sampler,
+                                    logRequest.logErrors(), TimeUnit.MILLISECONDS.toNanos(logRequest.slowThresholdMillis()));
     }
 
-    private String getEndpoint(Object targetClass, Method method) {
-        RequestMapping classMapping = targetClass.getClass().getAnnotation(RequestMapping.class);
-        String classEndpoint = null;
-        if (classMapping != null) {
-            classEndpoint = getEndpointPath(classMapping);
-        }
-        RequestMapping methodMapping = method.getAnnotation(RequestMapping.class);
-        String methodEndpoint = getEndpointPath(methodMapping);
+    private static class EndpointMetadata {
+        private final Logger logger;
+        private final String endpoint;
+        private final int requestBodyIndex;
+        private final int maxPayloadLength;
+        private final boolean prettyPrint;
+        private final LogSampler sampler;
+        private final boolean logErrors;
+        private final long slowThreshold;
 
-        return hasText(classEndpoint) ?
-                classEndpoint + methodEndpoint : methodEndpoint;
+        EndpointMetadata(Logger logger, String endpoint, int requestBodyIndex, int maxPayloadLength, boolean prettyPrint,
+                         LogSampler sampler, boolean logErrors, long slowThreshold) {
+            this.logger = logger;
+            this.endpoint = endpoint;
+            this.requestBodyIndex = requestBodyIndex;
+            this.maxPayloadLength = maxPayloadLength;
+            this.prettyPrint = prettyPrint;
+            this.sampler = sampler;
+            this.logErrors = logErrors;
+            this.slowThreshold = slowThreshold;
+        }
     }
 }
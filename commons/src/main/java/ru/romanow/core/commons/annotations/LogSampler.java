@@ -0,0 +1,48 @@
+package ru.romanow.core.commons.annotations;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides if call of <code>@LogRequest</code> method is logged: first by <code>sampleRate</code> using
+ * thread-local random, then by <code>maxPerInterval</code> counter. Calls over the limit only read
+ * the counter, so rejected calls don't contend.
+ */
+class LogSampler {
+    private final double sampleRate;
+    private final int maxPerInterval;
+    private final long interval;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private volatile long intervalStart;
+
+    LogSampler(double sampleRate, int maxPerInterval, long interval, TimeUnit timeUnit) {
+        this.sampleRate = sampleRate;
+        this.maxPerInterval = maxPerInterval;
+        this.interval = timeUnit.toNanos(interval);
+        this.intervalStart = System.nanoTime();
+    }
+
+    boolean sample() {
+        if (sampleRate < 1 && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return false;
+        }
+        if (maxPerInterval <= 0) {
+            return true;
+        }
+
+        long start = intervalStart;
+        long now = System.nanoTime();
+        if (now - start >= interval) {
+            // one thread starts new interval, concurrent calls at the boundary may be counted in the old one
+            synchronized (this) {
+                if (intervalStart == start) {
+                    count.set(0);
+                    intervalStart = now;
+                }
+            }
+        }
+        return count.get() < maxPerInterval && count.incrementAndGet() <= maxPerInterval;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.romanow.core.commons.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Timed {
+
+    /**
+     * Name of latency histogram, by default HTTP method and path of class and method <code>@RequestMapping</code>
+     * (<code>GET /users/{id}</code>), for methods without mapping <code>ClassName.method</code>
+     */
+    String value() default "";
+}
@@ -0,0 +1,74 @@
+package ru.romanow.core.commons.annotations;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import ru.romanow.core.commons.metrics.EndpointTimer;
+import ru.romanow.core.commons.metrics.LatencyRegistry;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Records latency and outcome of <code>@Timed</code> methods into {@link LatencyRegistry}.
+ * Endpoint is resolved once per method, call costs cache lookup, two <code>nanoTime</code> calls
+ * and wait-free histogram update.
+ */
+@Aspect
+public class TimedAspect {
+    private final Map<Class<?>, Map<Method, EndpointTimer>> timers = new ConcurrentHashMap<>();
+    private final LatencyRegistry registry;
+
+    public TimedAspect(LatencyRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@annotation(ru.romanow.core.commons.annotations.Timed)")
+    public Object recordLatency(ProceedingJoinPoint joinPoint) throws Throwable {
+        EndpointTimer timer = getTimer(joinPoint);
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Object result = joinPoint.proceed();
+            succeeded = true;
+            return result;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS, succeeded);
+        }
+    }
+
+    private EndpointTimer getTimer(ProceedingJoinPoint joinPoint) {
+        Class<?> targetClass = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Map<Method, EndpointTimer> methods = timers.get(targetClass);
+        if (methods == null) {
+            methods = timers.computeIfAbsent(targetClass, cls -> new ConcurrentHashMap<>());
+        }
+        EndpointTimer timer = methods.get(method);
+        if (timer == null) {
+            timer = methods.computeIfAbsent(method, m -> registry.timer(getName(targetClass, m)));
+        }
+        return timer;
+    }
+
+    private String getName(Class<?> targetClass, Method method) {
+        Timed timed = method.getAnnotation(Timed.class);
+        if (hasText(timed.value())) {
+            return timed.value();
+        }
+        if (!AnnotatedElementUtils.hasAnnotation(method, RequestMapping.class)) {
+            return targetClass.getSimpleName() + "." + method.getName();
+        }
+        // same path with different HTTP methods is different endpoint
+        String httpMethod = AspectHelper.getHttpMethod(targetClass, method);
+        String endpoint = AspectHelper.getEndpoint(targetClass, method);
+        return hasText(httpMethod) ? httpMethod + " " + endpoint : endpoint;
+    }
+}
@@ -0,0 +1,182 @@
+package ru.romanow.core.commons.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static ru.romanow.core.commons.utils.JsonSerializer.toJson;
+import static ru.romanow.core.commons.utils.JsonSerializer.toPrettyJson;
+
+/**
+ * Logs payloads on background thread. Calling thread puts entry into bounded queue: if the queue is full,
+ * entry is dropped and counted, calling thread never waits. Dropped entries are reported at WARN level
+ * not more often than once in 10 sec. Log events are written from <code>payload-logger</code> thread.
+ * <p>
+ * By default payload is serialized on the calling thread, not longer than <code>maxLength</code>, so the log
+ * shows payload as it was at the call even if it is modified later. With <code>deferSerialization</code>
+ * serialization moves to the background thread too and only payload reference is queued: payload must not
+ * be modified after it is passed to the logger, otherwise log shows later state or serialization fails
+ * with {@link java.util.ConcurrentModificationException}.
+ */
+public class AsyncPayloadLogger
+        implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncPayloadLogger.class);
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long DROP_REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+    private static final long POLL_TIMEOUT = 100;
+
+    private final BlockingQueue<PayloadEntry> queue;
+    private final boolean deferSerialization;
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+
+    private volatile boolean closed;
+    private long reportedDrops;
+    private long lastDropReport;
+
+    public AsyncPayloadLogger() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity max entries waiting to be logged
+     */
+    public AsyncPayloadLogger(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * @param deferSerialization serialize payloads on background thread, payloads must not be modified
+     *                           after they are logged
+     */
+    public AsyncPayloadLogger(int capacity, boolean deferSerialization) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.deferSerialization = deferSerialization;
+        this.worker = new Thread(this::process, "payload-logger");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Log <code>message</code> with <code>endpoint</code> and payload serialized to JSON at debug level
+     *
+     * @param maxLength max JSON length, see {@link ru.romanow.core.commons.utils.JsonSerializer#toJson(Object, int)}
+     * @return false if entry is dropped or payload serialization failed
+     */
+    public boolean debug(Logger target, String message, String endpoint, Object payload,
+                         int maxLength, boolean prettyPrint) {
+        // don't serialize entry that would be dropped
+        if (closed || queue.remainingCapacity() == 0) {
+            dropped.increment();
+            return false;
+        }
+
+        PayloadEntry entry = new PayloadEntry(target, message, endpoint, payload, maxLength, prettyPrint);
+        if (!deferSerialization) {
+            try {
+                entry.json = serialize(entry);
+                entry.payload = null;
+            } catch (RuntimeException exception) {
+                logger.warn("Payload logging for endpoint [{}] failed: {}", endpoint, exception.getMessage());
+                return false;
+            }
+        }
+        if (!queue.offer(entry)) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public long getLogged() {
+        return logged.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stop accepting entries, log queued ones and stop worker
+     */
+    @Override
+    public void close() {
+        // worker is not interrupted: interrupt could break appender writing current entry
+        closed = true;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process() {
+        while (!closed) {
+            try {
+                final PayloadEntry entry = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (entry != null) {
+                    write(entry);
+                }
+                reportDrops();
+            } catch (InterruptedException exception) {
+                break;
+            }
+        }
+
+        PayloadEntry entry;
+        while ((entry = queue.poll()) != null) {
+            write(entry);
+        }
+        reportDrops();
+    }
+
+    private void write(PayloadEntry entry) {
+        try {
+            final String json = entry.json != null ? entry.json : serialize(entry);
+            entry.logger.debug(entry.message, entry.endpoint, json);
+            logged.increment();
+        } catch (RuntimeException exception) {
+            logger.warn("Payload logging for endpoint [{}] failed: {}", entry.endpoint, exception.getMessage());
+        }
+    }
+
+    private static String serialize(PayloadEntry entry) {
+        return entry.prettyPrint ? toPrettyJson(entry.payload, entry.maxLength) : toJson(entry.payload, entry.maxLength);
+    }
+
+    private void reportDrops() {
+        final long drops = dropped.sum();
+        final long now = System.nanoTime();
+        if (drops > reportedDrops && (closed || now - lastDropReport >= DROP_REPORT_INTERVAL)) {
+            logger.warn("Dropped {} payload log entries, logger falls behind", drops - reportedDrops);
+            reportedDrops = drops;
+            lastDropReport = now;
+        }
+    }
+
+    private static class PayloadEntry {
+        private final Logger logger;
+        private final String message;
+        private final String endpoint;
+        private Object payload;
+        private final int maxLength;
+        private final boolean prettyPrint;
+        private String json;
+
+        PayloadEntry(Logger logger, String message, String endpoint, Object payload, int maxLength, boolean prettyPrint) {
+            this.logger = logger;
+            this.message = message;
+            this.endpoint = endpoint;
+            this.payload = payload;
+            this.maxLength = maxLength;
+            this.prettyPrint = prettyPrint;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.romanow.core.commons.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of one endpoint in microseconds, separately for successful and failed calls.
+ * Calls are recorded wait-free into {@link Recorder}, readers collect recorded intervals into
+ * totals and into histograms since last summary.
+ */
+public class EndpointTimer {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final String endpoint;
+    private final Recorder success = new Recorder(SIGNIFICANT_DIGITS);
+    private final Recorder failure = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final Histogram successTotal = new Histogram(SIGNIFICANT_DIGITS);
+    private final Histogram failureTotal = new Histogram(SIGNIFICANT_DIGITS);
+    private final Histogram successSummary = new Histogram(SIGNIFICANT_DIGITS);
+    private final Histogram failureSummary = new Histogram(SIGNIFICANT_DIGITS);
+    private Histogram successInterval;
+    private Histogram failureInterval;
+
+    EndpointTimer(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void record(long duration, TimeUnit timeUnit, boolean succeeded) {
+        final long micros = timeUnit.toMicros(duration);
+        if (succeeded) {
+            success.recordValue(micros);
+        } else {
+            failure.recordValue(micros);
+        }
+    }
+
+    /**
+     * @return latencies since timer creation
+     */
+    synchronized LatencySnapshot snapshot() {
+        collect();
+        return new LatencySnapshot(endpoint, successTotal.copy(), failureTotal.copy());
+    }
+
+    /**
+     * @return latencies since previous call
+     */
+    synchronized LatencySnapshot summary() {
+        collect();
+        final LatencySnapshot snapshot = new LatencySnapshot(endpoint, successSummary.copy(), failureSummary.copy());
+        successSummary.reset();
+        failureSummary.reset();
+        return snapshot;
+    }
+
+    private void collect() {
+        successInterval = success.getIntervalHistogram(successInterval);
+        failureInterval = failure.getIntervalHistogram(failureInterval);
+        successTotal.add(successInterval);
+        failureTotal.add(failureInterval);
+        successSummary.add(successInterval);
+        failureSummary.add(failureInterval);
+    }
+}
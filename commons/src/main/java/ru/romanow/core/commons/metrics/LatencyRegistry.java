@@ -0,0 +1,70 @@
+package ru.romanow.core.commons.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-endpoint latency histograms. Recording is lock-free, {@link #snapshot()} returns latencies
+ * since start. Registry created with summary period logs latencies of every endpoint called
+ * during the period at INFO level.
+ */
+public class LatencyRegistry
+        implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(LatencyRegistry.class);
+
+    private final Map<String, EndpointTimer> timers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService summaryExecutor;
+
+    public LatencyRegistry() {
+        this.summaryExecutor = null;
+    }
+
+    /**
+     * @param summaryPeriod period of summary logging
+     */
+    public LatencyRegistry(long summaryPeriod, TimeUnit timeUnit) {
+        this.summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "latency-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.summaryExecutor.scheduleAtFixedRate(this::logSummary, summaryPeriod, summaryPeriod, timeUnit);
+    }
+
+    public EndpointTimer timer(String endpoint) {
+        return timers.computeIfAbsent(endpoint, EndpointTimer::new);
+    }
+
+    /**
+     * @return latencies since start by endpoint
+     */
+    public Map<String, LatencySnapshot> snapshot() {
+        final Map<String, LatencySnapshot> snapshot = new TreeMap<>();
+        timers.forEach((endpoint, timer) -> snapshot.put(endpoint, timer.snapshot()));
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        if (summaryExecutor != null) {
+            summaryExecutor.shutdownNow();
+        }
+    }
+
+    void logSummary() {
+        for (EndpointTimer timer : new TreeMap<>(timers).values()) {
+            final LatencySnapshot summary = timer.summary();
+            if (summary.getCount() > 0) {
+                logger.info("{}", summary);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.romanow.core.commons.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies of endpoint calls in microseconds
+ */
+public class LatencySnapshot {
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final String endpoint;
+    private final Histogram success;
+    private final Histogram failure;
+    private final Histogram all;
+
+    LatencySnapshot(String endpoint, Histogram success, Histogram failure) {
+        this.endpoint = endpoint;
+        this.success = success;
+        this.failure = failure;
+        this.all = success.copy();
+        this.all.add(failure);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return latencies of calls completed normally
+     */
+    public Histogram getSuccess() {
+        return success;
+    }
+
+    /**
+     * @return latencies of calls completed with exception
+     */
+    public Histogram getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return latencies of all calls
+     */
+    public Histogram getAll() {
+        return all;
+    }
+
+    public long getCount() {
+        return all.getTotalCount();
+    }
+
+    public long getFailureCount() {
+        return failure.getTotalCount();
+    }
+
+    /**
+     * @return latency of all calls at percentile in milliseconds
+     */
+    public double getPercentile(double percentile) {
+        return all.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Endpoint [%s]: %d calls, %d failed, p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                             endpoint, getCount(), getFailureCount(), getPercentile(50), getPercentile(99),
+                             getPercentile(99.9), all.getMaxValue() / MICROS_PER_MILLI);
+    }
+}
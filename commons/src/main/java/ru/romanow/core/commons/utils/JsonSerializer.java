@@ -2,11 +2,15 @@ package ru.romanow.core.commons.utils;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
 
 public class JsonSerializer {
+    public static final String TRUNCATED = "...[truncated]";
 
     private static Gson gson = new GsonBuilder().create();
     private static Gson prettyJson = new GsonBuilder()
@@ -21,7 +25,110 @@ public class JsonSerializer {
         return prettyJson.toJson(object);
     }
 
+    /**
+     * Serialize object, but not more than <code>maxLength</code> chars: serialization stops when limit
+     * is reached and {@link #TRUNCATED} is appended, so the whole document is never built
+     *
+     * @param maxLength zero or negative - no limit
+     */
+    public static String toJson(@Nullable Object object, int maxLength) {
+        return toJson(gson, object, maxLength);
+    }
+
+    /**
+     * Same as {@link #toJson(Object, int)} with pretty printing
+     */
+    public static String toPrettyJson(@Nullable Object object, int maxLength) {
+        return toJson(prettyJson, object, maxLength);
+    }
+
     public static <T> T fromJson(@Nullable String json, @Nonnull Class<T> cls) {
         return gson.fromJson(json, cls);
     }
+
+    private static String toJson(@Nonnull Gson gson, @Nullable Object object, int maxLength) {
+        if (maxLength <= 0) {
+            return gson.toJson(object);
+        }
+
+        LimitedWriter writer = new LimitedWriter(maxLength);
+        try {
+            gson.toJson(object, writer);
+        } catch (JsonIOException exception) {
+            if (!(exception.getCause() instanceof LimitReachedException)) {
+                throw exception;
+            }
+        }
+        return writer.toString();
+    }
+
+    private static class LimitedWriter
+            extends Writer {
+        private static final int INITIAL_CAPACITY = 256;
+
+        private final StringBuilder builder;
+        private final int maxLength;
+        private boolean truncated;
+
+        LimitedWriter(int maxLength) {
+            this.builder = new StringBuilder(Math.min(maxLength, INITIAL_CAPACITY));
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            int available = checkAvailable(length);
+            builder.append(buffer, offset, available);
+            checkTruncated(available, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            int available = checkAvailable(length);
+            builder.append(string, offset, offset + available);
+            checkTruncated(available, length);
+        }
+
+        @Override
+        public void write(int ch) throws IOException {
+            checkAvailable(1);
+            builder.append((char) ch);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+
+        @Override
+        public String toString() {
+            return truncated ? builder + TRUNCATED : builder.toString();
+        }
+
+        private int checkAvailable(int length) throws LimitReachedException {
+            int available = Math.min(maxLength - builder.length(), length);
+            if (available <= 0 && length > 0) {
+                truncated = true;
+                throw new LimitReachedException();
+            }
+            return available;
+        }
+
+        private void checkTruncated(int written, int length) throws LimitReachedException {
+            if (written < length) {
+                truncated = true;
+                throw new LimitReachedException();
+            }
+        }
+    }
+
+    private static class LimitReachedException
+            extends IOException {
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            // thrown only to stop serialization, stack trace is never used
+            return this;
+        }
+    }
 }
@@ -2,6 +2,8 @@ package ru.romanow.core.commons.annotations;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -24,4 +26,47 @@ class AspectTestClass {
     @LogRequest(classLogger = AspectTestClass.class)
     @RequestMapping("/empty")
     public void requestEmpty(@Validated @RequestParam Integer id) {}
+
+    @LogRequest(classLogger = AspectTestClass.class)
+    @GetMapping("/get")
+    public String requestGet(@Validated @RequestParam Integer id) {
+        return RandomStringUtils.randomAlphanumeric(10);
+    }
+
+    @LogRequest(classLogger = AspectTestClass.class)
+    @PostMapping(path = "/post")
+    public String requestPost(@RequestParam Integer id, @RequestBody String request) {
+        return RandomStringUtils.randomAlphanumeric(10);
+    }
+
+    @LogRequest(classLogger = AspectTestClass.class, maxPayloadLength = 32)
+    @PostMapping("/truncated")
+    public String requestTruncated(@RequestBody String request) {
+        return request;
+    }
+
+    @LogRequest(classLogger = AspectTestClass.class, sampleRate = 0)
+    @PostMapping("/sampled")
+    public String requestNotSampled(@RequestBody String request) {
+        return request;
+    }
+
+    @LogRequest(classLogger = AspectTestClass.class, maxPerInterval = 1, intervalMillis = 60_000)
+    @PostMapping("/limited")
+    public String requestLimited(@RequestBody String request) {
+        return request;
+    }
+
+    @LogRequest(classLogger = AspectTestClass.class, sampleRate = 0, logErrors = true)
+    @PostMapping("/failed")
+    public String requestFailed(@RequestBody String request) {
+        throw new IllegalStateException("Request failed");
+    }
+
+    @LogRequest(classLogger = AspectTestClass.class, sampleRate = 0, slowThresholdMillis = 10)
+    @PostMapping("/slow")
+    public String requestSlow(@RequestBody String request, long delay) throws InterruptedException {
+        Thread.sleep(delay);
+        return request;
+    }
 }
@@ -12,17 +12,22 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import ru.romanow.core.commons.logging.AsyncPayloadLogger;
 
 import java.util.List;
 
 import static org.apache.commons.lang3.RandomUtils.nextInt;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static ru.romanow.core.commons.utils.JsonSerializer.TRUNCATED;
 
 @ActiveProfiles("aspect-test")
 @RunWith(SpringRunner.class)
@@ -77,4 +82,97 @@ public class LogRequestAspectTest {
         aspectTestClass.requestEmpty(nextInt(0, 10));
         verify(mockAppender, times(0)).doAppend(captorLoggingEvent.capture());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testComposedMapping() {
+        String request = RandomStringUtils.randomAlphanumeric(10);
+        aspectTestClass.requestGet(nextInt(0, 10));
+        aspectTestClass.requestPost(nextInt(0, 10), request);
+        aspectTestClass.requestPost(nextInt(0, 10), request);
+
+        verify(mockAppender, times(5)).doAppend(captorLoggingEvent.capture());
+        List<LoggingEvent> values = captorLoggingEvent.getAllValues();
+        assertTrue(values.get(0).getFormattedMessage().startsWith("Returning result for endpoint [/test/get]"));
+        assertTrue(values.get(1).getFormattedMessage().startsWith("Request for endpoint [/test/post]"));
+        assertTrue(values.get(1).getFormattedMessage().contains(request));
+        assertTrue(values.get(3).getFormattedMessage().startsWith("Request for endpoint [/test/post]"));
+    }
+
+    @Test
+    public void testPayloadTruncated() {
+        String request = RandomStringUtils.randomAlphanumeric(1000);
+        aspectTestClass.requestTruncated(request);
+
+        verify(mockAppender, times(2)).doAppend(captorLoggingEvent.capture());
+        for (LoggingEvent event : captorLoggingEvent.getAllValues()) {
+            assertTrue(event.getFormattedMessage().endsWith("\n\"" + request.substring(0, 31) + TRUNCATED));
+        }
+    }
+
+    @Test
+    public void testSampling() {
+        String request = RandomStringUtils.randomAlphanumeric(10);
+        aspectTestClass.requestNotSampled(request);
+        verify(mockAppender, times(0)).doAppend(captorLoggingEvent.capture());
+
+        for (int i = 0; i < 3; i++) {
+            aspectTestClass.requestLimited(request);
+        }
+        verify(mockAppender, times(2)).doAppend(captorLoggingEvent.capture());
+        List<LoggingEvent> values = captorLoggingEvent.getAllValues();
+        assertTrue(values.get(0).getFormattedMessage().startsWith("Request for endpoint [/test/limited]"));
+        assertTrue(values.get(1).getFormattedMessage().startsWith("Returning result for endpoint [/test/limited]"));
+    }
+
+    @Test
+    public void testErrorLoggedWhenNotSampled() {
+        String request = RandomStringUtils.randomAlphanumeric(10);
+        try {
+            aspectTestClass.requestFailed(request);
+            fail();
+        } catch (IllegalStateException exception) {
+            assertEquals("Request failed", exception.getMessage());
+        }
+
+        verify(mockAppender, times(2)).doAppend(captorLoggingEvent.capture());
+        List<LoggingEvent> values = captorLoggingEvent.getAllValues();
+        assertTrue(values.get(0).getFormattedMessage().startsWith("Request for endpoint [/test/failed]"));
+        assertTrue(values.get(0).getFormattedMessage().contains(request));
+        assertTrue(values.get(1).getFormattedMessage().startsWith("Endpoint [/test/failed] failed"));
+    }
+
+    @Test
+    public void testSlowCallLoggedWhenNotSampled() throws InterruptedException {
+        String request = RandomStringUtils.randomAlphanumeric(10);
+        aspectTestClass.requestSlow(request, 0);
+        verify(mockAppender, times(0)).doAppend(captorLoggingEvent.capture());
+
+        aspectTestClass.requestSlow(request, 50);
+        verify(mockAppender, times(3)).doAppend(captorLoggingEvent.capture());
+        List<LoggingEvent> values = captorLoggingEvent.getAllValues();
+        assertTrue(values.get(0).getFormattedMessage().startsWith("Request for endpoint [/test/slow]"));
+        assertTrue(values.get(1).getFormattedMessage().startsWith("Slow call of endpoint [/test/slow]"));
+        assertTrue(values.get(2).getFormattedMessage().startsWith("Returning result for endpoint [/test/slow]"));
+    }
+
+    @Test
+    public void testAsyncPayloadLogging() {
+        AsyncPayloadLogger payloadLogger = new AsyncPayloadLogger();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new AspectTestClass());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LogRequestAspect(payloadLogger));
+        AspectTestClass proxy = proxyFactory.getProxy();
+
+        String request = RandomStringUtils.randomAlphanumeric(10);
+        String response = proxy.requestExists(nextInt(0, 10), request);
+        payloadLogger.close();
+
+        verify(mockAppender, times(2)).doAppend(captorLoggingEvent.capture());
+        List<LoggingEvent> values = captorLoggingEvent.getAllValues();
+        assertEquals("payload-logger", values.get(0).getThreadName());
+        assertTrue(values.get(0).getFormattedMessage().startsWith("Request for endpoint [/test/exists]"));
+        assertTrue(values.get(0).getFormattedMessage().contains(request));
+        assertTrue(values.get(1).getFormattedMessage().contains(response));
+        assertEquals(2, payloadLogger.getLogged());
+    }
+}
@@ -0,0 +1,104 @@
+package ru.romanow.core.commons.annotations;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import ru.romanow.core.commons.metrics.LatencyRegistry;
+import ru.romanow.core.commons.metrics.LatencySnapshot;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimedAspectTest {
+    private LatencyRegistry registry;
+    private TimedTestClass proxy;
+
+    @Before
+    public void init() {
+        registry = new LatencyRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new TimedTestClass());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new TimedAspect(registry));
+        proxy = proxyFactory.getProxy();
+    }
+
+    @After
+    public void cleanup() {
+        registry.close();
+    }
+
+    @Test
+    public void testLatencyRecordedByEndpoint() throws InterruptedException {
+        proxy.requestGet(20);
+        proxy.requestGet(0);
+        proxy.requestPost();
+        proxy.requestNamed();
+        proxy.requestPlain();
+
+        Map<String, LatencySnapshot> snapshot = registry.snapshot();
+        assertEquals(4, snapshot.size());
+        LatencySnapshot get = snapshot.get("GET /timed/get");
+        assertEquals(2, get.getCount());
+        assertEquals(0, get.getFailureCount());
+        assertTrue(get.getAll().getMaxValue() >= 20_000);
+        assertEquals(1, snapshot.get("POST /timed/get").getCount());
+        assertEquals(1, snapshot.get("named").getCount());
+        assertEquals(1, snapshot.get("TimedTestClass.requestPlain").getCount());
+    }
+
+    @Test
+    public void testFailureRecorded() {
+        try {
+            proxy.requestFailed();
+            fail();
+        } catch (IllegalStateException exception) {
+            assertEquals("Request failed", exception.getMessage());
+        }
+
+        LatencySnapshot failed = registry.snapshot().get("GET /timed/failed");
+        assertEquals(1, failed.getCount());
+        assertEquals(1, failed.getFailureCount());
+        assertEquals(0, failed.getSuccess().getTotalCount());
+    }
+
+    @RequestMapping("/timed")
+    static class TimedTestClass {
+
+        @Timed
+        @GetMapping("/get")
+        public String requestGet(long delay) throws InterruptedException {
+            Thread.sleep(delay);
+            return "get";
+        }
+
+        @Timed
+        @PostMapping("/get")
+        public String requestPost() {
+            return "post";
+        }
+
+        @Timed
+        @GetMapping("/failed")
+        public String requestFailed() {
+            throw new IllegalStateException("Request failed");
+        }
+
+        @Timed("named")
+        @GetMapping("/named")
+        public String requestNamed() {
+            return "named";
+        }
+
+        @Timed
+        public String requestPlain() {
+            return "plain";
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.romanow.core.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AsyncPayloadLoggerTest {
+    private Logger logger;
+    private Appender<ILoggingEvent> appender;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        logger = (Logger) LoggerFactory.getLogger(AsyncPayloadLoggerTest.class);
+        logger.setLevel(Level.DEBUG);
+        appender = mock(Appender.class);
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void cleanup() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    public void testPayloadLoggedOnWorker() {
+        final AsyncPayloadLogger payloadLogger = new AsyncPayloadLogger();
+        assertTrue(payloadLogger.debug(logger, "Request for endpoint [{}]:\n{}", "/test", Map.of("id", 42), 0, true));
+        payloadLogger.close();
+
+        verify(appender).doAppend(argThat(event -> {
+            final ILoggingEvent loggingEvent = (ILoggingEvent) event;
+            return "payload-logger".equals(loggingEvent.getThreadName()) &&
+                    loggingEvent.getFormattedMessage().startsWith("Request for endpoint [/test]") &&
+                    loggingEvent.getFormattedMessage().contains("\"id\": 42");
+        }));
+        assertEquals(1, payloadLogger.getLogged());
+    }
+
+    @Test
+    public void testPayloadSerializedOnCall() {
+        final List<Integer> payload = new ArrayList<>(List.of(1, 2));
+        final AsyncPayloadLogger payloadLogger = new AsyncPayloadLogger();
+        assertTrue(payloadLogger.debug(logger, "{} {}", "/test", payload, 0, false));
+        payload.add(3);
+        payloadLogger.close();
+
+        verify(appender).doAppend(argThat(event -> "/test [1,2]".equals(((ILoggingEvent) event).getFormattedMessage())));
+    }
+
+    @Test
+    public void testEntriesDroppedWhenQueueIsFull() throws InterruptedException {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(appender).doAppend(any());
+
+        final AsyncPayloadLogger payloadLogger = new AsyncPayloadLogger(1);
+        assertTrue(payloadLogger.debug(logger, "{} {}", "/test", "first", 0, false));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // worker is blocked on the first entry, second waits in the queue, third is dropped
+        assertTrue(payloadLogger.debug(logger, "{} {}", "/test", "second", 0, false));
+        assertFalse(payloadLogger.debug(logger, "{} {}", "/test", "third", 0, false));
+        assertEquals(1, payloadLogger.getDropped());
+
+        release.countDown();
+        payloadLogger.close();
+        assertEquals(2, payloadLogger.getLogged());
+        assertFalse(payloadLogger.debug(logger, "{} {}", "/test", "closed", 0, false));
+    }
+}
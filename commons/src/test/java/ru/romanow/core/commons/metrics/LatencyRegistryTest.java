@@ -0,0 +1,81 @@
+package ru.romanow.core.commons.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class LatencyRegistryTest {
+    private Logger logger;
+    private Appender<ILoggingEvent> appender;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        logger = (Logger) LoggerFactory.getLogger(LatencyRegistry.class);
+        appender = mock(Appender.class);
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void cleanup() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    public void testSnapshotIsCumulative() {
+        final LatencyRegistry registry = new LatencyRegistry();
+        final EndpointTimer timer = registry.timer("/test");
+        timer.record(10, TimeUnit.MILLISECONDS, true);
+        timer.record(30, TimeUnit.MILLISECONDS, false);
+        assertEquals(2, registry.snapshot().get("/test").getCount());
+
+        timer.record(20, TimeUnit.MILLISECONDS, true);
+        final LatencySnapshot snapshot = registry.snapshot().get("/test");
+        assertEquals(3, snapshot.getCount());
+        assertEquals(1, snapshot.getFailureCount());
+        assertEquals(20, snapshot.getPercentile(50), 0.1);
+        assertEquals(30, snapshot.getFailure().getMaxValue() / 1000.0, 0.1);
+    }
+
+    @Test
+    public void testSummaryLoggedForPeriod() {
+        final LatencyRegistry registry = new LatencyRegistry();
+        registry.timer("/first").record(10, TimeUnit.MILLISECONDS, true);
+        registry.timer("/second").record(10, TimeUnit.MILLISECONDS, false);
+        registry.snapshot();
+        registry.logSummary();
+
+        registry.timer("/second").record(10, TimeUnit.MILLISECONDS, true);
+        registry.logSummary();
+
+        final ArgumentCaptor<ILoggingEvent> captor = ArgumentCaptor.forClass(ILoggingEvent.class);
+        verify(appender, times(3)).doAppend(captor.capture());
+        final List<ILoggingEvent> events = captor.getAllValues();
+        assertTrue(events.get(0).getFormattedMessage().startsWith("Endpoint [/first]: 1 calls, 0 failed"));
+        assertTrue(events.get(1).getFormattedMessage().startsWith("Endpoint [/second]: 1 calls, 1 failed"));
+        assertTrue(events.get(2).getFormattedMessage().startsWith("Endpoint [/second]: 1 calls, 0 failed"));
+        assertEquals(2, registry.snapshot().get("/second").getCount());
+    }
+
+    @Test
+    public void testPeriodicSummary() {
+        final LatencyRegistry registry = new LatencyRegistry(50, TimeUnit.MILLISECONDS);
+        registry.timer("/test").record(10, TimeUnit.MILLISECONDS, true);
+
+        verify(appender, timeout(5000)).doAppend(argThat(event -> ((ILoggingEvent) event)
+                .getFormattedMessage().startsWith("Endpoint [/test]: 1 calls")));
+        registry.close();
+    }
+}
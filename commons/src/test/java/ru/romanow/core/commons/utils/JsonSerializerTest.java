@@ -0,0 +1,40 @@
+package ru.romanow.core.commons.utils;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static ru.romanow.core.commons.utils.JsonSerializer.TRUNCATED;
+
+public class JsonSerializerTest {
+
+    @Test
+    public void testPayloadShorterThanLimit() {
+        Map<String, Object> payload = Map.of("id", 42, "names", List.of("a", "b"));
+        assertEquals(JsonSerializer.toJson(payload), JsonSerializer.toJson(payload, 1024));
+        assertEquals(JsonSerializer.toPrettyJson(payload), JsonSerializer.toPrettyJson(payload, 1024));
+        assertEquals(JsonSerializer.toJson(payload), JsonSerializer.toJson(payload, 0));
+        assertEquals("null", JsonSerializer.toJson(null, 16));
+    }
+
+    @Test
+    public void testPayloadTruncated() {
+        String value = RandomStringUtils.randomAlphanumeric(10_000);
+        String json = JsonSerializer.toJson(List.of(value, value), 100);
+
+        assertEquals(100 + TRUNCATED.length(), json.length());
+        assertTrue(json.startsWith("[\"" + value.substring(0, 98)));
+        assertTrue(json.endsWith(TRUNCATED));
+    }
+
+    @Test
+    public void testPayloadOfExactLimit() {
+        String json = JsonSerializer.toJson("abc");
+        assertEquals(json, JsonSerializer.toJson("abc", json.length()));
+        assertEquals(json.substring(0, json.length() - 1) + TRUNCATED, JsonSerializer.toJson("abc", json.length() - 1));
+    }
+}
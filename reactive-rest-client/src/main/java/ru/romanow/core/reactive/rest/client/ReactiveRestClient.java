@@ -0,0 +1,595 @@
+package ru.romanow.core.reactive.rest.client;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+import ru.romanow.core.reactive.rest.client.exception.*;
+import ru.romanow.core.reactive.rest.client.utils.JsonElementSplitter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+import static ru.romanow.core.reactive.rest.client.utils.JsonSerializer.fromJson;
+import static ru.romanow.core.reactive.rest.client.utils.JsonSerializer.toJson;
+
+/**
+ * Non-blocking client over Reactor Netty: requests and response processing run on Netty event loops,
+ * nothing is sent until returned publisher is subscribed, every subscription sends new request.
+ */
+public class ReactiveRestClient {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRestClient.class);
+
+    private static final int DEFAULT_REQUEST_TIMEOUT = 60_000;
+    private static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+    private static final List<String> NDJSON_MEDIA_TYPES = List.of(
+            "application/x-ndjson", "application/ndjson", "application/jsonl", "application/stream+json");
+    /**
+     * Chunks requested from the connection ahead of element consumer, connection isn't read while
+     * consumer doesn't request elements
+     */
+    private static final int STREAM_PREFETCH = 2;
+
+    private final HttpClient httpClient;
+    private final long maxResponseSize;
+
+    public ReactiveRestClient() {
+        this(new Builder());
+    }
+
+    public ReactiveRestClient(@Nonnull HttpClient httpClient) {
+        this(new Builder().httpClient(httpClient));
+    }
+
+    private ReactiveRestClient(@Nonnull Builder builder) {
+        this.httpClient = builder.httpClient;
+        this.maxResponseSize = builder.maxResponseSize;
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // region Builders
+    public <RESP> RequestBuilder<RESP> get(@Nonnull String url, @Nonnull Class<RESP> responseClass) {
+        return new RequestBuilder<>(url, HttpMethod.GET, responseClass);
+    }
+
+    public <RESP> RequestBuilder<RESP> post(@Nonnull String url, @Nullable Object requestBody, @Nonnull Class<RESP> requestClass) {
+        return new RequestBuilder<>(url, HttpMethod.POST, requestBody, requestClass);
+    }
+
+    public <RESP> RequestBuilder<RESP> patch(@Nonnull String url, @Nullable Object requestBody, @Nonnull Class<RESP> requestClass) {
+        return new RequestBuilder<>(url, HttpMethod.PATCH, requestBody, requestClass);
+    }
+
+    public <RESP> RequestBuilder<RESP> put(@Nonnull String url, @Nullable Object requestBody, @Nonnull Class<RESP> requestClass) {
+        return new RequestBuilder<>(url, HttpMethod.PUT, requestBody, requestClass);
+    }
+
+    public <RESP> RequestBuilder<RESP> delete(@Nonnull String url, @Nonnull Class<RESP> requestClass) {
+        return new RequestBuilder<>(url, HttpMethod.DELETE, requestClass);
+    }
+    // endregion
+
+    public static class Builder {
+        private HttpClient httpClient;
+        private long maxResponseSize;
+
+        Builder() {
+            this.httpClient = HttpClient.create();
+        }
+
+        /**
+         * Client with custom connection pool, event loops or TCP options
+         */
+        @Nonnull
+        public Builder httpClient(@Nonnull HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Default max response body size in bytes for all requests, zero means unlimited
+         */
+        @Nonnull
+        public Builder maxResponseSize(long maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+            return this;
+        }
+
+        @Nonnull
+        public ReactiveRestClient build() {
+            return new ReactiveRestClient(this);
+        }
+    }
+
+    public class RequestBuilder<RESP> {
+        private String url;
+        private HttpMethod method;
+        private Object requestBody;
+        private Map<String, List<String>> params;
+        private Map<String, String> headers;
+
+        private Class<RESP> responseClass;
+
+        private Supplier<Optional<RESP>> defaultResponse;
+        private Map<Integer, Class<?>> errorResponseClass;
+        private Class<?> commonErrorResponseClass;
+
+        private boolean processClientExceptions;
+        private boolean processServerExceptions;
+        private Map<Integer, ExceptionMapper<? extends RuntimeException, HttpStatusBasedException>> exceptionMapping;
+
+        private boolean processResourceExceptions;
+        private ExceptionMapper<? extends RuntimeException, HttpRestResourceException> resourceExceptionMapper;
+
+        private int requestProcessingTimeout;
+        private TimeUnit timeoutTimeUnit;
+        private int retryCount;
+        private boolean retryServerError;
+        private boolean retryConnectionError;
+        private boolean processTimeoutExceptions;
+        private TimeoutExceptionMapper<? extends RuntimeException> timeoutExceptionMapping;
+
+        private long maxResponseSize;
+        private ExceptionMapper<? extends RuntimeException, HttpRestResponseTooLargeException> responseSizeExceptionMapper;
+
+        RequestBuilder(@Nonnull String url, @Nonnull HttpMethod httpMethod, @Nullable Object requestBody, @Nonnull Class<RESP> responseClass) {
+            this.url = url;
+            this.requestBody = requestBody;
+            this.method = httpMethod;
+            this.params = new LinkedHashMap<>();
+            this.headers = new HashMap<>();
+            this.responseClass = responseClass;
+            this.defaultResponse = Optional::empty;
+            this.errorResponseClass = new HashMap<>();
+
+            this.processClientExceptions = true;
+            this.processServerExceptions = true;
+            this.exceptionMapping = new HashMap<>();
+
+            this.processResourceExceptions = true;
+
+            this.requestProcessingTimeout = DEFAULT_REQUEST_TIMEOUT;
+            this.retryServerError = false;
+            this.retryConnectionError = false;
+            this.timeoutTimeUnit = TimeUnit.MILLISECONDS;
+            this.processTimeoutExceptions = true;
+            this.retryCount = 0;
+
+            this.maxResponseSize = ReactiveRestClient.this.maxResponseSize;
+        }
+
+        RequestBuilder(@Nonnull String url, @Nonnull HttpMethod httpMethod, @Nonnull Class<RESP> responseClass) {
+            this(url, httpMethod, null, responseClass);
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> defaultResponse(@Nonnull Supplier<Optional<RESP>> defaultResponse) {
+            this.defaultResponse = defaultResponse;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> errorResponseClass(int statusCode, Class<?> errorResponseClass) {
+            this.errorResponseClass.put(statusCode, errorResponseClass);
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> commonErrorResponseClass(Class<?> errorResponseClass) {
+            this.commonErrorResponseClass = errorResponseClass;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> processClientExceptions(boolean process) {
+            this.processClientExceptions = process;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> processServerExceptions(boolean process) {
+            this.processServerExceptions = process;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> addExceptionMapping(int status, @Nonnull ExceptionMapper<? extends RuntimeException, HttpStatusBasedException> mapping) {
+            this.exceptionMapping.put(status, mapping);
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> processResourceExceptions(boolean process) {
+            this.processResourceExceptions = process;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> resourceExceptionMapper(
+                @Nonnull ExceptionMapper<? extends RuntimeException, HttpRestResourceException> resourceExceptionMapper) {
+            this.resourceExceptionMapper = resourceExceptionMapper;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> requestProcessingTimeout(int requestProcessingTimeout, @Nonnull TimeUnit timeoutTimeUnit) {
+            this.requestProcessingTimeout = requestProcessingTimeout;
+            this.timeoutTimeUnit = timeoutTimeUnit;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> retryCount(int retryCount) {
+            this.retryCount = retryCount;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> retryServerError(boolean retry) {
+            this.retryServerError = retry;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> retryConnectionError(boolean retry) {
+            this.retryConnectionError = retry;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> processTimeoutExceptions(boolean processTimeoutExceptions) {
+            this.processTimeoutExceptions = processTimeoutExceptions;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> timeoutExceptionMapping(
+                @Nonnull TimeoutExceptionMapper<? extends RuntimeException> timeoutExceptionMapping) {
+            this.timeoutExceptionMapping = timeoutExceptionMapping;
+            return this;
+        }
+
+        /**
+         * Max response body size in bytes, zero means unlimited
+         */
+        @Nonnull
+        public RequestBuilder<RESP> maxResponseSize(long maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> responseSizeExceptionMapper(
+                @Nonnull ExceptionMapper<? extends RuntimeException, HttpRestResponseTooLargeException> responseSizeExceptionMapper) {
+            this.responseSizeExceptionMapper = responseSizeExceptionMapper;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> addParam(@Nonnull String name, @Nullable String value) {
+            this.params.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> addHeader(@Nonnull String name, @Nonnull String value) {
+            this.headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * @return response body, empty for <code>Void</code> response class or if error is suppressed
+         * and default response is empty
+         */
+        @Nonnull
+        public Mono<RESP> execute() {
+            return executeRequest(retryCount);
+        }
+
+        @Nonnull
+        private Mono<RESP> executeRequest(int retryCount) {
+            return sendRequest()
+                    .response((response, body) -> {
+                        final int status = response.status().code();
+                        if (status >= 400) {
+                            return errorResponse(response, body);
+                        } else if (Void.class.equals(responseClass)) {
+                            return limit(response, body).then(Mono.<RESP>empty());
+                        }
+                        return limit(response, body)
+                                .aggregate()
+                                .asString(getCharset(response))
+                                .map(json -> fromJson(json, responseClass));
+                    })
+                    .singleOrEmpty()
+                    .timeout(Duration.ofNanos(this.timeoutTimeUnit.toNanos(this.requestProcessingTimeout)))
+                    .onErrorResume(exception -> processError(
+                            exception, retryCount > 0 ? () -> executeRequest(retryCount - 1) : null,
+                            Mono.defer(() -> Mono.justOrEmpty(this.defaultResponse.get()))));
+        }
+
+        /**
+         * Decode elements of top-level JSON array or newline-delimited JSON (<code>application/x-ndjson</code>)
+         * while response body arrives. Connection is read only when subscriber requests elements, so slow
+         * subscriber holds connection instead of buffering the body. Cancellation closes the connection.
+         * Request processing timeout is applied only to the first element, suppressed errors return empty
+         * flux, requests are not retried.
+         */
+        @Nonnull
+        public <E> Flux<E> executeStream(@Nonnull Class<E> elementClass) {
+            return sendRequest()
+                    .response((response, body) -> {
+                        final int status = response.status().code();
+                        if (status >= 400) {
+                            return errorResponse(response, body);
+                        }
+                        final JsonElementSplitter splitter =
+                                new JsonElementSplitter(getCharset(response), isLineDelimited(response));
+                        // chunks are released when onNext returns, bytes are copied before prefetch queue
+                        return limit(response, body)
+                                .asByteArray()
+                                .concatMapIterable(splitter::split, STREAM_PREFETCH)
+                                .concatWith(Flux.defer(() -> Flux.fromIterable(splitter.finish())))
+                                .map(json -> fromJson(json, elementClass));
+                    })
+                    .timeout(Mono.delay(Duration.ofNanos(this.timeoutTimeUnit.toNanos(this.requestProcessingTimeout))),
+                             element -> Mono.never())
+                    .onErrorResume(exception -> processError(exception, null, Mono.<E>empty()));
+        }
+
+        @Nonnull
+        private HttpClient.ResponseReceiver<?> sendRequest() {
+            final byte[] body = requestBody != null ? toJson(requestBody).getBytes(StandardCharsets.UTF_8) : null;
+            final HttpClient.RequestSender sender = httpClient
+                    .headers(requestHeaders -> {
+                        this.headers.forEach(requestHeaders::set);
+                        if (body != null) {
+                            requestHeaders.set(HttpHeaderNames.CONTENT_TYPE, JSON_CONTENT_TYPE);
+                            requestHeaders.set(HttpHeaderNames.CONTENT_LENGTH, body.length);
+                        }
+                    })
+                    .request(this.method)
+                    .uri(buildUri());
+            return body != null ? sender.send((request, outbound) -> outbound.sendByteArray(Mono.just(body))) : sender;
+        }
+
+        /**
+         * Error body is read (up to <code>maxResponseSize</code>) and passed to exception
+         */
+        @Nonnull
+        private <T> Mono<T> errorResponse(@Nonnull HttpClientResponse response, @Nonnull ByteBufFlux body) {
+            final int status = response.status().code();
+            final String reason = response.status().reasonPhrase();
+            return limit(response, body)
+                    .aggregate()
+                    .asString(getCharset(response))
+                    .defaultIfEmpty("")
+                    .flatMap(text -> Mono.error(new ErrorResponseException(status, reason, text)));
+        }
+
+        /**
+         * Fail body with {@link HttpRestResponseTooLargeException} if declared <code>Content-Length</code>
+         * or received bytes exceed <code>maxResponseSize</code>, failure cancels inbound and closes connection
+         */
+        @Nonnull
+        private ByteBufFlux limit(@Nonnull HttpClientResponse response, @Nonnull ByteBufFlux body) {
+            if (this.maxResponseSize <= 0) {
+                return body;
+            }
+            final long maxSize = this.maxResponseSize;
+            final String contentLength = response.responseHeaders().get(HttpHeaderNames.CONTENT_LENGTH);
+            if (contentLength != null && Long.parseLong(contentLength.trim()) > maxSize) {
+                final long size = Long.parseLong(contentLength.trim());
+                return ByteBufFlux.fromInbound(Flux.error(new HttpRestResponseTooLargeException(
+                        format("Response size %d exceeds limit %d bytes", size, maxSize), maxSize, size)));
+            }
+            final AtomicLong received = new AtomicLong();
+            return ByteBufFlux.fromInbound(body.handle((chunk, sink) -> {
+                final long size = received.addAndGet(chunk.readableBytes());
+                if (size > maxSize) {
+                    sink.error(new HttpRestResponseTooLargeException(
+                            format("Response size %d exceeds limit %d bytes", size, maxSize), maxSize, size));
+                } else {
+                    sink.next(chunk);
+                }
+            }));
+        }
+
+        /**
+         * @param retry next attempt or null if request can't be retried
+         */
+        @Nonnull
+        private <T> Mono<T> processError(@Nonnull Throwable exception, @Nullable Supplier<Mono<T>> retry,
+                                         @Nonnull Mono<T> defaultResult) {
+            if (exception instanceof ErrorResponseException) {
+                final ErrorResponseException errorResponse = (ErrorResponseException) exception;
+                if (errorResponse.status < 500) {
+                    return processClientError(errorResponse.status, errorResponse.reason, errorResponse.body, defaultResult);
+                }
+                if (this.retryServerError && retry != null) {
+                    return retry.get();
+                }
+                return processServerError(errorResponse.status, errorResponse.reason, errorResponse.body, defaultResult);
+            } else if (exception instanceof HttpRestResponseTooLargeException) {
+                return processResponseSizeError((HttpRestResponseTooLargeException) exception);
+            } else if (exception instanceof TimeoutException) {
+                if (retry != null) {
+                    return retry.get();
+                }
+                return processTimeoutError((TimeoutException) exception, defaultResult);
+            } else if (exception instanceof IOException) {
+                if (this.retryConnectionError && retry != null) {
+                    return retry.get();
+                }
+                return processResourceError(exception, defaultResult);
+            }
+            return Mono.error(exception);
+        }
+
+        @Nonnull
+        private <T> Mono<T> processClientError(int status, @Nullable String reason, @Nullable String body,
+                                               @Nonnull Mono<T> defaultResult) {
+            final String message = format("Request to '%s' failed with client error: %d:%s", this.url, status, reason);
+            logger.warn(message);
+
+            if (processClientExceptions) {
+                final HttpRestClientException customException =
+                        new HttpRestClientException(status, reason, getErrorResponseBody(status, body));
+                if (this.exceptionMapping.containsKey(status)) {
+                    return Mono.error(this.exceptionMapping.get(status).produce(customException));
+                } else {
+                    return Mono.error(customException);
+                }
+            }
+            return defaultResult;
+        }
+
+        @Nonnull
+        private <T> Mono<T> processServerError(int status, @Nullable String reason, @Nullable String body,
+                                               @Nonnull Mono<T> defaultResult) {
+            if (this.processServerExceptions) {
+                final String message = format("Request to '%s' failed with server error: %d:%s", this.url, status, reason);
+                logger.warn(message);
+
+                final HttpRestServerException customException =
+                        new HttpRestServerException(status, reason, getErrorResponseBody(status, body));
+                if (this.exceptionMapping.containsKey(status)) {
+                    return Mono.error(this.exceptionMapping.get(status).produce(customException));
+                } else {
+                    return Mono.error(customException);
+                }
+            }
+            return defaultResult;
+        }
+
+        @Nonnull
+        private <T> Mono<T> processResponseSizeError(@Nonnull HttpRestResponseTooLargeException exception) {
+            final String message = format("Request to '%s' aborted: %s", this.url, exception.getMessage());
+            logger.warn(message);
+
+            if (this.responseSizeExceptionMapper != null) {
+                return Mono.error(this.responseSizeExceptionMapper.produce(exception));
+            } else {
+                return Mono.error(exception);
+            }
+        }
+
+        @Nonnull
+        private <T> Mono<T> processTimeoutError(@Nonnull TimeoutException exception, @Nonnull Mono<T> defaultResult) {
+            final String message = format("Request to '%s' failed with timeout", this.url);
+            logger.warn(message);
+
+            if (this.processTimeoutExceptions) {
+                final HttpRestTimeoutException timeoutException = new HttpRestTimeoutException(exception);
+                if (this.timeoutExceptionMapping != null) {
+                    return Mono.error(this.timeoutExceptionMapping.produce(timeoutException));
+                } else {
+                    return Mono.error(timeoutException);
+                }
+            }
+            return defaultResult;
+        }
+
+        @Nonnull
+        private <T> Mono<T> processResourceError(@Nonnull Throwable exception, @Nonnull Mono<T> defaultResult) {
+            final String message = format("Can't establish connection to '%s'", this.url);
+            logger.warn(message);
+
+            if (this.processResourceExceptions) {
+                final HttpRestResourceException resourceException = new HttpRestResourceException(exception);
+                if (this.resourceExceptionMapper != null) {
+                    return Mono.error(this.resourceExceptionMapper.produce(resourceException));
+                } else {
+                    return Mono.error(resourceException);
+                }
+            }
+            return defaultResult;
+        }
+
+        @Nullable
+        private Object getErrorResponseBody(int status, @Nullable String response) {
+            if (response != null && !response.isEmpty()) {
+                if (this.errorResponseClass.containsKey(status)) {
+                    final Class<?> cls = this.errorResponseClass.get(status);
+                    return fromJson(response, cls);
+                } else if (commonErrorResponseClass != null) {
+                    return fromJson(response, commonErrorResponseClass);
+                }
+                return response;
+            }
+            return null;
+        }
+
+        @Nonnull
+        private Charset getCharset(@Nonnull HttpClientResponse response) {
+            final String contentType = response.responseHeaders().get(HttpHeaderNames.CONTENT_TYPE);
+            return contentType != null ? HttpUtil.getCharset(contentType, StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+        }
+
+        private boolean isLineDelimited(@Nonnull HttpClientResponse response) {
+            final String contentType = response.responseHeaders().get(HttpHeaderNames.CONTENT_TYPE);
+            if (contentType == null) {
+                return false;
+            }
+            final String mimeType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+            return NDJSON_MEDIA_TYPES.contains(mimeType);
+        }
+
+        @Nonnull
+        private String buildUri() {
+            if (this.params.isEmpty()) {
+                return this.url;
+            }
+            final StringBuilder uri = new StringBuilder(this.url);
+            char separator = this.url.indexOf('?') >= 0 ? '&' : '?';
+            for (Map.Entry<String, List<String>> param : this.params.entrySet()) {
+                for (String value : param.getValue()) {
+                    uri.append(separator).append(URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8));
+                    if (value != null) {
+                        uri.append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                    }
+                    separator = '&';
+                }
+            }
+            return uri.toString();
+        }
+    }
+
+    /**
+     * Response with error status, mapped to {@link HttpStatusBasedException} by request settings
+     */
+    private static class ErrorResponseException
+            extends RuntimeException {
+        private final int status;
+        private final String reason;
+        private final String body;
+
+        ErrorResponseException(int status, String reason, String body) {
+            super(status + ": " + reason, null, false, false);
+            this.status = status;
+            this.reason = reason;
+            this.body = body;
+        }
+    }
+}
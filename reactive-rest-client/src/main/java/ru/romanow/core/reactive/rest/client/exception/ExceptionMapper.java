@@ -0,0 +1,6 @@
+package ru.romanow.core.reactive.rest.client.exception;
+
+@FunctionalInterface
+public interface ExceptionMapper<T extends RuntimeException, F extends HttpRestException> {
+    T produce(F exception);
+}
@@ -0,0 +1,9 @@
+package ru.romanow.core.reactive.rest.client.exception;
+
+public class HttpRestResourceException
+        extends HttpRestException {
+
+    public HttpRestResourceException(Throwable cause) {
+        super(cause);
+    }
+}
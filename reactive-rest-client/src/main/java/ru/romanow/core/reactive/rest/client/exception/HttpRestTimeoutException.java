@@ -0,0 +1,8 @@
+package ru.romanow.core.reactive.rest.client.exception;
+
+public class HttpRestTimeoutException
+        extends HttpRestException {
+    public HttpRestTimeoutException(Throwable cause) {
+        super(cause);
+    }
+}
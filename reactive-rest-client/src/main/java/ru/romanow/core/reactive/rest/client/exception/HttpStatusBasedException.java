@@ -0,0 +1,38 @@
+package ru.romanow.core.reactive.rest.client.exception;
+
+public abstract class HttpStatusBasedException
+        extends HttpRestException {
+    private int responseStatus;
+    private String responseMessage;
+    private Object body;
+
+    public HttpStatusBasedException(String message, int responseStatus, String responseMessage) {
+        super(message);
+        this.responseStatus = responseStatus;
+        this.responseMessage = responseMessage;
+    }
+
+    public HttpStatusBasedException(String message, int responseStatus, String responseMessage, Object body) {
+        super(message);
+        this.responseStatus = responseStatus;
+        this.responseMessage = responseMessage;
+        this.body = body;
+    }
+
+    public int getResponseStatus() {
+        return responseStatus;
+    }
+
+    public String getResponseMessage() {
+        return responseMessage;
+    }
+
+    public Object getBody() {
+        return body;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getBody(Class<T> cls) {
+        return (T)body;
+    }
+}
@@ -0,0 +1,6 @@
+package ru.romanow.core.reactive.rest.client.exception;
+
+@FunctionalInterface
+public interface TimeoutExceptionMapper<T extends RuntimeException> {
+    T produce(HttpRestTimeoutException exception);
+}
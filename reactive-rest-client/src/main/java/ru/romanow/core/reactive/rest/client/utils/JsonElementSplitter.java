@@ -0,0 +1,143 @@
+package ru.romanow.core.reactive.rest.client.utils;
+
+import io.netty.buffer.ByteBuf;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental splitter of top-level JSON array or newline-delimited JSON into element texts. Chunks are fed
+ * in the order they are received, element bytes are decoded only when element is complete, so multi-byte
+ * characters split between chunks are decoded correctly. Not thread-safe: one instance per response.
+ */
+public class JsonElementSplitter {
+    private final Charset charset;
+    private final boolean lineDelimited;
+    private final ByteArrayOutputStream element;
+
+    private boolean started;
+    private boolean finished;
+    private boolean inString;
+    private boolean escaped;
+    private int depth;
+
+    public JsonElementSplitter(@Nonnull Charset charset, boolean lineDelimited) {
+        this.charset = charset;
+        this.lineDelimited = lineDelimited;
+        this.element = new ByteArrayOutputStream();
+    }
+
+    /**
+     * @return elements completed by this chunk, chunk reader index is not changed
+     */
+    @Nonnull
+    public List<String> split(@Nonnull ByteBuf chunk) {
+        final List<String> elements = new ArrayList<>();
+        for (int i = chunk.readerIndex(); i < chunk.writerIndex(); i++) {
+            if (lineDelimited) {
+                acceptLine(chunk.getByte(i), elements);
+            } else {
+                acceptArray(chunk.getByte(i), elements);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * @return elements completed by this chunk
+     */
+    @Nonnull
+    public List<String> split(@Nonnull byte[] chunk) {
+        final List<String> elements = new ArrayList<>();
+        for (byte b : chunk) {
+            if (lineDelimited) {
+                acceptLine(b, elements);
+            } else {
+                acceptArray(b, elements);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * @return last element of newline-delimited JSON without trailing line separator
+     * @throws IllegalStateException if JSON array is not closed
+     */
+    @Nonnull
+    public List<String> finish() {
+        final List<String> elements = new ArrayList<>();
+        if (lineDelimited) {
+            flush(elements);
+        } else if (started && !finished) {
+            throw new IllegalStateException("Unexpected end of JSON array");
+        }
+        return elements;
+    }
+
+    private void acceptLine(byte b, @Nonnull List<String> elements) {
+        if (b == '\n') {
+            flush(elements);
+        } else {
+            element.write(b);
+        }
+    }
+
+    private void acceptArray(byte b, @Nonnull List<String> elements) {
+        if (!started || finished) {
+            if (b == '[' && !finished) {
+                started = true;
+            } else if (!isWhitespace(b)) {
+                throw new IllegalStateException(format(b, finished ? "Unexpected content after JSON array"
+                                                                    : "Expected top-level JSON array"));
+            }
+            return;
+        }
+
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (b == '\\') {
+                escaped = true;
+            } else if (b == '"') {
+                inString = false;
+            }
+            element.write(b);
+        } else if (depth == 0 && b == ',') {
+            flush(elements);
+        } else if (depth == 0 && b == ']') {
+            flush(elements);
+            finished = true;
+        } else {
+            if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+            if (element.size() > 0 || !isWhitespace(b)) {
+                element.write(b);
+            }
+        }
+    }
+
+    private void flush(@Nonnull List<String> elements) {
+        final String text = element.toString(charset).trim();
+        element.reset();
+        if (!text.isEmpty()) {
+            elements.add(text);
+        }
+    }
+
+    private boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    @Nonnull
+    private String format(byte b, @Nonnull String message) {
+        return String.format("%s, got '%c'", message, (char) (b & 0xFF));
+    }
+}
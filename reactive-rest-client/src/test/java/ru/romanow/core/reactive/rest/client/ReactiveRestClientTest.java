@@ -0,0 +1,247 @@
+package ru.romanow.core.reactive.rest.client;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import reactor.core.publisher.Flux;
+import ru.romanow.core.reactive.rest.client.exception.HttpRestClientException;
+import ru.romanow.core.reactive.rest.client.exception.HttpRestResourceException;
+import ru.romanow.core.reactive.rest.client.exception.HttpRestResponseTooLargeException;
+import ru.romanow.core.reactive.rest.client.exception.HttpRestServerException;
+import ru.romanow.core.reactive.rest.client.exception.HttpRestTimeoutException;
+import ru.romanow.core.reactive.rest.client.exceptions.CustomException;
+import ru.romanow.core.reactive.rest.client.model.AuthRequest;
+import ru.romanow.core.reactive.rest.client.model.AuthResponse;
+import ru.romanow.core.reactive.rest.client.model.PingResponse;
+import ru.romanow.core.reactive.rest.client.model.SimpleResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+import static org.junit.Assert.*;
+import static ru.romanow.core.reactive.rest.client.utils.JsonSerializer.toJson;
+import static ru.romanow.core.reactive.rest.client.web.AuthController.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveRestClientTest {
+    private static final int BAD_REQUEST = 400;
+    private static final int BAD_GATEWAY = 502;
+
+    @LocalServerPort
+    private int port;
+
+    private ReactiveRestClient restClient;
+
+    @Before
+    public void init() {
+        restClient = new ReactiveRestClient();
+    }
+
+    @Test
+    public void testGetSuccess() {
+        final PingResponse response = restClient
+                .get(url(PING), PingResponse.class)
+                .execute()
+                .block();
+
+        assertNotNull(response);
+        assertEquals("OK", response.getMessage());
+    }
+
+    @Test
+    public void testGetWithHeaderAndParam() {
+        final SimpleResponse header = restClient
+                .get(url(CUSTOM_HEADER), SimpleResponse.class)
+                .addHeader("X-CUSTOM-HEADER", "test")
+                .execute()
+                .block();
+        final SimpleResponse param = restClient
+                .get(url(QUERY_PARAM), SimpleResponse.class)
+                .addParam("query", "a b&c")
+                .execute()
+                .block();
+
+        assertEquals("test", header.getMessage());
+        assertEquals("a b&c", param.getMessage());
+    }
+
+    @Test
+    public void testPostSuccess() {
+        final AuthResponse response = restClient
+                .post(url(AUTH), new AuthRequest("ronin", "test"), AuthResponse.class)
+                .execute()
+                .block();
+
+        assertNotNull(response);
+        assertTrue(response.isActive());
+    }
+
+    @Test
+    public void testClientErrorSuppress() {
+        final Optional<Void> response = restClient
+                .get(url(BAD_REQUEST_ERROR), Void.class)
+                .processClientExceptions(false)
+                .execute()
+                .blockOptional();
+
+        assertFalse(response.isPresent());
+    }
+
+    @Test
+    public void testClientErrorWithBody() {
+        try {
+            restClient.get(url(BAD_REQUEST_ERROR_BODY), Void.class).execute().block();
+            fail();
+        } catch (HttpRestClientException exception) {
+            assertEquals(BAD_REQUEST, exception.getResponseStatus());
+            assertEquals(toJson(new SimpleResponse("Bad Request")), exception.getBody());
+        }
+    }
+
+    @Test
+    public void testClientErrorWithBodyClass() {
+        try {
+            restClient.get(url(BAD_REQUEST_ERROR_BODY), Void.class)
+                      .errorResponseClass(BAD_REQUEST, SimpleResponse.class)
+                      .execute()
+                      .block();
+            fail();
+        } catch (HttpRestClientException exception) {
+            assertEquals(new SimpleResponse("Bad Request"), exception.getBody());
+        }
+    }
+
+    @Test(expected = CustomException.class)
+    public void testServerErrorCustomMapping() {
+        restClient.get(url(BAD_GATEWAY_ERROR), Void.class)
+                  .addExceptionMapping(BAD_GATEWAY, (ex) -> new CustomException(ex.getMessage()))
+                  .execute()
+                  .block();
+    }
+
+    @Test
+    public void testServerErrorDefaultResponse() {
+        final SimpleResponse response = restClient
+                .get(url(BAD_GATEWAY_ERROR), SimpleResponse.class)
+                .processServerExceptions(false)
+                .defaultResponse(() -> Optional.of(new SimpleResponse("default")))
+                .execute()
+                .block();
+
+        assertEquals("default", response.getMessage());
+    }
+
+    @Test
+    public void testServerErrorRetry() {
+        final SimpleResponse response = restClient
+                .get(url(BAD_GATEWAY_ERROR_RETRY), SimpleResponse.class)
+                .retryServerError(true)
+                .retryCount(3)
+                .execute()
+                .block();
+
+        assertEquals("Bad Gateway", response.getMessage());
+    }
+
+    @Test(expected = HttpRestServerException.class)
+    public void testServerError() {
+        restClient.get(url(BAD_GATEWAY_ERROR), Void.class).execute().block();
+    }
+
+    @Test(expected = HttpRestResourceException.class)
+    public void testConnectionError() {
+        restClient.get("http://localhost:5000/test", Void.class).execute().block();
+    }
+
+    @Test(expected = HttpRestTimeoutException.class)
+    public void testTimeout() {
+        restClient.get(url(TIMEOUT), Void.class)
+                  .requestProcessingTimeout(1, TimeUnit.SECONDS)
+                  .execute()
+                  .block();
+    }
+
+    @Test(expected = HttpRestResponseTooLargeException.class)
+    public void testResponseTooLarge() {
+        restClient.get(url(STREAM_ARRAY), Void.class)
+                  .maxResponseSize(1024)
+                  .execute()
+                  .block();
+    }
+
+    @Test
+    public void testStreamArray() {
+        final List<SimpleResponse> elements = restClient
+                .get(url(STREAM_ARRAY), Void.class)
+                .executeStream(SimpleResponse.class)
+                .collectList()
+                .block();
+
+        assertEquals(STREAM_SIZE, elements.size());
+        assertEquals(String.valueOf(STREAM_SIZE - 1), elements.get(STREAM_SIZE - 1).getMessage());
+    }
+
+    @Test
+    public void testStreamNdjson() {
+        final Long count = restClient
+                .get(url(STREAM_NDJSON), Void.class)
+                .executeStream(SimpleResponse.class)
+                .count()
+                .block();
+
+        assertEquals(STREAM_SIZE, count.intValue());
+    }
+
+    @Test
+    public void testStreamBackpressure() {
+        final List<String> messages = restClient
+                .get(url(STREAM_ARRAY), Void.class)
+                .executeStream(SimpleResponse.class)
+                .limitRate(1)
+                .take(3)
+                .map(SimpleResponse::getMessage)
+                .collectList()
+                .block();
+
+        assertEquals(List.of("0", "1", "2"), messages);
+    }
+
+    @Test
+    public void testStreamSlowSubscriber() {
+        // body spans many chunks, queued chunks must stay valid while subscriber is slow
+        final List<String> messages = restClient
+                .get(url(STREAM_NDJSON), Void.class)
+                .executeStream(SimpleResponse.class)
+                .limitRate(1)
+                .delayElements(Duration.ofMillis(1))
+                .take(2000)
+                .map(SimpleResponse::getMessage)
+                .collectList()
+                .block();
+
+        assertEquals(IntStream.range(0, 2000).mapToObj(String::valueOf).collect(Collectors.toList()), messages);
+    }
+
+    @Test
+    public void testStreamServerErrorSuppress() {
+        final Flux<SimpleResponse> stream = restClient
+                .get(url(BAD_GATEWAY_ERROR), Void.class)
+                .processServerExceptions(false)
+                .executeStream(SimpleResponse.class);
+
+        assertEquals(0L, stream.count().block().longValue());
+    }
+
+    private String url(String path) {
+        return format("http://localhost:%d%s", port, path);
+    }
+}
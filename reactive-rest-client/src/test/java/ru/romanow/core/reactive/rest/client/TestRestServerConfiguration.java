@@ -0,0 +1,6 @@
+package ru.romanow.core.reactive.rest.client;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class TestRestServerConfiguration {}
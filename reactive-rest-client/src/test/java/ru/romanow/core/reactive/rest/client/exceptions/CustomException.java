@@ -0,0 +1,12 @@
+package ru.romanow.core.reactive.rest.client.exceptions;
+
+public class CustomException
+        extends RuntimeException {
+    public CustomException(Throwable cause) {
+        super(cause);
+    }
+
+    public CustomException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package ru.romanow.core.reactive.rest.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.UUID;
+
+@Data
+@Accessors(chain = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuthResponse {
+    private UUID uin;
+    private long expiredIn;
+    private boolean active;
+}
@@ -0,0 +1,14 @@
+package ru.romanow.core.reactive.rest.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(chain = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class SimpleResponse {
+    private String message;
+}
@@ -0,0 +1,47 @@
+package ru.romanow.core.reactive.rest.client.utils;
+
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class JsonElementSplitterTest {
+
+    @Test
+    public void testArraySplitBetweenChunks() {
+        final String json = "[ {\"a\":\"x,]\\\"}\"}, [1, [2]], \"\u0442\u0435\u0441\u0442\", 3 ]";
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        final JsonElementSplitter splitter = new JsonElementSplitter(StandardCharsets.UTF_8, false);
+
+        final List<String> elements = new ArrayList<>();
+        for (byte b : bytes) {
+            elements.addAll(splitter.split(Unpooled.wrappedBuffer(new byte[] { b })));
+        }
+        elements.addAll(splitter.finish());
+
+        assertEquals(asList("{\"a\":\"x,]\\\"}\"}", "[1, [2]]", "\"\u0442\u0435\u0441\u0442\"", "3"), elements);
+    }
+
+    @Test
+    public void testNdjson() {
+        final JsonElementSplitter splitter = new JsonElementSplitter(StandardCharsets.UTF_8, true);
+
+        final List<String> elements = new ArrayList<>(splitter.split(Unpooled.copiedBuffer("{\"a\":1}\r\n\n{\"a\"", StandardCharsets.UTF_8)));
+        elements.addAll(splitter.split(Unpooled.copiedBuffer(":2}", StandardCharsets.UTF_8)));
+        elements.addAll(splitter.finish());
+
+        assertEquals(asList("{\"a\":1}", "{\"a\":2}"), elements);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnclosedArray() {
+        final JsonElementSplitter splitter = new JsonElementSplitter(StandardCharsets.UTF_8, false);
+        splitter.split(Unpooled.copiedBuffer("[1, 2", StandardCharsets.UTF_8));
+        splitter.finish();
+    }
+}
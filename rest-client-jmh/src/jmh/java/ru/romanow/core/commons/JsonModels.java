@@ -0,0 +1,66 @@
+package ru.romanow.core.commons;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Order with <code>SMALL</code> (1), <code>MEDIUM</code> (20) or <code>LARGE</code> (2000) items:
+ * about 0.3, 3 and 300 KB of JSON.
+ */
+public class JsonModels {
+
+    public enum Size {
+        SMALL(1), MEDIUM(20), LARGE(2000);
+
+        private final int items;
+
+        Size(int items) {
+            this.items = items;
+        }
+    }
+
+    @Nonnull
+    static Order createOrder(@Nonnull Size size) {
+        final Order order = new Order();
+        order.id = new UUID(42, 42);
+        order.customer = "customer@example.com";
+        order.status = "CREATED";
+        order.createdAt = 1_577_836_800_000L;
+        order.attributes = new LinkedHashMap<>();
+        order.attributes.put("channel", "mobile");
+        order.attributes.put("region", "eu-west");
+        order.items = new ArrayList<>(size.items);
+        for (int i = 0; i < size.items; i++) {
+            final Item item = new Item();
+            item.sku = "SKU-" + (100_000 + i);
+            item.name = "Item number " + i;
+            item.quantity = i % 5 + 1;
+            item.price = BigDecimal.valueOf(1999 + i, 2);
+            item.available = i % 3 != 0;
+            order.items.add(item);
+        }
+        return order;
+    }
+
+    public static class Order {
+        private UUID id;
+        private String customer;
+        private String status;
+        private long createdAt;
+        private Map<String, String> attributes;
+        private List<Item> items;
+    }
+
+    public static class Item {
+        private String sku;
+        private String name;
+        private int quantity;
+        private BigDecimal price;
+        private boolean available;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.romanow.core.commons;
+
+import org.openjdk.jmh.annotations.*;
+import ru.romanow.core.commons.JsonModels.Order;
+import ru.romanow.core.commons.JsonModels.Size;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <code>toJson</code>, <code>toPrettyJson</code> and <code>fromJson</code> of the three <code>JsonSerializer</code>
+ * copies (commons, rest-client, spring-rest-client) over orders of different size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JsonSerializerBenchmark {
+
+    public enum Serializer {
+        COMMONS, REST_CLIENT, SPRING_REST_CLIENT
+    }
+
+    @Param({ "COMMONS", "REST_CLIENT", "SPRING_REST_CLIENT" })
+    private Serializer serializer;
+
+    @Param({ "SMALL", "MEDIUM", "LARGE" })
+    private Size size;
+
+    private Function<Object, String> toJson;
+    private Function<Object, String> toPrettyJson;
+    private BiFunction<String, Class<Order>, Order> fromJson;
+
+    private Order order;
+    private String json;
+
+    @Setup
+    public void setup() {
+        switch (serializer) {
+            case REST_CLIENT:
+                toJson = ru.romanow.core.rest.client.utils.JsonSerializer::toJson;
+                toPrettyJson = ru.romanow.core.rest.client.utils.JsonSerializer::toPrettyJson;
+                fromJson = ru.romanow.core.rest.client.utils.JsonSerializer::fromJson;
+                break;
+            case SPRING_REST_CLIENT:
+                toJson = ru.romanow.core.spring.rest.client.utils.JsonSerializer::toJson;
+                toPrettyJson = ru.romanow.core.spring.rest.client.utils.JsonSerializer::toPrettyJson;
+                fromJson = ru.romanow.core.spring.rest.client.utils.JsonSerializer::fromJson;
+                break;
+            default:
+                toJson = ru.romanow.core.commons.utils.JsonSerializer::toJson;
+                toPrettyJson = ru.romanow.core.commons.utils.JsonSerializer::toPrettyJson;
+                fromJson = ru.romanow.core.commons.utils.JsonSerializer::fromJson;
+        }
+        order = JsonModels.createOrder(size);
+        json = toJson.apply(order);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return toJson.apply(order);
+    }
+
+    @Benchmark
+    public String toPrettyJson() {
+        return toPrettyJson.apply(order);
+    }
+
+    @Benchmark
+    public Order fromJson() {
+        return fromJson.apply(json, Order.class);
+    }
+}
@@ -0,0 +1,117 @@
+package ru.romanow.core.commons;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import ru.romanow.core.commons.JsonModels.Order;
+import ru.romanow.core.commons.JsonModels.Size;
+import ru.romanow.core.commons.annotations.LogRequest;
+import ru.romanow.core.commons.annotations.LogRequestAspect;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>@LogRequest</code> controller method called through Spring AOP proxy with debug logging on and off,
+ * compared with direct call of the same method. Debug events are formatted by logback and written to null
+ * output stream, so I/O is not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LogRequestAspectBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean debug;
+
+    @Param({ "SMALL", "MEDIUM" })
+    private Size size;
+
+    private AnnotationConfigApplicationContext context;
+    private OrderController proxy;
+    private OrderController target;
+    private Order order;
+
+    @Setup
+    public void setup() {
+        final LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.WARN);
+        final ch.qos.logback.classic.Logger logger = loggerContext.getLogger(OrderController.class);
+        logger.setLevel(debug ? Level.DEBUG : Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(createAppender(loggerContext));
+
+        context = new AnnotationConfigApplicationContext(AspectConfiguration.class);
+        proxy = context.getBean(OrderController.class);
+        target = new OrderController();
+        order = JsonModels.createOrder(size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order direct() {
+        return target.create(order);
+    }
+
+    @Benchmark
+    public Order proxied() {
+        return proxy.create(order);
+    }
+
+    private OutputStreamAppender<ILoggingEvent> createAppender(LoggerContext loggerContext) {
+        final PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5level [%thread] %logger{36} : %msg%n");
+        encoder.start();
+
+        final OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy
+    static class AspectConfiguration {
+
+        @Bean
+        public LogRequestAspect logRequestAspect() {
+            return new LogRequestAspect();
+        }
+
+        @Bean
+        public OrderController orderController() {
+            return new OrderController();
+        }
+    }
+
+    @RequestMapping("/api/v1/orders")
+    public static class OrderController {
+
+        @LogRequest(classLogger = OrderController.class)
+        @RequestMapping("/create")
+        public Order create(@RequestBody Order order) {
+            return order;
+        }
+    }
+}
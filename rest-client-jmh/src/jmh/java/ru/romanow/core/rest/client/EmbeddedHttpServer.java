@@ -0,0 +1,73 @@
+package ru.romanow.core.rest.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP/1.1 server on loopback interface and random port: <code>GET /payload</code> returns
+ * fixed body, <code>POST /payload</code> reads request body and returns short body. Keep-alive is supported,
+ * so benchmarks measure clients and not connection setup.
+ */
+class EmbeddedHttpServer
+        implements Closeable {
+    static final String PAYLOAD_PATH = "/payload";
+
+    private static final String CONTENT_TYPE = "application/json; charset=UTF-8";
+    private static final byte[] ACCEPTED = "{\"data\":\"accepted\"}".getBytes();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] payload;
+
+    /**
+     * @param payload body of <code>GET</code> response
+     * @param threads request processing threads
+     */
+    EmbeddedHttpServer(@Nonnull byte[] payload, int threads) throws IOException {
+        // headers and body are written separately, without TCP_NODELAY small responses wait for delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.payload = payload;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext(PAYLOAD_PATH, this::handle);
+        this.server.start();
+    }
+
+    @Nonnull
+    String getUrl(@Nonnull String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(@Nonnull HttpExchange exchange) throws IOException {
+        try (InputStream input = exchange.getRequestBody()) {
+            final byte[] buffer = new byte[8192];
+            while (input.read(buffer) >= 0) {
+                // request body is read to keep connection reusable
+            }
+        }
+
+        final byte[] body = "GET".equals(exchange.getRequestMethod()) ? payload : ACCEPTED;
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
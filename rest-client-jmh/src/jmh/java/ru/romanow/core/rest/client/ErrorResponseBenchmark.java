@@ -0,0 +1,59 @@
+package ru.romanow.core.rest.client;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+import ru.romanow.core.spring.rest.client.SpringRestClient;
+import ru.romanow.core.spring.rest.client.exception.HttpRestClientException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup answered with 404 through {@link SpringRestClient} with and without stackless exceptions.
+ * Request is executed on calling thread at <code>callDepth</code> frames, so stack trace filling cost
+ * is close to the one in application code.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorResponseBenchmark {
+    private static final String TEST_URL = "http://localhost/users/42";
+
+    @Param({ "false", "true" })
+    private boolean stacklessExceptions;
+
+    @Param({ "20", "100" })
+    private int callDepth;
+
+    private SpringRestClient restClient;
+
+    @Setup
+    public void setup() {
+        final RestTemplate restTemplate = new RestTemplate(new SlowClientHttpRequestFactory(0, HttpStatus.NOT_FOUND));
+        restClient = SpringRestClient
+                .builder(restTemplate)
+                .executor(Runnable::run)
+                .stacklessExceptions(stacklessExceptions)
+                .build();
+    }
+
+    @Benchmark
+    public int notFoundLookup() {
+        return lookup(callDepth);
+    }
+
+    private int lookup(int depth) {
+        if (depth > 0) {
+            return lookup(depth - 1);
+        }
+        try {
+            restClient.get(TEST_URL, Void.class).execute();
+            return 200;
+        } catch (HttpRestClientException exception) {
+            return exception.getResponseStatus();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ru.romanow.core.rest.client;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.client.RestTemplate;
+import ru.romanow.core.spring.rest.client.SpringRestClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static ru.romanow.core.rest.client.utils.JsonSerializer.toJson;
+
+/**
+ * {@link RestClient} and {@link SpringRestClient} (default {@link RestTemplate}) against {@link EmbeddedHttpServer}
+ * on loopback interface: JSON body of <code>payloadSize</code> bytes is received by <code>GET</code> or sent by
+ * <code>POST</code>, one and 16 calling threads. Both clients serialize JSON with Gson.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-Dhttp.maxConnections=64" })
+@State(Scope.Benchmark)
+public class RestClientComparisonBenchmark {
+    private static final int CONCURRENT_THREADS = 16;
+
+    public enum Method {
+        GET, POST
+    }
+
+    @Param({ "100", "10240", "1048576", "10485760" })
+    private int payloadSize;
+
+    @Param({ "GET", "POST" })
+    private Method method;
+
+    private EmbeddedHttpServer server;
+    private String url;
+    private Payload payload;
+    private RestClient restClient;
+    private SpringRestClient springRestClient;
+
+    @Setup
+    public void setup() throws IOException {
+        payload = createPayload(payloadSize);
+        server = new EmbeddedHttpServer(toJson(payload).getBytes(StandardCharsets.UTF_8), CONCURRENT_THREADS * 2);
+        url = server.getUrl(EmbeddedHttpServer.PAYLOAD_PATH);
+
+        restClient = RestClient
+                .builder()
+                .maxConnections(CONCURRENT_THREADS * 4, CONCURRENT_THREADS * 4)
+                .build();
+        springRestClient = new SpringRestClient(new RestTemplate());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        restClient.close();
+        server.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Payload restClient() {
+        return executeRestClient();
+    }
+
+    @Benchmark
+    @Threads(CONCURRENT_THREADS)
+    public Payload restClientConcurrent() {
+        return executeRestClient();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Payload springRestClient() {
+        return executeSpringRestClient();
+    }
+
+    @Benchmark
+    @Threads(CONCURRENT_THREADS)
+    public Payload springRestClientConcurrent() {
+        return executeSpringRestClient();
+    }
+
+    private Payload executeRestClient() {
+        if (method == Method.GET) {
+            return restClient.get(url, Payload.class).execute().orElse(null);
+        }
+        return restClient.post(url, Payload.class).requestBody(payload).execute().orElse(null);
+    }
+
+    private Payload executeSpringRestClient() {
+        if (method == Method.GET) {
+            return springRestClient.get(url, Payload.class).execute().orElse(null);
+        }
+        return springRestClient.post(url, payload, Payload.class).execute().orElse(null);
+    }
+
+    /**
+     * @return payload serialized to JSON of <code>size</code> bytes
+     */
+    private static Payload createPayload(int size) {
+        final int overhead = toJson(new Payload("")).length();
+        final char[] data = new char[Math.max(size - overhead, 0)];
+        Arrays.fill(data, 'a');
+        return new Payload(new String(data));
+    }
+
+    public static class Payload {
+        private String data;
+
+        public Payload() {}
+
+        Payload(String data) {
+            this.data = data;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        public void setData(String data) {
+            this.data = data;
+        }
+    }
+}
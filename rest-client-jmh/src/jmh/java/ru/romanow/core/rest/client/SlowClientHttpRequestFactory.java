@@ -0,0 +1,136 @@
+package ru.romanow.core.rest.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * Request factory emulating slow downstream: every request blocks calling thread for fixed latency
+ * and returns empty response with fixed status (200 by default).
+ */
+class SlowClientHttpRequestFactory
+        implements ClientHttpRequestFactory {
+    private final long latency;
+    private final HttpStatus status;
+
+    SlowClientHttpRequestFactory(long latency) {
+        this(latency, HttpStatus.OK);
+    }
+
+    SlowClientHttpRequestFactory(long latency, @Nonnull HttpStatus status) {
+        this.latency = latency;
+        this.status = status;
+    }
+
+    @Nonnull
+    @Override
+    public ClientHttpRequest createRequest(@Nonnull URI uri, @Nonnull HttpMethod httpMethod) {
+        return new SlowClientHttpRequest(uri, httpMethod);
+    }
+
+    private class SlowClientHttpRequest
+            implements ClientHttpRequest {
+        private final URI uri;
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        SlowClientHttpRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Nonnull
+        @Override
+        public ClientHttpResponse execute() {
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new EmptyClientHttpResponse(status);
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Nonnull
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Nonnull
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Nonnull
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Nonnull
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+    }
+
+    private static class EmptyClientHttpResponse
+            implements ClientHttpResponse {
+        private final HttpStatus status;
+
+        EmptyClientHttpResponse(@Nonnull HttpStatus status) {
+            this.status = status;
+        }
+
+        @Nonnull
+        @Override
+        public HttpStatus getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return status.value();
+        }
+
+        @Nonnull
+        @Override
+        public String getStatusText() {
+            return status.getReasonPhrase();
+        }
+
+        @Override
+        public void close() {}
+
+        @Nonnull
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Nonnull
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.romanow.core.rest.client;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.client.RestTemplate;
+import ru.romanow.core.spring.rest.client.SpringRestClient;
+import ru.romanow.core.spring.rest.client.utils.RequestExecutors;
+
+import java.util.concurrent.*;
+
+/**
+ * Burst of concurrent slow calls through {@link SpringRestClient} with different executors.
+ * On commonPool burst time grows as <code>concurrency / (cores - 1) * latency</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpringRestClientExecutorBenchmark {
+    private static final String TEST_URL = "http://localhost/slow";
+
+    public enum ExecutorType {
+        COMMON_POOL, BOUNDED_POOL, VIRTUAL_THREADS
+    }
+
+    @Param({ "COMMON_POOL", "BOUNDED_POOL", "VIRTUAL_THREADS" })
+    private ExecutorType executorType;
+
+    @Param({ "2000" })
+    private int concurrency;
+
+    @Param({ "20" })
+    private long latency;
+
+    private ExecutorService executor;
+    private ExecutorService callers;
+    private SpringRestClient restClient;
+
+    @Setup
+    public void setup() {
+        switch (executorType) {
+            case BOUNDED_POOL:
+                executor = RequestExecutors.boundedPool(concurrency);
+                break;
+            case VIRTUAL_THREADS:
+                executor = RequestExecutors.virtualThreadPerRequest();
+                break;
+            default:
+                executor = null;
+        }
+
+        final RestTemplate restTemplate = new RestTemplate(new SlowClientHttpRequestFactory(latency));
+        restClient = SpringRestClient
+                .builder(restTemplate)
+                .executor(executor != null ? executor : ForkJoinPool.commonPool())
+                .build();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        callers.shutdownNow();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void concurrentSlowCalls() {
+        final CompletableFuture<?>[] calls = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            calls[i] = CompletableFuture.runAsync(() -> restClient.get(TEST_URL, Void.class).execute(), callers);
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+}
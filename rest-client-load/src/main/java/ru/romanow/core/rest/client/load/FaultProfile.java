@@ -0,0 +1,23 @@
+package ru.romanow.core.rest.client.load;
+
+/**
+ * Behavior of {@link StubServer} for part of requests (<code>faultRatio</code>)
+ */
+public enum FaultProfile {
+    /**
+     * All requests are answered at once
+     */
+    NONE,
+    /**
+     * Response is delayed for <code>faultDelay</code>
+     */
+    SLOW,
+    /**
+     * Response is <code>503 Service Unavailable</code>
+     */
+    ERRORS,
+    /**
+     * Connection is closed without response
+     */
+    RESETS
+}
@@ -0,0 +1,119 @@
+package ru.romanow.core.rest.client.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+
+/**
+ * Latencies and outcomes of one load run. Corrected latency is measured from intended start time
+ * of the request, so time spent waiting for free worker or connection is not omitted when client
+ * falls behind the schedule. Every scheduled request is recorded. Latencies are recorded in microseconds.
+ */
+public class LoadResult {
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+    private final String name;
+    private final int targetRate;
+    private final Histogram corrected = new ConcurrentHistogram(3);
+    private final Histogram uncorrected = new ConcurrentHistogram(3);
+    private final LongAdder succeeded = new LongAdder();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    private volatile long duration;
+
+    LoadResult(@Nonnull String name, int targetRate) {
+        this.name = name;
+        this.targetRate = targetRate;
+    }
+
+    void success(long intendedStart, long actualStart, long end) {
+        record(intendedStart, actualStart, end);
+        succeeded.increment();
+    }
+
+    void failure(long intendedStart, long actualStart, long end, @Nonnull Exception exception) {
+        record(intendedStart, actualStart, end);
+        failures.computeIfAbsent(exception.getClass().getSimpleName(), k -> new LongAdder()).increment();
+    }
+
+    void setDuration(long duration, @Nonnull TimeUnit timeUnit) {
+        this.duration = timeUnit.toNanos(duration);
+    }
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    @Nonnull
+    public Histogram getCorrected() {
+        return corrected;
+    }
+
+    @Nonnull
+    public Histogram getUncorrected() {
+        return uncorrected;
+    }
+
+    /**
+     * @return completed requests per second
+     */
+    public double getThroughput() {
+        return duration > 0 ? corrected.getTotalCount() * 1e9 / duration : 0;
+    }
+
+    @Nonnull
+    public Map<String, Long> getFailures() {
+        final Map<String, Long> result = new TreeMap<>();
+        failures.forEach((type, count) -> result.put(type, count.sum()));
+        return result;
+    }
+
+    public void print(@Nonnull PrintStream out) {
+        out.println(format("%s: target %d rps, achieved %.1f rps, %d ok, failures %s",
+                           name, targetRate, getThroughput(), succeeded.sum(), getFailures()));
+        out.println(format("  %-12s %12s %12s", "percentile", "corrected", "uncorrected"));
+        for (double percentile : PERCENTILES) {
+            out.println(format("  %-12s %10.3f ms %10.3f ms", percentile,
+                               corrected.getValueAtPercentile(percentile) / MICROS_PER_MILLI,
+                               uncorrected.getValueAtPercentile(percentile) / MICROS_PER_MILLI));
+        }
+        out.println(format("  %-12s %10.3f ms %10.3f ms", "max",
+                           corrected.getMaxValue() / MICROS_PER_MILLI, uncorrected.getMaxValue() / MICROS_PER_MILLI));
+    }
+
+    /**
+     * Write summary (<code>name.txt</code>) and percentile distributions in HdrHistogram format
+     * (<code>name.hgrm</code>, <code>name-uncorrected.hgrm</code>) in milliseconds
+     */
+    public void writeReport(@Nonnull Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".txt")))) {
+            print(out);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+            corrected.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + "-uncorrected.hgrm")))) {
+            uncorrected.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    private void record(long intendedStart, long actualStart, long end) {
+        corrected.recordValue(TimeUnit.NANOSECONDS.toMicros(end - intendedStart));
+        uncorrected.recordValue(TimeUnit.NANOSECONDS.toMicros(end - actualStart));
+    }
+}
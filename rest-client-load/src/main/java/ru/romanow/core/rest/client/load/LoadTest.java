@@ -0,0 +1,106 @@
+package ru.romanow.core.rest.client.load;
+
+import org.springframework.web.client.RestTemplate;
+import ru.romanow.core.rest.client.RestClient;
+import ru.romanow.core.spring.rest.client.SpringRestClient;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Open-loop load test of {@link RestClient} and {@link SpringRestClient} against local {@link StubServer}.
+ * Every client is run at every target rate after warm-up at the same rate, results are printed
+ * and written to the report directory.
+ * <pre>
+ * gradle :rest-client-load:run --args="--rates=800,1200 --duration=60 --fault=slow --fault-ratio=0.01"
+ * </pre>
+ * Options: <code>--client=rest|spring|all</code>, <code>--rates</code> (requests per second),
+ * <code>--duration</code> and <code>--warmup</code> (sec), <code>--payload</code> (response bytes),
+ * <code>--fault=none|slow|errors|resets</code>, <code>--fault-ratio</code>, <code>--fault-delay</code> (ms),
+ * <code>--timeout</code> (request timeout, ms), <code>--max-in-flight</code>, <code>--report</code> (directory).
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = parseOptions(args);
+        final String client = options.getOrDefault("client", "all");
+        final List<Integer> rates = Arrays.stream(options.getOrDefault("rates", "1000").split(","))
+                                          .map(rate -> Integer.parseInt(rate.trim()))
+                                          .collect(Collectors.toList());
+        final long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+        final long warmUp = Long.parseLong(options.getOrDefault("warmup", "10"));
+        final int payloadSize = Integer.parseInt(options.getOrDefault("payload", "1024"));
+        final FaultProfile faultProfile = FaultProfile.valueOf(options.getOrDefault("fault", "none").toUpperCase());
+        final double faultRatio = Double.parseDouble(options.getOrDefault("fault-ratio", "0.05"));
+        final long faultDelay = Long.parseLong(options.getOrDefault("fault-delay", "500"));
+        final int timeout = Integer.parseInt(options.getOrDefault("timeout", "2000"));
+        final int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        final Path report = Paths.get(options.getOrDefault("report", "build/load-report"));
+
+        try (StubServer server = new StubServer(createPayload(payloadSize), faultProfile, faultRatio,
+                                                faultDelay, TimeUnit.MILLISECONDS);
+             OpenLoopGenerator generator = new OpenLoopGenerator(maxInFlight);
+             RestClient restClient = RestClient.builder().maxConnections(maxInFlight, maxInFlight).build()) {
+            final String url = server.getUrl();
+            final SpringRestClient springRestClient = new SpringRestClient(new RestTemplate());
+
+            final Map<String, Runnable> requests = new LinkedHashMap<>();
+            if (!"spring".equals(client)) {
+                requests.put("rest", () -> restClient
+                        .get(url, String.class)
+                        .requestProcessingTimeout(timeout, TimeUnit.MILLISECONDS)
+                        .execute());
+            }
+            if (!"rest".equals(client)) {
+                requests.put("spring", () -> springRestClient
+                        .get(url, String.class)
+                        .requestProcessingTimeout(timeout, TimeUnit.MILLISECONDS)
+                        .execute());
+            }
+
+            for (Map.Entry<String, Runnable> request : requests.entrySet()) {
+                for (int rate : rates) {
+                    final String name = getName(request.getKey(), faultProfile, rate);
+                    generator.run(name + "-warmup", request.getValue(), rate, warmUp, TimeUnit.SECONDS);
+                    final LoadResult result = generator.run(name, request.getValue(), rate, duration, TimeUnit.SECONDS);
+                    result.print(System.out);
+                    result.writeReport(report);
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private static String getName(@Nonnull String client, @Nonnull FaultProfile faultProfile, int rate) {
+        return client + "-" + faultProfile.name().toLowerCase() + "-" + rate + "rps";
+    }
+
+    @Nonnull
+    private static byte[] createPayload(int size) {
+        final byte[] payload = new byte[Math.max(size, 2)];
+        Arrays.fill(payload, (byte) 'a');
+        payload[0] = '"';
+        payload[payload.length - 1] = '"';
+        return payload;
+    }
+
+    @Nonnull
+    private static Map<String, String> parseOptions(@Nonnull String[] args) {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unknown argument " + arg + ", expected --name=value");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.romanow.core.rest.client.load;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at fixed rate regardless of response time (open loop): request <code>i</code> is
+ * scheduled at <code>start + i / rate</code>, slow responses don't delay next requests. If generator
+ * falls behind the schedule, late requests are sent at once and their latency is still measured from
+ * scheduled time. Every request runs on its own worker thread, up to <code>maxInFlight</code>: request over
+ * the limit waits for a free slot and the wait is part of its corrected latency, requests are never dropped.
+ */
+public class OpenLoopGenerator
+        implements Closeable {
+    private final int maxInFlight;
+    private final ExecutorService workers;
+
+    public OpenLoopGenerator(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        final AtomicInteger number = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "load-worker-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Send requests for <code>duration</code> and wait for responses of all sent requests
+     *
+     * @param request blocking call, exception is counted as failure
+     * @param rate    requests per second
+     */
+    @Nonnull
+    public LoadResult run(@Nonnull String name, @Nonnull Runnable request, int rate,
+                          long duration, @Nonnull TimeUnit timeUnit) throws InterruptedException {
+        final LoadResult result = new LoadResult(name, rate);
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final double interval = TimeUnit.SECONDS.toNanos(1) / (double) rate;
+        final long start = System.nanoTime();
+        final long end = start + timeUnit.toNanos(duration);
+
+        for (long i = 0; ; i++) {
+            final long intendedStart = start + (long) (i * interval);
+            if (intendedStart - end >= 0) {
+                break;
+            }
+            waitUntil(intendedStart);
+            // dropping request would omit its latency from the result (coordinated omission)
+            inFlight.acquire();
+            workers.execute(() -> {
+                final long actualStart = System.nanoTime();
+                try {
+                    request.run();
+                    result.success(intendedStart, actualStart, System.nanoTime());
+                } catch (Exception exception) {
+                    result.failure(intendedStart, actualStart, System.nanoTime(), exception);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        inFlight.acquire(maxInFlight);
+        result.setDuration(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private void waitUntil(long time) {
+        long remaining;
+        while ((remaining = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
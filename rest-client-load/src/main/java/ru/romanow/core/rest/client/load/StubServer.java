@@ -0,0 +1,97 @@
+package ru.romanow.core.rest.client.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP/1.1 server on loopback interface and random port. Returns fixed JSON body,
+ * part of requests is answered according to {@link FaultProfile}.
+ */
+public class StubServer
+        implements Closeable {
+    public static final String PATH = "/api/stub";
+
+    private static final String CONTENT_TYPE = "application/json; charset=UTF-8";
+    private static final byte[] ERROR = "{\"message\":\"Service unavailable\"}".getBytes();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] payload;
+    private final FaultProfile faultProfile;
+    private final double faultRatio;
+    private final long faultDelay;
+
+    /**
+     * @param faultRatio part of requests answered according to fault profile, from 0 to 1
+     */
+    public StubServer(@Nonnull byte[] payload, @Nonnull FaultProfile faultProfile, double faultRatio,
+                      long faultDelay, @Nonnull TimeUnit timeUnit) throws IOException {
+        // headers and body are written separately, without TCP_NODELAY small responses wait for delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.payload = payload;
+        this.faultProfile = faultProfile;
+        this.faultRatio = faultRatio;
+        this.faultDelay = timeUnit.toMillis(faultDelay);
+        this.executor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        this.server.setExecutor(executor);
+        this.server.createContext(PATH, this::handle);
+        this.server.start();
+    }
+
+    @Nonnull
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + PATH;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(@Nonnull HttpExchange exchange) throws IOException {
+        try (InputStream input = exchange.getRequestBody()) {
+            final byte[] buffer = new byte[8192];
+            while (input.read(buffer) >= 0) {
+                // request body is read to keep connection reusable
+            }
+        }
+
+        final boolean fault = faultProfile != FaultProfile.NONE && ThreadLocalRandom.current().nextDouble() < faultRatio;
+        if (fault && faultProfile == FaultProfile.RESETS) {
+            // exchange closed before headers are sent closes the connection
+            exchange.close();
+            return;
+        }
+        if (fault && faultProfile == FaultProfile.SLOW) {
+            try {
+                Thread.sleep(faultDelay);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                exchange.close();
+                return;
+            }
+        }
+
+        final int status = fault && faultProfile == FaultProfile.ERRORS ? 503 : 200;
+        final byte[] body = status == 200 ? payload : ERROR;
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
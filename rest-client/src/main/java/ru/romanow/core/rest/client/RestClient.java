@@ -1,52 +1,283 @@
 package ru.romanow.core.rest.client;
 
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.UnsupportedSchemeException;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.romanow.core.rest.client.admission.AdmissionController;
+import ru.romanow.core.rest.client.admission.AdmissionController.AdmissionPermit;
+import ru.romanow.core.rest.client.admission.AdmissionStats;
+import ru.romanow.core.rest.client.admission.Priority;
+import ru.romanow.core.rest.client.balancer.Endpoint;
+import ru.romanow.core.rest.client.balancer.EndpointLease;
+import ru.romanow.core.rest.client.balancer.LoadBalancer;
+import ru.romanow.core.rest.client.body.BodySource;
+import ru.romanow.core.rest.client.body.MultipartBody;
+import ru.romanow.core.rest.client.body.ProgressListener;
+import ru.romanow.core.rest.client.body.StreamingEntity;
+import ru.romanow.core.rest.client.connection.IdleConnectionEvictor;
+import ru.romanow.core.rest.client.connection.KeepAliveStrategy;
+import ru.romanow.core.rest.client.consumer.FileResponseConsumer;
+import ru.romanow.core.rest.client.consumer.LimitedResponseConsumer;
+import ru.romanow.core.rest.client.consumer.StreamingResponseConsumer;
+import ru.romanow.core.rest.client.download.FileMetadata;
 import ru.romanow.core.rest.client.exception.*;
+import ru.romanow.core.rest.client.logging.FailureLogger;
+import ru.romanow.core.rest.client.ratelimit.RateLimitPolicy;
+import ru.romanow.core.rest.client.ratelimit.RateLimiter;
+import ru.romanow.core.rest.client.ratelimit.RateLimiterRegistry;
+import ru.romanow.core.rest.client.utils.JsonSerializer;
+import ru.romanow.core.rest.client.utils.JsonStreamIterator;
+import ru.romanow.core.rest.client.warmup.WarmUp;
+import ru.romanow.core.rest.client.warmup.WarmUpResult;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
 import static java.util.Optional.empty;
 import static java.util.Optional.ofNullable;
 import static org.apache.http.util.TextUtils.isEmpty;
 import static ru.romanow.core.rest.client.utils.JsonSerializer.fromJson;
 import static ru.romanow.core.rest.client.utils.JsonSerializer.toJson;
 
-public class RestClient {
+/**
+ * Client shares pool of keep-alive connections between requests, so it should be created once
+ * and closed on shutdown.
+ */
+public class RestClient
+        implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(RestClient.class);
+    private static final AtomicInteger clientNumber = new AtomicInteger();
 
     private static final int DEFAULT_REQUEST_TIMEOUT = 60_000;
     private static final int SOCKET_TIMEOUT = 3000;
     private static final int CONNECTION_TIMEOUT = 1000;
     private static final int MAX_CONNECTIONS = 200;
+    private static final long DEFAULT_MAX_IDLE_TIME = TimeUnit.SECONDS.toMillis(30);
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final String DEFAULT_DIGEST_ALGORITHM = "SHA-256";
+    private static final Set<String> NDJSON_MIME_TYPES =
+            Set.of("application/x-ndjson", "application/ndjson", "application/jsonl", "application/stream+json");
+
+    private final LoadBalancer loadBalancer;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final AdmissionController admissionController;
+    private final long maxResponseSize;
+    private final boolean retryStaleConnection;
+    private final boolean stacklessExceptions;
+    private final FailureLogger failureLogger;
+
+    private final KeepAliveStrategy keepAliveStrategy;
+    private final CloseableHttpAsyncClient transport;
+    // connection pool and I/O threads of own client, not created if transport is set
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient httpClient;
+    private final IdleConnectionEvictor connectionEvictor;
+
+    public RestClient() {
+        this(new Builder());
+    }
+
+    private RestClient(@Nonnull Builder builder) {
+        this.loadBalancer = builder.loadBalancer;
+        this.rateLimiterRegistry = builder.rateLimiterRegistry;
+        this.admissionController = builder.admissionController;
+        this.maxResponseSize = builder.maxResponseSize;
+        this.retryStaleConnection = builder.retryStaleConnection;
+        this.stacklessExceptions = builder.stacklessExceptions;
+        this.failureLogger = new FailureLogger(logger, builder.failureLogInterval, TimeUnit.MILLISECONDS);
+        this.keepAliveStrategy = builder.keepAliveStrategy;
+
+        if (builder.transport != null) {
+            this.connectionManager = null;
+            this.httpClient = null;
+            this.connectionEvictor = null;
+            this.transport = builder.transport;
+            return;
+        }
+
+        final ThreadFactory threadFactory = createThreadFactory();
+        try {
+            this.connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT, threadFactory));
+        } catch (IOReactorException exception) {
+            throw new IllegalStateException(exception);
+        }
+        this.connectionManager.setMaxTotal(builder.maxConnections);
+        this.connectionManager.setDefaultMaxPerRoute(builder.maxConnectionsPerRoute);
+        this.httpClient = createHttpClient(keepAliveStrategy, threadFactory);
+        this.transport = httpClient;
+        this.connectionEvictor = builder.maxIdleTime > 0
+                ? new IdleConnectionEvictor(connectionManager, builder.maxIdleTime, TimeUnit.MILLISECONDS) : null;
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Close pooled connections and stop I/O threads, requests in progress are aborted
+     */
+    @Override
+    public void close() throws IOException {
+        if (connectionEvictor != null) {
+            connectionEvictor.close();
+        }
+        failureLogger.close();
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+
+    /**
+     * Open connections to the hosts and return them to the pool, prepare JSON adapters of the classes.
+     * Connections that fail to open in warm-up timeout are reported as failures, warm-up doesn't throw.
+     * Client with custom transport has no pool, only JSON adapters are prepared.
+     */
+    @Nonnull
+    public WarmUpResult warmUp(@Nonnull WarmUp warmUp) {
+        final long start = System.nanoTime();
+        JsonSerializer.warmUp(warmUp.getClasses());
+        if (httpClient == null) {
+            return new WarmUpResult(Duration.ofNanos(System.nanoTime() - start), 0, 0);
+        }
+        httpClient.start();
+
+        final Map<HttpRoute, List<Future<NHttpClientConnection>>> leases = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> connections : warmUp.getConnections().entrySet()) {
+            final HttpRoute route = getRoute(connections.getKey());
+            for (int i = 0; i < connections.getValue(); i++) {
+                leases.computeIfAbsent(route, r -> new ArrayList<>())
+                      .add(connectionManager.requestConnection(route, null, CONNECTION_TIMEOUT, warmUp.getTimeout(),
+                                                               TimeUnit.MILLISECONDS, null));
+            }
+        }
+
+        // all connections are leased before release, otherwise pool would return the same connection
+        final long deadline = start + TimeUnit.MILLISECONDS.toNanos(warmUp.getTimeout());
+        int opened = 0;
+        int failures = 0;
+        for (Map.Entry<HttpRoute, List<Future<NHttpClientConnection>>> route : leases.entrySet()) {
+            for (Future<NHttpClientConnection> lease : route.getValue()) {
+                try {
+                    final NHttpClientConnection connection =
+                            lease.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                    if (!connectionManager.isRouteComplete(connection)) {
+                        final HttpContext context = new BasicHttpContext();
+                        connectionManager.startRoute(connection, route.getKey(), context);
+                        connectionManager.routeComplete(connection, route.getKey(), context);
+                    }
+                    opened++;
+                    connectionManager.releaseConnection(connection, null,
+                                                        keepAliveStrategy.getKeepAliveDuration(route.getKey().getTargetHost()),
+                                                        TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | TimeoutException | IOException exception) {
+                    lease.cancel(true);
+                    failures++;
+                    logger.warn("Warm-up connection to '{}' failed: {}", route.getKey().getTargetHost(), exception.toString());
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    lease.cancel(true);
+                    failures++;
+                }
+            }
+        }
+
+        final WarmUpResult result = new WarmUpResult(Duration.ofNanos(System.nanoTime() - start), opened, failures);
+        logger.info("Warm-up finished: {}", result);
+        return result;
+    }
+
+    /**
+     * Same route as request execution uses, otherwise warmed connections are not leased by requests
+     */
+    @Nonnull
+    private HttpRoute getRoute(@Nonnull String url) {
+        final HttpHost host = URIUtils.extractHost(URI.create(url));
+        if (host == null) {
+            throw new IllegalArgumentException(format("Url '%s' has no host", url));
+        }
+        try {
+            final int port = DefaultSchemePortResolver.INSTANCE.resolve(host);
+            return new HttpRoute(new HttpHost(host.getHostName(), port, host.getSchemeName()), null,
+                                 "https".equalsIgnoreCase(host.getSchemeName()));
+        } catch (UnsupportedSchemeException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    /**
+     * @return admission counters or null if client has no admission controller
+     */
+    @Nullable
+    public AdmissionStats getAdmissionStats() {
+        return admissionController != null ? admissionController.getStats() : null;
+    }
 
-    CloseableHttpAsyncClient build() {
+    /**
+     * @return leased, idle and pending connections of the pool, zeros if client uses custom transport
+     */
+    @Nonnull
+    public PoolStats getConnectionStats() {
+        return connectionManager != null ? connectionManager.getTotalStats() : new PoolStats(0, 0, 0, 0);
+    }
+
+    @Nonnull
+    private CloseableHttpAsyncClient createHttpClient(@Nonnull KeepAliveStrategy keepAliveStrategy,
+                                                      @Nonnull ThreadFactory threadFactory) {
         RequestConfig requestConfig = RequestConfig
                 .custom()
                 .setSocketTimeout(SOCKET_TIMEOUT)
@@ -54,10 +285,26 @@ public class RestClient {
         return HttpAsyncClients
                 .custom()
                 .setDefaultRequestConfig(requestConfig)
-                .setMaxConnTotal(MAX_CONNECTIONS)
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .setThreadFactory(threadFactory)
                 .build();
     }
 
+    /**
+     * I/O threads are daemons: client that is not closed doesn't prevent JVM exit
+     */
+    @Nonnull
+    private static ThreadFactory createThreadFactory() {
+        final String prefix = "rest-client-" + clientNumber.incrementAndGet() + "-";
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     // region Builders
     public <RESP> GetRequestBuilder<RESP> get(@Nonnull String url, @Nonnull Class<RESP> responseClass) {
         return new GetRequestBuilder<>(url, responseClass);
@@ -80,6 +327,143 @@ public class RestClient {
     }
     // endregion
 
+    public static class Builder {
+        private LoadBalancer loadBalancer;
+        private RateLimiterRegistry rateLimiterRegistry;
+        private AdmissionController admissionController;
+        private long maxResponseSize;
+        private int maxConnections;
+        private int maxConnectionsPerRoute;
+        private KeepAliveStrategy keepAliveStrategy;
+        private long maxIdleTime;
+        private boolean retryStaleConnection;
+        private boolean stacklessExceptions;
+        private long failureLogInterval;
+        private CloseableHttpAsyncClient transport;
+
+        Builder() {
+            this.maxConnections = MAX_CONNECTIONS;
+            this.maxConnectionsPerRoute = MAX_CONNECTIONS;
+            this.keepAliveStrategy = KeepAliveStrategy.builder().build();
+            this.maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+            this.retryStaleConnection = true;
+            this.failureLogInterval = FailureLogger.DEFAULT_INTERVAL;
+        }
+
+        @Nonnull
+        public Builder maxConnections(int maxConnections, int maxConnectionsPerRoute) {
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * How long pooled connection may be reused, by default server <code>Keep-Alive</code> header or 15 sec
+         */
+        @Nonnull
+        public Builder keepAliveStrategy(@Nonnull KeepAliveStrategy keepAliveStrategy) {
+            this.keepAliveStrategy = keepAliveStrategy;
+            return this;
+        }
+
+        /**
+         * Background eviction of expired connections and connections idle longer than <code>maxIdleTime</code>
+         * (30 sec by default), zero disables eviction.
+         */
+        @Nonnull
+        public Builder evictIdleConnections(long maxIdleTime, @Nonnull TimeUnit timeUnit) {
+            this.maxIdleTime = timeUnit.toMillis(maxIdleTime);
+            return this;
+        }
+
+        /**
+         * Resend idempotent request once if pooled connection was closed by server before response
+         * (<code>ConnectionClosedException</code>), retry count is not decremented. Enabled by default.
+         */
+        @Nonnull
+        public Builder retryStaleConnection(boolean retryStaleConnection) {
+            this.retryStaleConnection = retryStaleConnection;
+            return this;
+        }
+
+        /**
+         * Throw client, server, timeout and connection exceptions without stack trace: filling it is the main
+         * cost of expected errors (e.g. 404 on lookups). Exception message, status and body are kept.
+         */
+        @Nonnull
+        public Builder stacklessExceptions(boolean stacklessExceptions) {
+            this.stacklessExceptions = stacklessExceptions;
+            return this;
+        }
+
+        /**
+         * Log first failure of host and status (or timeout, connection error) in the interval and summary
+         * of the next ones at the end of it, 10 sec by default. Zero logs every failure.
+         */
+        @Nonnull
+        public Builder failureLogInterval(long interval, @Nonnull TimeUnit timeUnit) {
+            this.failureLogInterval = timeUnit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * Balance requests with relative url over load balancer endpoints. Requests with absolute url
+         * are executed as is.
+         */
+        @Nonnull
+        public Builder loadBalancer(@Nonnull LoadBalancer loadBalancer) {
+            this.loadBalancer = loadBalancer;
+            return this;
+        }
+
+        /**
+         * Limit request rate per host or per url, limiters also follow server <code>Retry-After</code>
+         * and <code>RateLimit-*</code> headers.
+         */
+        @Nonnull
+        public Builder rateLimiter(@Nonnull RateLimiterRegistry rateLimiterRegistry) {
+            this.rateLimiterRegistry = rateLimiterRegistry;
+            return this;
+        }
+
+        /**
+         * Limit concurrent requests per host with bounded wait queue, so exhausted connection pool
+         * doesn't hold calling threads until request timeout. Rejected requests fail with
+         * {@link HttpRestRejectedException}.
+         */
+        @Nonnull
+        public Builder admissionController(@Nonnull AdmissionController admissionController) {
+            this.admissionController = admissionController;
+            return this;
+        }
+
+        /**
+         * Default limit of response body size in bytes for all requests, zero means unlimited. Larger response
+         * is not read: exchange is aborted, connection is closed and {@link HttpRestResponseTooLargeException} is thrown.
+         */
+        @Nonnull
+        public Builder maxResponseSize(long maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+            return this;
+        }
+
+        /**
+         * Send requests with the transport instead of pooled connections, e.g. in-memory
+         * {@link ru.romanow.core.rest.client.transport.LoopbackTransport} in tests and benchmarks.
+         * Connection pool settings and warm-up don't apply to it, transport is not closed with the client.
+         */
+        @Nonnull
+        public Builder transport(@Nonnull CloseableHttpAsyncClient transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        @Nonnull
+        public RestClient build() {
+            return new RestClient(this);
+        }
+    }
+
     public abstract class RequestBuilder<RESP, T extends RequestBuilder<RESP, T>> {
         protected String url;
         protected Map<String, String> params;
@@ -88,7 +472,8 @@ public class RestClient {
         private Class<RESP> responseClass;
 
         private Supplier<Optional<RESP>> defaultResponse;
-        private Map<Integer, Class> errorResponseClass;
+        private Map<Integer, Class<?>> errorResponseClass;
+        private Class<?> commonErrorResponseClass;
 
         private boolean processClientExceptions;
         private boolean processServerExceptions;
@@ -105,6 +490,18 @@ public class RestClient {
         private boolean processTimeoutExceptions;
         private TimeoutExceptionMapper<? extends RuntimeException> timeoutExceptionMapping;
 
+        private RateLimitPolicy rateLimitPolicy;
+        private ExceptionMapper<? extends RuntimeException, HttpRestRateLimitException> rateLimitExceptionMapper;
+        private ExceptionMapper<? extends RuntimeException, HttpRestRejectedException> rejectedExceptionMapper;
+        private Priority priority;
+
+        private long maxResponseSize;
+        private ExceptionMapper<? extends RuntimeException, HttpRestResponseTooLargeException> responseSizeExceptionMapper;
+
+        private Set<Endpoint> triedEndpoints;
+        private long deadline;
+        private boolean staleConnectionRetried;
+
         public RequestBuilder(@Nonnull String url, @Nonnull Class<RESP> responseClass) {
             this.url = url;
             this.params = new HashMap<>();
@@ -125,6 +522,11 @@ public class RestClient {
             this.timeoutTimeUnit = TimeUnit.MILLISECONDS;
             this.processTimeoutExceptions = true;
             this.retryCount = 0;
+
+            this.rateLimitPolicy = RateLimitPolicy.WAIT;
+            this.priority = Priority.NORMAL;
+
+            this.maxResponseSize = RestClient.this.maxResponseSize;
         }
 
         @Nonnull
@@ -139,6 +541,12 @@ public class RestClient {
             return getThis();
         }
 
+        @Nonnull
+        public T commonErrorResponseClass(Class<?> errorResponseClass) {
+            this.commonErrorResponseClass = errorResponseClass;
+            return getThis();
+        }
+
         @Nonnull
         public T processClientExceptions(boolean process) {
             this.processClientExceptions = process;
@@ -208,6 +616,48 @@ public class RestClient {
             return getThis();
         }
 
+        @Nonnull
+        public T rateLimitPolicy(@Nonnull RateLimitPolicy rateLimitPolicy) {
+            this.rateLimitPolicy = rateLimitPolicy;
+            return getThis();
+        }
+
+        @Nonnull
+        public T rateLimitExceptionMapper(
+                @Nonnull ExceptionMapper<? extends RuntimeException, HttpRestRateLimitException> rateLimitExceptionMapper) {
+            this.rateLimitExceptionMapper = rateLimitExceptionMapper;
+            return getThis();
+        }
+
+        @Nonnull
+        public T rejectedExceptionMapper(
+                @Nonnull ExceptionMapper<? extends RuntimeException, HttpRestRejectedException> rejectedExceptionMapper) {
+            this.rejectedExceptionMapper = rejectedExceptionMapper;
+            return getThis();
+        }
+
+        /**
+         * Order of the request in admission queue, has effect only if client has admission controller
+         */
+        @Nonnull
+        public T priority(@Nonnull Priority priority) {
+            this.priority = priority;
+            return getThis();
+        }
+
+        @Nonnull
+        public T maxResponseSize(long maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+            return getThis();
+        }
+
+        @Nonnull
+        public T responseSizeExceptionMapper(
+                @Nonnull ExceptionMapper<? extends RuntimeException, HttpRestResponseTooLargeException> responseSizeExceptionMapper) {
+            this.responseSizeExceptionMapper = responseSizeExceptionMapper;
+            return getThis();
+        }
+
         @Nonnull
         public T addParam(@Nonnull String name, @Nullable String value) {
             this.params.put(name, value);
@@ -229,94 +679,444 @@ public class RestClient {
         @Nonnull
         public Optional<RESP> execute() {
             final HttpRequestBase request = prepareRequest();
-            try (CloseableHttpAsyncClient httpClient = build()) {
-                httpClient.start();
-                return executeRequest(httpClient, request, retryCount);
-            } catch (IOException exception) {
-                throw new RuntimeException(exception);
-            }
+            this.triedEndpoints = new HashSet<>();
+            this.staleConnectionRetried = false;
+            this.deadline = System.nanoTime() + this.timeoutTimeUnit.toNanos(this.requestProcessingTimeout);
+            transport.start();
+            return executeRequest(transport, request, retryCount);
+        }
+
+        /**
+         * Execute request and write successful response body to the file as bytes arrive. Body is written
+         * to the temporary file next to the target, synced to disk and atomically renamed to the target when
+         * response is completed. SHA-256 digest is calculated while body is written.
+         *
+         * @return written file metadata, empty if error is suppressed
+         */
+        @Nonnull
+        public Optional<FileMetadata> executeToFile(@Nonnull Path target) {
+            return executeToFile(target, DEFAULT_DIGEST_ALGORITHM);
+        }
+
+        /**
+         * @param digestAlgorithm {@link java.security.MessageDigest} algorithm or null to skip digest calculation:
+         *                        then body is transferred from the socket to the file without copying to user space
+         *                        if connection allows it
+         * @see #executeToFile(Path)
+         */
+        @Nonnull
+        public Optional<FileMetadata> executeToFile(@Nonnull Path target, @Nullable String digestAlgorithm) {
+            final HttpRequestBase request = prepareRequest();
+            this.triedEndpoints = new HashSet<>();
+            this.staleConnectionRetried = false;
+            this.deadline = System.nanoTime() + this.timeoutTimeUnit.toNanos(this.requestProcessingTimeout);
+            transport.start();
+            return executeRequest(transport, request,
+                                  () -> new FileResponseConsumer(target, digestAlgorithm, this.maxResponseSize),
+                                  (httpResponse, consumer) -> ofNullable(consumer.getMetadata()),
+                                  Optional::empty, retryCount);
         }
 
         @Nonnull
         protected Optional<RESP> executeRequest(@Nonnull HttpAsyncClient httpClient, @Nonnull HttpRequestBase request, int retryCount) {
-            final Future<HttpResponse> response = httpClient.execute(request, null);
+            return executeRequest(httpClient, request,
+                                  () -> new LimitedResponseConsumer(this.maxResponseSize),
+                                  (httpResponse, consumer) -> getResponseData(httpResponse.getEntity()),
+                                  this.defaultResponse, retryCount);
+        }
+
+        /**
+         * @param consumerFactory consumer of single attempt
+         * @param resultHandler   result of successful (2xx) response
+         */
+        @Nonnull
+        private <C extends LimitedResponseConsumer, R> Optional<R> executeRequest(
+                @Nonnull HttpAsyncClient httpClient, @Nonnull HttpRequestBase request,
+                @Nonnull Supplier<C> consumerFactory, @Nonnull BiFunction<HttpResponse, C, Optional<R>> resultHandler,
+                @Nonnull Supplier<Optional<R>> defaultResult, int retryCount) {
+            final EndpointLease lease = acquireEndpoint(request);
+            final AdmissionPermit permit;
             try {
-                final HttpResponse httpResponse = response.get(this.requestProcessingTimeout, this.timeoutTimeUnit);
-                final int status = httpResponse.getStatusLine().getStatusCode();
-                final String reason = httpResponse.getStatusLine().getReasonPhrase();
+                permit = admit(request);
+            } catch (RuntimeException exception) {
+                lease.release();
+                throw exception;
+            }
+            try {
+                final RateLimiter rateLimiter = rateLimiterRegistry != null
+                        ? rateLimiterRegistry.getRateLimiter(request.getURI(), this.url) : null;
+                if (rateLimiter != null && !acquirePermit(rateLimiter)) {
+                    return defaultResult.get();
+                }
+
+                final C consumer = consumerFactory.get();
+                final Future<HttpResponse> response = httpClient.execute(HttpAsyncMethods.create(request), consumer, null);
+                try {
+                    final HttpResponse httpResponse = response.get(this.requestProcessingTimeout, this.timeoutTimeUnit);
+                    final int status = httpResponse.getStatusLine().getStatusCode();
+                    final String reason = httpResponse.getStatusLine().getReasonPhrase();
 
-                if (isOk(status)) {
-                    return getResponseData(httpResponse.getEntity());
-                } else if (isClientError(status) && processClientExceptions) {
-                    final String message = format("Request to '%s' failed with client error: %d:%s",
-                                                  this.url, status, reason);
-                    logger.warn(message);
-
-                    final HttpRestClientException exception =
-                            new HttpRestClientException(status, reason, getResponseBody(httpResponse.getEntity()));
-                    if (this.exceptionMapping.containsKey(status)) {
-                        throw this.exceptionMapping.get(status).produce(exception);
+                    updateRateLimiter(request, httpResponse);
+                    if (isServerError(status)) {
+                        lease.failure();
                     } else {
-                        throw exception;
-                    }
-                } else if (isServerError(status)) {
-                    if (this.retryServerError && retryCount > 0) {
-                        return executeRequest(httpClient, request, retryCount - 1);
+                        lease.success();
                     }
 
-                    if (this.processServerExceptions) {
-                        final String message = format("Request to '%s' failed with server error: %d:%s",
-                                                      this.url, status, reason);
-                        logger.warn(message);
-
-                        final HttpRestServerException exception =
-                                new HttpRestServerException(status, reason, getResponseBody(httpResponse.getEntity()));
-                        if (this.exceptionMapping.containsKey(status)) {
-                            throw this.exceptionMapping.get(status).produce(exception);
-                        } else {
-                            throw exception;
+                    if (isOk(status)) {
+                        return resultHandler.apply(httpResponse, consumer);
+                    } else if (isClientError(status)) {
+                        processClientError(status, reason, httpResponse.getEntity());
+                    } else if (isServerError(status)) {
+                        if (this.retryServerError && canRetry(request, retryCount)) {
+                            release(permit);
+                            return executeRequest(httpClient, request, consumerFactory, resultHandler,
+                                                  defaultResult, retryCount - 1);
                         }
+                        processServerError(status, reason, httpResponse.getEntity());
                     }
-                }
-            } catch (ExecutionException exception) {
-                if (exception.getCause() instanceof SocketException) {
-                    if (this.retryConnectionError && retryCount > 0) {
-                        return executeRequest(httpClient, request, retryCount - 1);
+                } catch (ExecutionException exception) {
+                    if (isStaleConnection(request, exception)) {
+                        // server closed pooled connection before request was processed, resend it once
+                        this.staleConnectionRetried = true;
+                        lease.release();
+                        release(permit);
+                        logger.debug("Request to '{}' failed on stale connection, resend", this.url);
+                        return executeRequest(httpClient, request, consumerFactory, resultHandler,
+                                              defaultResult, retryCount);
                     }
-                    final String message = format("Can't establish connection to '%s'", this.url);
-                    logger.warn(message);
-
-                    if (this.processResourceExceptions) {
-                        final HttpRestResourceException resourceException = new HttpRestResourceException(exception);
-                        if (this.resourceExceptionMapper != null) {
-                            throw this.resourceExceptionMapper.produce(resourceException);
-                        } else {
-                            throw resourceException;
-                        }
+                    if (exception.getCause() instanceof HttpRestFileException) {
+                        // local file failure says nothing about endpoint and is not fixed by resending
+                        lease.release();
+                        throw (HttpRestFileException) exception.getCause();
+                    }
+                    lease.failure();
+                    if (isConnectionError(exception.getCause()) && this.retryConnectionError &&
+                            canRetry(request, retryCount)) {
+                        release(permit);
+                        return executeRequest(httpClient, request, consumerFactory, resultHandler,
+                                              defaultResult, retryCount - 1);
                     }
+                    processExecutionError(exception);
+                } catch (TimeoutException exception) {
+                    response.cancel(true);
+                    lease.failure();
+                    if (canRetry(request, retryCount)) {
+                        release(permit);
+                        return executeRequest(httpClient, request, consumerFactory, resultHandler,
+                                              defaultResult, retryCount - 1);
+                    }
+                    processTimeoutError(exception);
+                } catch (InterruptedException exception) {
+                    logger.error("InterruptedException", exception);
+                }
+            } finally {
+                release(permit);
+                lease.release();
+            }
+
+            return defaultResult.get();
+        }
+
+        /**
+         * Execute request and decode elements of top-level JSON array or newline-delimited JSON
+         * (<code>application/x-ndjson</code>) while response body arrives. Memory usage doesn't depend on response size:
+         * reading from the socket is suspended until consumer takes next elements.
+         * Returned stream holds connection and must be closed. Suppressed errors return empty stream,
+         * requests are not retried. Body over <code>maxResponseSize</code> fails iteration with
+         * {@link HttpRestResponseTooLargeException}.
+         */
+        @Nonnull
+        public <E> Stream<E> executeStream(@Nonnull Class<E> elementClass) {
+            final HttpRequestBase request = prepareRequest();
+            this.triedEndpoints = new HashSet<>();
+            this.deadline = System.nanoTime() + this.timeoutTimeUnit.toNanos(this.requestProcessingTimeout);
+            transport.start();
+
+            final EndpointLease lease = acquireEndpoint(request);
+            final AdmissionPermit permit;
+            try {
+                permit = admit(request);
+            } catch (RuntimeException exception) {
+                lease.release();
+                throw exception;
+            }
+            Future<HttpResponse> exchange = null;
+            Stream<E> stream = null;
+            try {
+                final RateLimiter rateLimiter = rateLimiterRegistry != null
+                        ? rateLimiterRegistry.getRateLimiter(request.getURI(), this.url) : null;
+                if (rateLimiter != null && !acquirePermit(rateLimiter)) {
+                    return Stream.empty();
+                }
+
+                final StreamingResponseConsumer consumer = new StreamingResponseConsumer(STREAM_BUFFER_SIZE, this.maxResponseSize);
+                exchange = transport.execute(HttpAsyncMethods.create(request), consumer, null);
+                final HttpResponse httpResponse =
+                        consumer.getResponseFuture().get(this.requestProcessingTimeout, this.timeoutTimeUnit);
+                final int status = httpResponse.getStatusLine().getStatusCode();
+                final String reason = httpResponse.getStatusLine().getReasonPhrase();
+
+                updateRateLimiter(request, httpResponse);
+                if (isOk(status) && httpResponse.getEntity() != null) {
+                    // endpoint is busy until body is read, body can still fail after headers
+                    stream = createStream(httpResponse.getEntity(), elementClass, exchange)
+                            .onClose(() -> {
+                                if (consumer.getException() != null) {
+                                    lease.failure();
+                                } else {
+                                    lease.success();
+                                }
+                                release(permit);
+                            });
+                    return stream;
+                }
+
+                if (isServerError(status)) {
+                    lease.failure();
                 } else {
-                    throw new RuntimeException(exception);
+                    lease.success();
                 }
+                if (isClientError(status)) {
+                    processClientError(status, reason, httpResponse.getEntity());
+                } else if (isServerError(status)) {
+                    processServerError(status, reason, httpResponse.getEntity());
+                }
+            } catch (ExecutionException exception) {
+                lease.failure();
+                processExecutionError(exception);
             } catch (TimeoutException exception) {
-                if (retryCount > 0) {
-                    return executeRequest(httpClient, request, retryCount - 1);
+                lease.failure();
+                processTimeoutError(exception);
+            } catch (InterruptedException exception) {
+                logger.error("InterruptedException", exception);
+            } finally {
+                if (stream == null) {
+                    if (exchange != null) {
+                        exchange.cancel(true);
+                    }
+                    lease.release();
+                    release(permit);
+                }
+            }
+
+            return Stream.empty();
+        }
+
+        /**
+         * Wait for admission of the attempt to the host chosen by load balancer. Every attempt is admitted
+         * separately, but all attempts share deadline of the request.
+         */
+        @Nullable
+        private AdmissionPermit admit(@Nonnull HttpRequestBase request) {
+            if (admissionController == null) {
+                return null;
+            }
+            try {
+                return admissionController.acquire(request.getURI(), this.deadline, this.priority);
+            } catch (HttpRestRejectedException exception) {
+                if (this.rejectedExceptionMapper != null) {
+                    throw this.rejectedExceptionMapper.produce(exception);
+                } else {
+                    throw exception;
                 }
-                final String message = format("Request to '%s' failed with timeout", this.url);
-                logger.warn(message);
+            }
+        }
 
-                if (this.processTimeoutExceptions) {
-                    final HttpRestTimeoutException timeoutException = new HttpRestTimeoutException(exception);
-                    if (this.timeoutExceptionMapping != null) {
-                        throw this.timeoutExceptionMapping.produce(timeoutException);
+        private void release(@Nullable AdmissionPermit permit) {
+            if (permit != null) {
+                permit.release();
+            }
+        }
+
+        /**
+         * Request with streamed body can be sent only once
+         */
+        private boolean canRetry(@Nonnull HttpRequestBase request, int retryCount) {
+            if (request instanceof HttpEntityEnclosingRequest) {
+                final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+                return retryCount > 0 && (entity == null || entity.isRepeatable());
+            }
+            return retryCount > 0;
+        }
+
+        @Nonnull
+        private <E> Stream<E> createStream(@Nonnull HttpEntity entity, @Nonnull Class<E> elementClass,
+                                           @Nonnull Future<HttpResponse> exchange)
+                throws ExecutionException {
+            final ContentType contentType = ContentType.getLenientOrDefault(entity);
+            final Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+            final boolean lineDelimited = NDJSON_MIME_TYPES.contains(contentType.getMimeType().toLowerCase());
+            try {
+                final JsonStreamIterator<E> iterator =
+                        new JsonStreamIterator<>(entity.getContent(), charset, elementClass, lineDelimited);
+                final Spliterator<E> spliterator =
+                        Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+                return StreamSupport
+                        .stream(spliterator, false)
+                        .onClose(() -> {
+                            exchange.cancel(true);
+                            iterator.close();
+                        });
+            } catch (IOException exception) {
+                throw new ExecutionException(exception);
+            }
+        }
+
+        /**
+         * Connection closed before response is received: server could close idle keep-alive connection
+         * while it was leased. Only idempotent requests with repeatable body are resent.
+         */
+        private boolean isStaleConnection(@Nonnull HttpRequestBase request, @Nonnull ExecutionException exception) {
+            if (!retryStaleConnection || this.staleConnectionRetried ||
+                    !(exception.getCause() instanceof ConnectionClosedException)) {
+                return false;
+            }
+            final String method = request.getMethod();
+            final boolean idempotent = !HttpPost.METHOD_NAME.equals(method) && !HttpPatch.METHOD_NAME.equals(method);
+            return idempotent && canRetry(request, 1);
+        }
+
+        /**
+         * Network failure: connection refused or reset, socket timeout, connection closed before response
+         */
+        private boolean isConnectionError(@Nullable Throwable cause) {
+            return cause instanceof SocketException ||
+                    cause instanceof SocketTimeoutException ||
+                    cause instanceof ConnectionClosedException ||
+                    cause instanceof NoHttpResponseException;
+        }
+
+        private void updateRateLimiter(@Nonnull HttpRequestBase request, @Nonnull HttpResponse httpResponse) {
+            if (rateLimiterRegistry != null) {
+                final int status = httpResponse.getStatusLine().getStatusCode();
+                rateLimiterRegistry.onResponse(request.getURI(), this.url, status, name -> {
+                    final Header header = httpResponse.getFirstHeader(name);
+                    return header != null ? header.getValue() : null;
+                });
+            }
+        }
+
+        private void processClientError(int status, @Nullable String reason, @Nullable HttpEntity entity) {
+            if (this.processClientExceptions) {
+                failureLogger.clientError(this.url, status, reason);
+
+                final HttpRestClientException exception =
+                        new HttpRestClientException(status, reason, getResponseBody(entity),
+                                                   getErrorResponseClass(status), !stacklessExceptions);
+                if (this.exceptionMapping.containsKey(status)) {
+                    throw this.exceptionMapping.get(status).produce(exception);
+                } else {
+                    throw exception;
+                }
+            }
+        }
+
+        private void processServerError(int status, @Nullable String reason, @Nullable HttpEntity entity) {
+            if (this.processServerExceptions) {
+                failureLogger.serverError(this.url, status, reason);
+
+                final HttpRestServerException exception =
+                        new HttpRestServerException(status, reason, getResponseBody(entity),
+                                                   getErrorResponseClass(status), !stacklessExceptions);
+                if (this.exceptionMapping.containsKey(status)) {
+                    throw this.exceptionMapping.get(status).produce(exception);
+                } else {
+                    throw exception;
+                }
+            }
+        }
+
+        private void processExecutionError(@Nonnull ExecutionException exception) {
+            if (exception.getCause() instanceof HttpRestResponseTooLargeException) {
+                final HttpRestResponseTooLargeException sizeException =
+                        (HttpRestResponseTooLargeException) exception.getCause();
+                failureLogger.responseTooLarge(this.url, sizeException.getMessage());
+
+                if (this.responseSizeExceptionMapper != null) {
+                    throw this.responseSizeExceptionMapper.produce(sizeException);
+                } else {
+                    throw sizeException;
+                }
+            } else if (isConnectionError(exception.getCause())) {
+                failureLogger.connectionError(this.url);
+
+                if (this.processResourceExceptions) {
+                    final HttpRestResourceException resourceException =
+                            new HttpRestResourceException(exception, !stacklessExceptions);
+                    if (this.resourceExceptionMapper != null) {
+                        throw this.resourceExceptionMapper.produce(resourceException);
                     } else {
-                        throw timeoutException;
+                        throw resourceException;
                     }
                 }
-            } catch (InterruptedException exception) {
-                logger.error("InterruptedException", exception);
+            } else {
+                throw new RuntimeException(exception);
+            }
+        }
+
+        private void processTimeoutError(@Nonnull TimeoutException exception) {
+            failureLogger.timeout(this.url);
+
+            if (this.processTimeoutExceptions) {
+                final HttpRestTimeoutException timeoutException =
+                        new HttpRestTimeoutException(exception, !stacklessExceptions);
+                if (this.timeoutExceptionMapping != null) {
+                    throw this.timeoutExceptionMapping.produce(timeoutException);
+                } else {
+                    throw timeoutException;
+                }
+            }
+        }
+
+        /**
+         * @return false if request should return default response
+         */
+        private boolean acquirePermit(@Nonnull RateLimiter rateLimiter) {
+            final long maxWait = this.rateLimitPolicy == RateLimitPolicy.WAIT
+                    ? this.timeoutTimeUnit.toNanos(this.requestProcessingTimeout) : 0;
+            final long wait = rateLimiter.reserve(maxWait, TimeUnit.NANOSECONDS);
+            if (wait == 0) {
+                return true;
+            } else if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                    return true;
+                } catch (InterruptedException exception) {
+                    logger.error("InterruptedException", exception);
+                    return false;
+                }
             }
 
-            return defaultResponse.get();
+            failureLogger.rateLimited(this.url);
+            if (this.rateLimitPolicy == RateLimitPolicy.DEFAULT_RESPONSE) {
+                return false;
+            }
+            final String message = format("Request to '%s' rejected by client rate limiter", this.url);
+            final HttpRestRateLimitException exception =
+                    new HttpRestRateLimitException(message, TimeUnit.NANOSECONDS.toMillis(rateLimiter.getWaitTime()));
+            if (this.rateLimitExceptionMapper != null) {
+                throw this.rateLimitExceptionMapper.produce(exception);
+            } else {
+                throw exception;
+            }
+        }
+
+        @Nonnull
+        private EndpointLease acquireEndpoint(@Nonnull HttpRequestBase request) {
+            if (loadBalancer == null || isAbsolute(this.url)) {
+                return EndpointLease.empty();
+            }
+
+            final EndpointLease lease = loadBalancer.acquire(this.triedEndpoints);
+            final Endpoint endpoint = lease.getEndpoint();
+            this.triedEndpoints.add(endpoint);
+            request.setURI(buildUrl(endpoint.resolve(this.url)));
+            return lease;
+        }
+
+        private boolean isAbsolute(@Nonnull String url) {
+            return url.regionMatches(true, 0, "http://", 0, 7) || url.regionMatches(true, 0, "https://", 0, 8);
         }
 
         @Nonnull
@@ -332,7 +1132,10 @@ public class RestClient {
         }
 
         @Nullable
-        private String getResponseBody(@Nonnull HttpEntity entity) {
+        private String getResponseBody(@Nullable HttpEntity entity) {
+            if (entity == null) {
+                return null;
+            }
             try {
                 final String response = EntityUtils.toString(entity, Charset.forName("UTF-8"));
                 return !isEmpty(response) ? response : null;
@@ -342,6 +1145,11 @@ public class RestClient {
             }
         }
 
+        @Nullable
+        private Class<?> getErrorResponseClass(int status) {
+            return this.errorResponseClass.getOrDefault(status, this.commonErrorResponseClass);
+        }
+
         private boolean isOk(int status) {
             return status >= 200 && status < 300;
         }
@@ -356,8 +1164,13 @@ public class RestClient {
 
         @Nonnull
         protected URI buildUrl() {
+            return buildUrl(this.url);
+        }
+
+        @Nonnull
+        protected URI buildUrl(@Nonnull String url) {
             try {
-                URIBuilder builder = new URIBuilder(this.url);
+                URIBuilder builder = new URIBuilder(url);
                 this.params.forEach(builder::addParameter);
                 return builder.build();
             } catch (URISyntaxException exception) {
@@ -372,6 +1185,96 @@ public class RestClient {
         protected abstract T getThis();
     }
 
+    // region Entity builder
+    public abstract class EntityRequestBuilder<RESP, T extends EntityRequestBuilder<RESP, T>>
+            extends RequestBuilder<RESP, T> {
+        private Object requestBody;
+        private List<BodySource> bodySources;
+        private String contentType;
+        private boolean chunked;
+        private ProgressListener progressListener;
+
+        public EntityRequestBuilder(@Nonnull String url, @Nonnull Class<RESP> responseClass) {
+            super(url, responseClass);
+        }
+
+        /**
+         * Body serialized to JSON
+         */
+        @Nonnull
+        public T requestBody(Object requestBody) {
+            this.requestBody = requestBody;
+            this.bodySources = null;
+            return getThis();
+        }
+
+        /**
+         * File body, sent with zero-copy transfer if connection allows it
+         */
+        @Nonnull
+        public T requestBody(@Nonnull Path path, @Nonnull String contentType) {
+            return requestBody(BodySource.of(path), contentType);
+        }
+
+        /**
+         * Stream body, stream is read on I/O thread and request with such body can't be retried
+         *
+         * @param contentLength stream length or -1 to send it with chunked encoding
+         */
+        @Nonnull
+        public T requestBody(@Nonnull InputStream stream, long contentLength, @Nonnull String contentType) {
+            return requestBody(BodySource.of(stream, contentLength), contentType);
+        }
+
+        /**
+         * Channel body, request with such body can't be retried
+         *
+         * @param contentLength channel length or -1 to send it with chunked encoding
+         */
+        @Nonnull
+        public T requestBody(@Nonnull ReadableByteChannel channel, long contentLength, @Nonnull String contentType) {
+            return requestBody(BodySource.of(channel, contentLength), contentType);
+        }
+
+        @Nonnull
+        public T requestBody(@Nonnull BodySource source, @Nonnull String contentType) {
+            this.bodySources = singletonList(source);
+            this.contentType = contentType;
+            return getThis();
+        }
+
+        @Nonnull
+        public T multipart(@Nonnull MultipartBody multipart) {
+            this.bodySources = multipart.getSources();
+            this.contentType = multipart.getContentType();
+            return getThis();
+        }
+
+        /**
+         * Send streamed body with chunked encoding even if its length is known
+         */
+        @Nonnull
+        public T chunked(boolean chunked) {
+            this.chunked = chunked;
+            return getThis();
+        }
+
+        @Nonnull
+        public T progressListener(@Nonnull ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return getThis();
+        }
+
+        @Nonnull
+        protected HttpEntity createEntity() {
+            if (this.bodySources != null) {
+                return new StreamingEntity(this.bodySources, this.contentType, this.chunked, this.progressListener);
+            }
+            return new StringEntity(toJson(this.requestBody), ContentType.APPLICATION_JSON);
+        }
+    }
+    // endregion
+
     // region Get builder
     public class GetRequestBuilder<RESP>
             extends RequestBuilder<RESP, GetRequestBuilder<RESP>> {
@@ -398,24 +1301,18 @@ public class RestClient {
 
     // region Post builder
     public class PostRequestBuilder<RESP>
-            extends RequestBuilder<RESP, PostRequestBuilder<RESP>> {
-        private Object requestBody;
+            extends EntityRequestBuilder<RESP, PostRequestBuilder<RESP>> {
 
         public PostRequestBuilder(String url, Class<RESP> requestClass) {
             super(url, requestClass);
         }
 
-        public PostRequestBuilder<RESP> requestBody(Object requestBody) {
-            this.requestBody = requestBody;
-            return getThis();
-        }
-
         @Nonnull
         @Override
         protected HttpPost prepareRequest() {
             final HttpPost post = new HttpPost(buildUrl());
             this.headers.forEach(post::setHeader);
-            post.setEntity(new StringEntity(toJson(this.requestBody), ContentType.APPLICATION_JSON));
+            post.setEntity(createEntity());
             return post;
         }
 
@@ -429,24 +1326,18 @@ public class RestClient {
 
     // region Patch builder
     public class PatchRequestBuilder<RESP>
-            extends RequestBuilder<RESP, PatchRequestBuilder<RESP>> {
-        private Object requestBody;
+            extends EntityRequestBuilder<RESP, PatchRequestBuilder<RESP>> {
 
         public PatchRequestBuilder(String url, Class<RESP> requestClass) {
             super(url, requestClass);
         }
 
-        public PatchRequestBuilder<RESP> requestBody(Object requestBody) {
-            this.requestBody = requestBody;
-            return getThis();
-        }
-
         @Nonnull
         @Override
         protected HttpPatch prepareRequest() {
             final HttpPatch patch = new HttpPatch(buildUrl());
             this.headers.forEach(patch::setHeader);
-            patch.setEntity(new StringEntity(toJson(this.requestBody), ContentType.APPLICATION_JSON));
+            patch.setEntity(createEntity());
             return patch;
         }
 
@@ -460,25 +1351,18 @@ public class RestClient {
 
     // region Put builder
     public class PutRequestBuilder<RESP>
-            extends RequestBuilder<RESP, PutRequestBuilder<RESP>> {
-        private Object requestBody;
+            extends EntityRequestBuilder<RESP, PutRequestBuilder<RESP>> {
 
         public PutRequestBuilder(String url, Class<RESP> requestClass) {
             super(url, requestClass);
         }
 
-        @Nonnull
-        public PutRequestBuilder<RESP> requestBody(Object requestBody) {
-            this.requestBody = requestBody;
-            return getThis();
-        }
-
         @Nonnull
         @Override
         protected HttpPut prepareRequest() {
             final HttpPut put = new HttpPut(buildUrl());
             this.headers.forEach(put::setHeader);
-            put.setEntity(new StringEntity(toJson(this.requestBody), ContentType.APPLICATION_JSON));
+            put.setEntity(createEntity());
             return put;
         }
 
@@ -0,0 +1,91 @@
+package ru.romanow.core.rest.client.balancer;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single upstream host known to {@link LoadBalancer}. Keeps load and health statistics
+ * used by balancing strategies and outlier ejection.
+ */
+public class Endpoint {
+    private static final int LATENCY_WEIGHT_DIVIDER = 4;
+
+    private final String baseUrl;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong latency = new AtomicLong();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger ejections = new AtomicInteger();
+    private volatile long ejectedUntil;
+
+    Endpoint(@Nonnull String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    @Nonnull
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    @Nonnull
+    public String resolve(@Nonnull String path) {
+        if (path.isEmpty()) {
+            return baseUrl;
+        }
+        return path.startsWith("/") ? baseUrl + path : baseUrl + "/" + path;
+    }
+
+    /**
+     * @return number of requests currently in flight to this endpoint
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * @return exponentially weighted moving average of successful request latency in nanos, 0 if unknown
+     */
+    public long getLatency() {
+        return latency.get();
+    }
+
+    public boolean isEjected(long now) {
+        return ejectedUntil - now > 0;
+    }
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    void onComplete() {
+        outstanding.decrementAndGet();
+    }
+
+    void onSuccess(long duration) {
+        consecutiveFailures.set(0);
+        ejections.set(0);
+        long current;
+        long updated;
+        do {
+            current = latency.get();
+            updated = current == 0 ? duration : current + (duration - current) / LATENCY_WEIGHT_DIVIDER;
+        } while (!latency.compareAndSet(current, updated));
+    }
+
+    int onFailure() {
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    void eject(long now, long baseEjectionTime, long maxEjectionTime) {
+        final int count = ejections.incrementAndGet();
+        final long ejectionTime = baseEjectionTime << Math.min(count - 1, 16);
+        ejectedUntil = now + (ejectionTime > 0 ? Math.min(ejectionTime, maxEjectionTime) : maxEjectionTime);
+        consecutiveFailures.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
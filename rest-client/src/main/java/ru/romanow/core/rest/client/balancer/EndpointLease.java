@@ -0,0 +1,66 @@
+package ru.romanow.core.rest.client.balancer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Single request attempt to the endpoint. Outcome can be reported only once,
+ * all subsequent calls are ignored.
+ */
+public class EndpointLease {
+    private static final EndpointLease EMPTY = new EndpointLease(null, null);
+
+    private final LoadBalancer loadBalancer;
+    private final Endpoint endpoint;
+    private final long start;
+    private boolean completed;
+
+    EndpointLease(@Nullable LoadBalancer loadBalancer, @Nullable Endpoint endpoint) {
+        this.loadBalancer = loadBalancer;
+        this.endpoint = endpoint;
+        this.start = System.nanoTime();
+        this.completed = endpoint == null;
+    }
+
+    public static EndpointLease empty() {
+        return EMPTY;
+    }
+
+    @Nullable
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Endpoint responded, even with client error
+     */
+    public void success() {
+        if (complete()) {
+            endpoint.onSuccess(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Endpoint failed: connection error, timeout or server error
+     */
+    public void failure() {
+        if (complete()) {
+            loadBalancer.onFailure(endpoint);
+        }
+    }
+
+    /**
+     * Release endpoint without reporting outcome
+     */
+    public void release() {
+        complete();
+    }
+
+    private boolean complete() {
+        if (completed) {
+            return false;
+        }
+        completed = true;
+        endpoint.onComplete();
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.romanow.core.rest.client.balancer;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random choice weighted by inverse of expected latency: <code>latency * (outstanding + 1)</code>.
+ * Endpoints without latency statistics get weight of the fastest known endpoint, so they are probed too.
+ */
+public class LatencyWeightedStrategy
+        implements LoadBalancingStrategy {
+
+    @Nonnull
+    @Override
+    public Endpoint choose(@Nonnull List<Endpoint> candidates) {
+        final int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+
+        long minLatency = Long.MAX_VALUE;
+        for (Endpoint endpoint : candidates) {
+            final long latency = endpoint.getLatency();
+            if (latency > 0 && latency < minLatency) {
+                minLatency = latency;
+            }
+        }
+        if (minLatency == Long.MAX_VALUE) {
+            minLatency = 1;
+        }
+
+        final double[] weights = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            final Endpoint endpoint = candidates.get(i);
+            final long latency = endpoint.getLatency() > 0 ? endpoint.getLatency() : minLatency;
+            total += 1.0 / ((double) latency * (endpoint.getOutstanding() + 1));
+            weights[i] = total;
+        }
+
+        final double point = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < size; i++) {
+            if (point < weights[i]) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(size - 1);
+    }
+}
@@ -0,0 +1,217 @@
+package ru.romanow.core.rest.client.balancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Client-side load balancer over the set of base URLs. Endpoints are static or refreshed
+ * periodically from supplier, endpoints with consecutive failures are ejected for backoff period.
+ */
+public class LoadBalancer {
+    private static final Logger logger = LoggerFactory.getLogger(LoadBalancer.class);
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final long DEFAULT_BASE_EJECTION_TIME = TimeUnit.SECONDS.toNanos(30);
+    private static final long DEFAULT_MAX_EJECTION_TIME = TimeUnit.MINUTES.toNanos(5);
+    private static final int DEFAULT_MAX_EJECTION_PERCENT = 50;
+
+    private final Supplier<? extends Collection<String>> endpointsSupplier;
+    private final long refreshInterval;
+    private final LoadBalancingStrategy strategy;
+    private final int failureThreshold;
+    private final long baseEjectionTime;
+    private final long maxEjectionTime;
+    private final int maxEjectionPercent;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile List<Endpoint> endpoints;
+    private volatile long nextRefresh;
+
+    private LoadBalancer(@Nonnull Builder builder) {
+        this.endpointsSupplier = builder.endpointsSupplier;
+        this.refreshInterval = builder.refreshInterval;
+        this.strategy = builder.strategy;
+        this.failureThreshold = builder.failureThreshold;
+        this.baseEjectionTime = builder.baseEjectionTime;
+        this.maxEjectionTime = builder.maxEjectionTime;
+        this.maxEjectionPercent = builder.maxEjectionPercent;
+        this.endpoints = Collections.emptyList();
+        refresh();
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    public List<Endpoint> getEndpoints() {
+        refreshIfNeeded();
+        return endpoints;
+    }
+
+    /**
+     * Choose endpoint and start request on it.
+     *
+     * @param excluded endpoints already tried by this request, used only if no other endpoint is available
+     */
+    @Nonnull
+    public EndpointLease acquire(@Nonnull Set<Endpoint> excluded) {
+        final Endpoint endpoint = choose(excluded);
+        endpoint.onStart();
+        return new EndpointLease(this, endpoint);
+    }
+
+    @Nonnull
+    public Endpoint choose(@Nonnull Set<Endpoint> excluded) {
+        final List<Endpoint> all = getEndpoints();
+        if (all.isEmpty()) {
+            throw new IllegalStateException("No endpoints available for load balancing");
+        }
+
+        final long now = System.nanoTime();
+        final List<Endpoint> candidates = new ArrayList<>(all.size());
+        for (Endpoint endpoint : all) {
+            if (!endpoint.isEjected(now) && !excluded.contains(endpoint)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // all hosts are ejected or tried: prefer host not tried yet, even if it is ejected
+            for (Endpoint endpoint : all) {
+                if (!excluded.contains(endpoint)) {
+                    candidates.add(endpoint);
+                }
+            }
+        }
+        return strategy.choose(candidates.isEmpty() ? all : candidates);
+    }
+
+    void onFailure(@Nonnull Endpoint endpoint) {
+        if (endpoint.onFailure() >= failureThreshold) {
+            final long now = System.nanoTime();
+            final List<Endpoint> current = endpoints;
+            int ejected = 0;
+            for (Endpoint e : current) {
+                if (e.isEjected(now)) {
+                    ejected++;
+                }
+            }
+            if ((ejected + 1) * 100 <= current.size() * maxEjectionPercent) {
+                endpoint.eject(now, baseEjectionTime, maxEjectionTime);
+                logger.warn("Endpoint '{}' ejected as outlier", endpoint);
+            }
+        }
+    }
+
+    private void refreshIfNeeded() {
+        if (refreshInterval > 0 && System.nanoTime() - nextRefresh >= 0 && refreshLock.tryLock()) {
+            try {
+                refresh();
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+    }
+
+    private void refresh() {
+        nextRefresh = System.nanoTime() + refreshInterval;
+        final Collection<String> urls;
+        try {
+            urls = endpointsSupplier.get();
+        } catch (RuntimeException exception) {
+            logger.warn("Refresh endpoints failed, keep previous: {}", exception.getMessage());
+            return;
+        }
+        if (urls == null || urls.isEmpty()) {
+            logger.warn("Endpoints supplier returned empty list, keep previous");
+            return;
+        }
+
+        final Map<String, Endpoint> existing = new HashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            existing.put(endpoint.getBaseUrl(), endpoint);
+        }
+        final List<Endpoint> updated = new ArrayList<>(urls.size());
+        for (String url : new LinkedHashSet<>(urls)) {
+            final Endpoint endpoint = new Endpoint(url);
+            updated.add(existing.getOrDefault(endpoint.getBaseUrl(), endpoint));
+        }
+        endpoints = unmodifiableList(updated);
+    }
+
+    public static class Builder {
+        private Supplier<? extends Collection<String>> endpointsSupplier;
+        private long refreshInterval;
+        private LoadBalancingStrategy strategy;
+        private int failureThreshold;
+        private long baseEjectionTime;
+        private long maxEjectionTime;
+        private int maxEjectionPercent;
+
+        Builder() {
+            this.strategy = new PowerOfTwoChoicesStrategy();
+            this.failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+            this.baseEjectionTime = DEFAULT_BASE_EJECTION_TIME;
+            this.maxEjectionTime = DEFAULT_MAX_EJECTION_TIME;
+            this.maxEjectionPercent = DEFAULT_MAX_EJECTION_PERCENT;
+        }
+
+        @Nonnull
+        public Builder endpoints(@Nonnull String... urls) {
+            final List<String> endpoints = unmodifiableList(Arrays.asList(urls));
+            this.endpointsSupplier = () -> endpoints;
+            this.refreshInterval = 0;
+            return this;
+        }
+
+        @Nonnull
+        public Builder endpoints(@Nonnull Supplier<? extends Collection<String>> endpointsSupplier,
+                                 long refreshInterval, @Nonnull TimeUnit timeUnit) {
+            this.endpointsSupplier = endpointsSupplier;
+            this.refreshInterval = timeUnit.toNanos(refreshInterval);
+            return this;
+        }
+
+        @Nonnull
+        public Builder strategy(@Nonnull LoadBalancingStrategy strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        @Nonnull
+        public Builder failureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        @Nonnull
+        public Builder ejectionTime(long baseEjectionTime, long maxEjectionTime, @Nonnull TimeUnit timeUnit) {
+            this.baseEjectionTime = timeUnit.toNanos(baseEjectionTime);
+            this.maxEjectionTime = timeUnit.toNanos(maxEjectionTime);
+            return this;
+        }
+
+        @Nonnull
+        public Builder maxEjectionPercent(int maxEjectionPercent) {
+            this.maxEjectionPercent = maxEjectionPercent;
+            return this;
+        }
+
+        @Nonnull
+        public LoadBalancer build() {
+            if (endpointsSupplier == null) {
+                throw new IllegalStateException("Endpoints not specified");
+            }
+            return new LoadBalancer(this);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.romanow.core.rest.client.balancer;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+@FunctionalInterface
+public interface LoadBalancingStrategy {
+
+    /**
+     * Pick endpoint for next request.
+     *
+     * @param candidates non empty list of available endpoints
+     */
+    @Nonnull
+    Endpoint choose(@Nonnull List<Endpoint> candidates);
+}
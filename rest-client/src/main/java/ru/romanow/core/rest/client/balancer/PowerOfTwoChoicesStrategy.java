@@ -0,0 +1,32 @@
+package ru.romanow.core.rest.client.balancer;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks two random endpoints and sends request to the one with less outstanding requests.
+ */
+public class PowerOfTwoChoicesStrategy
+        implements LoadBalancingStrategy {
+
+    @Nonnull
+    @Override
+    public Endpoint choose(@Nonnull List<Endpoint> candidates) {
+        final int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        final Endpoint a = candidates.get(first);
+        final Endpoint b = candidates.get(second);
+        return a.getOutstanding() <= b.getOutstanding() ? a : b;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.romanow.core.rest.client.balancer;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RoundRobinStrategy
+        implements LoadBalancingStrategy {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Nonnull
+    @Override
+    public Endpoint choose(@Nonnull List<Endpoint> candidates) {
+        final int index = counter.getAndIncrement() & Integer.MAX_VALUE;
+        return candidates.get(index % candidates.size());
+    }
+}
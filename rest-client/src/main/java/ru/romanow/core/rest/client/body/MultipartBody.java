@@ -0,0 +1,124 @@
+package ru.romanow.core.rest.client.body;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.Collections.unmodifiableList;
+import static ru.romanow.core.rest.client.utils.JsonSerializer.toJson;
+
+/**
+ * <code>multipart/form-data</code> body. Part headers are small in-memory buffers, part contents
+ * are streamed from their sources, so file parts keep zero-copy transfer.
+ */
+public class MultipartBody {
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final String CRLF = "\r\n";
+
+    private final String boundary;
+    private final List<BodySource> sources;
+
+    private MultipartBody(@Nonnull Builder builder) {
+        this.boundary = builder.boundary;
+        final List<BodySource> sources = new ArrayList<>(builder.sources);
+        sources.add(BodySource.of(("--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII)));
+        this.sources = unmodifiableList(sources);
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * @return sum of part lengths or -1 if some part has unknown length
+     */
+    public long getContentLength() {
+        return BodySource.getContentLength(sources);
+    }
+
+    /**
+     * @return part headers and part contents in order of writing
+     */
+    @Nonnull
+    public List<BodySource> getSources() {
+        return sources;
+    }
+
+    public static class Builder {
+        private final String boundary;
+        private final List<BodySource> sources;
+
+        Builder() {
+            this.boundary = UUID.randomUUID().toString();
+            this.sources = new ArrayList<>();
+        }
+
+        @Nonnull
+        public Builder addText(@Nonnull String name, @Nonnull String value) {
+            return addPart(name, null, "text/plain; charset=UTF-8",
+                           BodySource.of(value.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Nonnull
+        public Builder addJson(@Nonnull String name, @Nonnull Object value) {
+            return addPart(name, null, "application/json; charset=UTF-8",
+                           BodySource.of(toJson(value).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        /**
+         * File part, content type is detected by file name.
+         */
+        @Nonnull
+        public Builder addFile(@Nonnull String name, @Nonnull Path path) {
+            String contentType;
+            try {
+                contentType = Files.probeContentType(path);
+            } catch (IOException exception) {
+                contentType = null;
+            }
+            return addPart(name, String.valueOf(path.getFileName()),
+                           contentType != null ? contentType : DEFAULT_CONTENT_TYPE, BodySource.of(path));
+        }
+
+        @Nonnull
+        public Builder addPart(@Nonnull String name, @Nullable String filename,
+                               @Nonnull String contentType, @Nonnull BodySource source) {
+            final StringBuilder headers = new StringBuilder()
+                    .append("--").append(boundary).append(CRLF)
+                    .append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+            if (filename != null) {
+                headers.append("; filename=\"").append(escape(filename)).append('"');
+            }
+            headers.append(CRLF)
+                   .append("Content-Type: ").append(contentType).append(CRLF)
+                   .append(CRLF);
+
+            sources.add(BodySource.of(headers.toString().getBytes(StandardCharsets.UTF_8)));
+            sources.add(source);
+            sources.add(BodySource.of(CRLF.getBytes(StandardCharsets.US_ASCII)));
+            return this;
+        }
+
+        @Nonnull
+        public MultipartBody build() {
+            return new MultipartBody(this);
+        }
+
+        @Nonnull
+        private String escape(@Nonnull String value) {
+            return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.romanow.core.rest.client.body;
+
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * @param transferred bytes sent to the socket
+     * @param total       body length or -1 if length is unknown
+     */
+    void onProgress(long transferred, long total);
+}
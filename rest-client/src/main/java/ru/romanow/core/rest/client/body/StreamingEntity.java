@@ -0,0 +1,170 @@
+package ru.romanow.core.rest.client.body;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Non-blocking entity writing body sources one after another while socket is ready for output.
+ * File channels are transferred directly to the socket if encoder supports it (identity or
+ * length delimited encoding), other sources are copied through the buffer.
+ */
+public class StreamingEntity
+        extends AbstractHttpEntity
+        implements HttpAsyncContentProducer {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<BodySource> sources;
+    private final long contentLength;
+    private final ProgressListener progressListener;
+
+    private Iterator<BodySource> iterator;
+    private ReadableByteChannel channel;
+    private long position;
+    private ByteBuffer buffer;
+    private long transferred;
+
+    /**
+     * @param chunked send body with chunked encoding even if length is known
+     */
+    public StreamingEntity(@Nonnull List<BodySource> sources, @Nullable String contentType,
+                           boolean chunked, @Nullable ProgressListener progressListener) {
+        this.sources = sources;
+        this.contentLength = BodySource.getContentLength(sources);
+        this.progressListener = progressListener;
+        setContentType(contentType);
+        setChunked(chunked || contentLength < 0);
+    }
+
+    @Override
+    public long getContentLength() {
+        return isChunked() ? -1 : contentLength;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return sources.stream().allMatch(BodySource::isRepeatable);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return !isRepeatable();
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        if (iterator == null) {
+            iterator = sources.iterator();
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+        }
+
+        while (true) {
+            // pending bytes from previous read must be written first
+            if (buffer.hasRemaining()) {
+                final int written = encoder.write(buffer);
+                onTransferred(written);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+            }
+            if (channel == null) {
+                if (!iterator.hasNext()) {
+                    encoder.complete();
+                    close();
+                    return;
+                }
+                channel = iterator.next().open();
+                position = 0;
+            }
+
+            if (channel instanceof FileChannel && encoder instanceof FileContentEncoder) {
+                final FileChannel fileChannel = (FileChannel) channel;
+                final long count = ((FileContentEncoder) encoder).transfer(fileChannel, position, Long.MAX_VALUE);
+                position += count;
+                onTransferred(count);
+                if (position < fileChannel.size()) {
+                    if (count == 0) {
+                        return;
+                    }
+                    continue;
+                }
+                nextSource();
+            } else {
+                buffer.clear();
+                final int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    nextSource();
+                } else if (read == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        final List<InputStream> streams = new ArrayList<>(sources.size());
+        for (BodySource source : sources) {
+            streams.add(Channels.newInputStream(source.open()));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try (InputStream content = getContent()) {
+            final byte[] bytes = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = content.read(bytes)) != -1) {
+                outputStream.write(bytes, 0, read);
+                onTransferred(read);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator = null;
+        buffer = null;
+        transferred = 0;
+        if (channel != null) {
+            final ReadableByteChannel current = channel;
+            channel = null;
+            current.close();
+        }
+    }
+
+    private void nextSource() throws IOException {
+        final ReadableByteChannel current = channel;
+        channel = null;
+        current.close();
+    }
+
+    private void onTransferred(long count) {
+        if (count > 0) {
+            transferred += count;
+            if (progressListener != null) {
+                progressListener.onProgress(transferred, contentLength);
+            }
+        }
+    }
+}
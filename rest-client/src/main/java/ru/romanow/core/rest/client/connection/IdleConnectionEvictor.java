@@ -0,0 +1,88 @@
+package ru.romanow.core.rest.client.connection;
+
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically closes pooled connections with expired keep-alive and connections idle longer than
+ * <code>maxIdleTime</code>, so requests don't lease connections already closed by server. Evictions run
+ * on one static scheduler thread that references connection manager weakly: pool of the client that was
+ * not closed is not kept alive by the scheduler, its eviction task is cancelled after pool is collected.
+ */
+public class IdleConnectionEvictor
+        implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(IdleConnectionEvictor.class);
+
+    private static final long MIN_CHECK_INTERVAL = 100;
+    private static final long MAX_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    private final ScheduledFuture<?> task;
+
+    /**
+     * @param maxIdleTime max time connection may stay idle in pool, connections are checked at least
+     *                    every half of this time (but not more often than 100 ms and not less than 5 sec)
+     */
+    public IdleConnectionEvictor(@Nonnull NHttpClientConnectionManager connectionManager,
+                                 long maxIdleTime, @Nonnull TimeUnit timeUnit) {
+        final long maxIdleMillis = timeUnit.toMillis(maxIdleTime);
+        final long interval = Math.max(Math.min(maxIdleMillis / 2, MAX_CHECK_INTERVAL), MIN_CHECK_INTERVAL);
+        this.task = EvictionTask.schedule(connectionManager, maxIdleMillis, interval);
+    }
+
+    @Override
+    public void close() {
+        task.cancel(false);
+    }
+
+    private static class EvictionTask
+            implements Runnable {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "rest-client-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final WeakReference<NHttpClientConnectionManager> connectionManager;
+        private final long maxIdleTime;
+        private volatile ScheduledFuture<?> future;
+
+        private EvictionTask(@Nonnull NHttpClientConnectionManager connectionManager, long maxIdleTime) {
+            this.connectionManager = new WeakReference<>(connectionManager);
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        @Nonnull
+        static ScheduledFuture<?> schedule(@Nonnull NHttpClientConnectionManager connectionManager,
+                                           long maxIdleTime, long interval) {
+            final EvictionTask task = new EvictionTask(connectionManager, maxIdleTime);
+            task.future = SCHEDULER.scheduleWithFixedDelay(task, interval, interval, TimeUnit.MILLISECONDS);
+            return task.future;
+        }
+
+        @Override
+        public void run() {
+            final NHttpClientConnectionManager manager = connectionManager.get();
+            if (manager == null) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            try {
+                manager.closeExpiredConnections();
+                manager.closeIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException exception) {
+                logger.warn("Idle connection eviction failed: {}", exception.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ru.romanow.core.rest.client.connection;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep-alive time of pooled connection: server <code>Keep-Alive: timeout=N</code> header or default time
+ * if server doesn't send it, capped by max time of the host (<code>host:port</code> or <code>host</code>)
+ * or by global max time. Connection must be released before server closes it, so cap is usually set
+ * below server idle timeout (load balancers often don't send <code>Keep-Alive</code>).
+ */
+public class KeepAliveStrategy
+        implements ConnectionKeepAliveStrategy {
+    private static final long DEFAULT_KEEP_ALIVE = TimeUnit.SECONDS.toMillis(15);
+
+    private final long defaultKeepAlive;
+    private final long maxKeepAlive;
+    private final Map<String, Long> hostMaxKeepAlive;
+
+    private KeepAliveStrategy(@Nonnull Builder builder) {
+        this.defaultKeepAlive = builder.defaultKeepAlive;
+        this.maxKeepAlive = builder.maxKeepAlive;
+        this.hostMaxKeepAlive = new HashMap<>(builder.hostMaxKeepAlive);
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return keep-alive time in millis, non-positive means connection is not reused
+     */
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long keepAlive = getServerKeepAlive(response);
+        if (keepAlive < 0) {
+            keepAlive = defaultKeepAlive;
+        }
+        final long max = getMaxKeepAlive(context);
+        return max > 0 ? Math.min(keepAlive, max) : keepAlive;
+    }
+
+    /**
+     * @return keep-alive time in millis of connection to the host before first response
+     */
+    public long getKeepAliveDuration(@Nonnull HttpHost host) {
+        final HttpContext context = new BasicHttpContext();
+        context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, host);
+        final long max = getMaxKeepAlive(context);
+        return max > 0 ? Math.min(defaultKeepAlive, max) : defaultKeepAlive;
+    }
+
+    private long getServerKeepAlive(@Nonnull HttpResponse response) {
+        final HeaderElementIterator iterator = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+        while (iterator.hasNext()) {
+            final HeaderElement element = iterator.nextElement();
+            if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(element.getValue().trim()));
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        return -1;
+    }
+
+    private long getMaxKeepAlive(@Nonnull HttpContext context) {
+        final Object target = context.getAttribute(HttpCoreContext.HTTP_TARGET_HOST);
+        if (target instanceof HttpHost && !hostMaxKeepAlive.isEmpty()) {
+            final HttpHost host = (HttpHost) target;
+            Long max = hostMaxKeepAlive.get(host.getHostName() + ":" + host.getPort());
+            if (max == null) {
+                max = hostMaxKeepAlive.get(host.getHostName());
+            }
+            if (max != null) {
+                return max;
+            }
+        }
+        return maxKeepAlive;
+    }
+
+    public static class Builder {
+        private long defaultKeepAlive;
+        private long maxKeepAlive;
+        private final Map<String, Long> hostMaxKeepAlive;
+
+        Builder() {
+            this.defaultKeepAlive = DEFAULT_KEEP_ALIVE;
+            this.hostMaxKeepAlive = new HashMap<>();
+        }
+
+        /**
+         * Keep-alive time if response has no <code>Keep-Alive</code> header
+         */
+        @Nonnull
+        public Builder defaultKeepAlive(long time, @Nonnull TimeUnit timeUnit) {
+            this.defaultKeepAlive = timeUnit.toMillis(time);
+            return this;
+        }
+
+        /**
+         * Max keep-alive time for all hosts, zero means unlimited
+         */
+        @Nonnull
+        public Builder maxKeepAlive(long time, @Nonnull TimeUnit timeUnit) {
+            this.maxKeepAlive = timeUnit.toMillis(time);
+            return this;
+        }
+
+        /**
+         * @param host <code>host:port</code> or <code>host</code> for any port
+         */
+        @Nonnull
+        public Builder maxKeepAlive(@Nonnull String host, long time, @Nonnull TimeUnit timeUnit) {
+            this.hostMaxKeepAlive.put(host, timeUnit.toMillis(time));
+            return this;
+        }
+
+        @Nonnull
+        public KeepAliveStrategy build() {
+            return new KeepAliveStrategy(this);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ru.romanow.core.rest.client.consumer;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.FileContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.protocol.HttpContext;
+import ru.romanow.core.rest.client.download.DownloadFile;
+import ru.romanow.core.rest.client.download.FileMetadata;
+import ru.romanow.core.rest.client.exception.HttpRestFileException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static java.lang.String.format;
+
+/**
+ * Response consumer writing successful (2xx) response body to the file as bytes arrive. Without digest
+ * body is transferred from the socket to the file directly if decoder supports it. Error responses
+ * are buffered in memory as {@link LimitedResponseConsumer} does. Failures of the local file fail exchange
+ * with {@link HttpRestFileException}, so they are not taken for connection errors.
+ */
+public class FileResponseConsumer
+        extends LimitedResponseConsumer {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final String digestAlgorithm;
+
+    private volatile DownloadFile file;
+    private volatile ByteBuffer buffer;
+    private volatile String contentType;
+    private volatile FileMetadata metadata;
+    private volatile boolean success;
+
+    /**
+     * @param digestAlgorithm {@link java.security.MessageDigest} algorithm or null to skip digest calculation
+     * @param maxSize         max response body size in bytes, zero or negative means unlimited
+     */
+    public FileResponseConsumer(@Nonnull Path target, @Nullable String digestAlgorithm, long maxSize) {
+        super(maxSize);
+        this.target = target;
+        this.digestAlgorithm = digestAlgorithm;
+    }
+
+    /**
+     * @return metadata of the written file, null if response is not successful or is not completed
+     */
+    @Nullable
+    public FileMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        super.onResponseReceived(response);
+        final int status = response.getStatusLine().getStatusCode();
+        this.success = status >= 200 && status < 300;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        if (!success) {
+            super.onEntityEnclosed(entity, contentType);
+            return;
+        }
+        checkSize(entity.getContentLength());
+        final Header header = entity.getContentType();
+        this.contentType = header != null ? header.getValue() : null;
+        try {
+            this.file = new DownloadFile(target, digestAlgorithm);
+        } catch (IOException exception) {
+            throw fileError(exception);
+        }
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        if (file == null) {
+            super.onContentReceived(decoder, ioctrl);
+            return;
+        }
+
+        if (!file.isDigested() && decoder instanceof FileContentDecoder) {
+            final long count = ((FileContentDecoder) decoder)
+                    .transfer(file.getChannel(), file.getSize(), Integer.MAX_VALUE);
+            if (count > 0) {
+                file.written(count);
+            }
+        } else {
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            }
+            while (decoder.read(buffer) > 0) {
+                buffer.flip();
+                try {
+                    file.write(buffer);
+                } catch (IOException exception) {
+                    throw fileError(exception);
+                }
+                buffer.clear();
+            }
+        }
+        checkSize(file.getSize());
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) throws IOException {
+        try {
+            if (file != null) {
+                metadata = file.commit(contentType);
+                file = null;
+            } else if (success) {
+                // response without body
+                try (DownloadFile empty = new DownloadFile(target, digestAlgorithm)) {
+                    metadata = empty.commit(null);
+                }
+            }
+        } catch (IOException exception) {
+            throw fileError(exception);
+        }
+        return super.buildResult(context);
+    }
+
+    @Nonnull
+    private HttpRestFileException fileError(@Nonnull IOException exception) {
+        return new HttpRestFileException(format("Download to '%s' failed: %s", target, exception), exception);
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+        buffer = null;
+        super.releaseResources();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.romanow.core.rest.client.consumer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentBufferEntity;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+import ru.romanow.core.rest.client.exception.HttpRestResponseTooLargeException;
+
+import java.io.IOException;
+
+import static java.lang.String.format;
+
+/**
+ * Response consumer buffering body in memory up to <code>maxSize</code> bytes. <code>Content-Length</code>
+ * is checked before body is read, chunked body is checked after each read from the socket. Exceeding
+ * the limit fails exchange with {@link HttpRestResponseTooLargeException} and closes the connection.
+ */
+public class LimitedResponseConsumer
+        extends AbstractAsyncResponseConsumer<HttpResponse> {
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+    private static final int MAX_INITIAL_BUFFER_SIZE = 256 * 1024;
+
+    private final long maxSize;
+
+    private volatile HttpResponse response;
+    private volatile SimpleInputBuffer buffer;
+    private volatile long received;
+
+    /**
+     * @param maxSize max response body size in bytes, zero or negative means unlimited
+     */
+    public LimitedResponseConsumer(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        final long length = entity.getContentLength();
+        checkSize(length);
+        if (length > Integer.MAX_VALUE) {
+            throw new HttpRestResponseTooLargeException(
+                    format("Response size %d exceeds max buffer size", length), Integer.MAX_VALUE, length);
+        }
+        final int initialSize = length >= 0 ? (int) Math.min(length, MAX_INITIAL_BUFFER_SIZE) : DEFAULT_BUFFER_SIZE;
+        this.buffer = new SimpleInputBuffer(initialSize, new HeapByteBufferAllocator());
+        this.response.setEntity(new ContentBufferEntity(entity, buffer));
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        final int read = buffer.consumeContent(decoder);
+        if (read > 0) {
+            received += read;
+            checkSize(received);
+        }
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) throws IOException {
+        return response;
+    }
+
+    @Override
+    protected void releaseResources() {
+        this.response = null;
+        this.buffer = null;
+    }
+
+    protected void checkSize(long size) {
+        if (maxSize > 0 && size > maxSize) {
+            throw new HttpRestResponseTooLargeException(
+                    format("Response size %d exceeds limit %d bytes", size, maxSize), maxSize, size);
+        }
+    }
+}
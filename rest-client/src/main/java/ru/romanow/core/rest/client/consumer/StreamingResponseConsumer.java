@@ -0,0 +1,137 @@
+package ru.romanow.core.rest.client.consumer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.SharedInputBuffer;
+import org.apache.http.protocol.HttpContext;
+import ru.romanow.core.rest.client.exception.HttpRestResponseTooLargeException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+
+import static java.lang.String.format;
+
+/**
+ * Response consumer passing body to the reader while bytes arrive. Input is suspended while buffer is full,
+ * so memory usage doesn't depend on response size. Response is available as soon as headers are received.
+ * Body larger than <code>maxSize</code> fails exchange with {@link HttpRestResponseTooLargeException}.
+ */
+public class StreamingResponseConsumer
+        extends AbstractAsyncResponseConsumer<HttpResponse> {
+    private final SharedInputBuffer buffer;
+    private final long maxSize;
+    private final CompletableFuture<HttpResponse> responseFuture;
+
+    private volatile HttpResponse response;
+    private volatile boolean completed;
+    private volatile Exception failure;
+    private volatile long received;
+
+    /**
+     * @param maxSize max response body size in bytes, zero or negative means unlimited
+     */
+    public StreamingResponseConsumer(int bufferSize, long maxSize) {
+        this.buffer = new SharedInputBuffer(bufferSize);
+        this.maxSize = maxSize;
+        this.responseFuture = new CompletableFuture<>();
+    }
+
+    /**
+     * @return future completed when response headers are received, entity content is read while it arrives
+     */
+    @Nonnull
+    public CompletableFuture<HttpResponse> getResponseFuture() {
+        return responseFuture;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        checkSize(entity.getContentLength());
+        final BasicHttpEntity streamingEntity = new BasicHttpEntity();
+        streamingEntity.setContent(new StreamingInputStream());
+        streamingEntity.setContentLength(entity.getContentLength());
+        streamingEntity.setContentType(entity.getContentType());
+        streamingEntity.setContentEncoding(entity.getContentEncoding());
+        response.setEntity(streamingEntity);
+        responseFuture.complete(response);
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        final int read = buffer.consumeContent(decoder, ioctrl);
+        if (read > 0) {
+            received += read;
+            checkSize(received);
+        }
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) {
+        completed = true;
+        return response;
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (!completed) {
+            failure = getException() != null ? getException() : new InterruptedIOException("Response consuming cancelled");
+            buffer.shutdown();
+            responseFuture.completeExceptionally(failure);
+        } else {
+            responseFuture.complete(response);
+        }
+    }
+
+    private void checkSize(long size) {
+        if (maxSize > 0 && size > maxSize) {
+            throw new HttpRestResponseTooLargeException(
+                    format("Response size %d exceeds limit %d bytes", size, maxSize), maxSize, size);
+        }
+    }
+
+    private class StreamingInputStream
+            extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            return checkFailure(buffer.read());
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            return checkFailure(buffer.read(b, off, len));
+        }
+
+        @Override
+        public int available() {
+            return buffer.available();
+        }
+
+        @Override
+        public void close() {
+            buffer.shutdown();
+        }
+
+        private int checkFailure(int result) throws IOException {
+            if (result == -1 && failure instanceof HttpRestResponseTooLargeException) {
+                throw (HttpRestResponseTooLargeException) failure;
+            } else if (result == -1 && failure != null) {
+                throw new IOException("Response body read failed", failure);
+            }
+            return result;
+        }
+    }
+}
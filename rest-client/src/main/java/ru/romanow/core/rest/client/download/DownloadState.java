@@ -0,0 +1,104 @@
+package ru.romanow.core.rest.client.download;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Sidecar file with completed segments of the partial download. State is replaced atomically after each
+ * segment, segment is recorded only after its content is synced to disk.
+ */
+class DownloadState {
+    private static final String LENGTH = "length";
+    private static final String SEGMENT_SIZE = "segmentSize";
+    private static final String VALIDATOR = "validator";
+    private static final String COMPLETED = "completed";
+
+    private final Path path;
+    private final long length;
+    private final long segmentSize;
+    private final String validator;
+    private final BitSet completed;
+
+    private DownloadState(@Nonnull Path path, long length, long segmentSize,
+                          @Nullable String validator, @Nonnull BitSet completed) {
+        this.path = path;
+        this.length = length;
+        this.segmentSize = segmentSize;
+        this.validator = validator;
+        this.completed = completed;
+    }
+
+    /**
+     * Restore state if it was saved for the same resource version and segmentation, otherwise create empty state.
+     */
+    @Nonnull
+    static DownloadState load(@Nonnull Path path, long length, long segmentSize, @Nullable String validator) {
+        if (validator != null && Files.exists(path)) {
+            final Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+                if (String.valueOf(length).equals(properties.getProperty(LENGTH)) &&
+                        String.valueOf(segmentSize).equals(properties.getProperty(SEGMENT_SIZE)) &&
+                        Objects.equals(validator, properties.getProperty(VALIDATOR))) {
+                    final BitSet completed = new BitSet();
+                    for (String index : properties.getProperty(COMPLETED, "").split(",")) {
+                        if (!index.isEmpty()) {
+                            completed.set(Integer.parseInt(index));
+                        }
+                    }
+                    return new DownloadState(path, length, segmentSize, validator, completed);
+                }
+            } catch (IOException | NumberFormatException ignored) {}
+        }
+        return new DownloadState(path, length, segmentSize, validator, new BitSet());
+    }
+
+    boolean isResumed() {
+        return !completed.isEmpty();
+    }
+
+    synchronized boolean isCompleted(int index) {
+        return completed.get(index);
+    }
+
+    synchronized void complete(int index) throws IOException {
+        completed.set(index);
+        if (validator != null) {
+            save();
+        }
+    }
+
+    synchronized void reset() {
+        completed.clear();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    private void save() throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(LENGTH, String.valueOf(length));
+        properties.setProperty(SEGMENT_SIZE, String.valueOf(segmentSize));
+        properties.setProperty(VALIDATOR, validator);
+        final StringBuilder indexes = new StringBuilder();
+        completed.stream().forEach(i -> indexes.append(indexes.length() > 0 ? "," : "").append(i));
+        properties.setProperty(COMPLETED, indexes.toString());
+
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
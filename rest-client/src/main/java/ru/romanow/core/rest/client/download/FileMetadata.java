@@ -0,0 +1,59 @@
+package ru.romanow.core.rest.client.download;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+
+public class FileMetadata {
+    private final Path path;
+    private final long size;
+    private final String contentType;
+    private final String digestAlgorithm;
+    private final String digest;
+
+    public FileMetadata(@Nonnull Path path, long size, @Nullable String contentType,
+                        @Nullable String digestAlgorithm, @Nullable String digest) {
+        this.path = path;
+        this.size = size;
+        this.contentType = contentType;
+        this.digestAlgorithm = digestAlgorithm;
+        this.digest = digest;
+    }
+
+    @Nonnull
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Nullable
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Nullable
+    public String getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    /**
+     * @return lowercase hex digest of the content or null if digest is not calculated
+     */
+    @Nullable
+    public String getDigest() {
+        return digest;
+    }
+
+    @Override
+    public String toString() {
+        return "FileMetadata{" +
+                "path=" + path +
+                ", size=" + size +
+                ", contentType='" + contentType + '\'' +
+                ", digest='" + digestAlgorithm + ":" + digest + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,498 @@
+package ru.romanow.core.rest.client.download;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.romanow.core.rest.client.consumer.StreamingResponseConsumer;
+import ru.romanow.core.rest.client.exception.HttpRestClientException;
+import ru.romanow.core.rest.client.exception.HttpRestException;
+import ru.romanow.core.rest.client.exception.HttpRestResourceException;
+import ru.romanow.core.rest.client.exception.HttpRestServerException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Download of the large resource in byte ranges fetched concurrently over pooled connections. Each segment
+ * is written at its offset in the preallocated <code>&lt;target&gt;.part</code> file, failed segments are
+ * retried one by one. Completed segments are recorded in <code>&lt;target&gt;.part.state</code>, so download
+ * interrupted by restart is resumed if resource has the same <code>ETag</code> or <code>Last-Modified</code>.
+ * Resource without <code>Accept-Ranges: bytes</code> or length is downloaded by single request. If server
+ * rejects <code>HEAD</code>, resource is probed by <code>GET</code> of the first byte.
+ * <p>
+ * Segment bodies are written by I/O dispatcher threads, blocking segment completion (fsync of the file
+ * and state update) runs on separate <code>ranged-downloader-completion</code> threads, so it doesn't stall
+ * other connections of the dispatcher.
+ */
+public class RangedDownloader
+        implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RangedDownloader.class);
+
+    private static final long DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_SEGMENT_RETRY_COUNT = 3;
+    private static final int SOCKET_TIMEOUT = 30_000;
+    private static final int CONNECTION_TIMEOUT = 1000;
+    private static final int DIGEST_BUFFER_SIZE = 256 * 1024;
+    private static final int PROBE_BUFFER_SIZE = 1024;
+    private static final long COMPLETION_THREAD_KEEP_ALIVE = 60;
+
+    private static final String PART_SUFFIX = ".part";
+    private static final String STATE_SUFFIX = ".part.state";
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final ThreadPoolExecutor completionExecutor;
+    private final long segmentSize;
+    private final int segmentRetryCount;
+    private final Map<String, String> headers;
+    private final String digestAlgorithm;
+
+    private RangedDownloader(@Nonnull Builder builder) {
+        this.segmentSize = builder.segmentSize;
+        this.segmentRetryCount = builder.segmentRetryCount;
+        this.headers = new HashMap<>(builder.headers);
+        this.digestAlgorithm = builder.digestAlgorithm;
+
+        final RequestConfig requestConfig = RequestConfig
+                .custom()
+                .setSocketTimeout(builder.socketTimeout)
+                .setConnectTimeout(CONNECTION_TIMEOUT)
+                .build();
+        this.httpClient = HttpAsyncClients
+                .custom()
+                .setDefaultRequestConfig(requestConfig)
+                .setMaxConnPerRoute(builder.parallelism)
+                .setMaxConnTotal(builder.parallelism)
+                .build();
+        this.httpClient.start();
+
+        // one thread per connection at most, threads stop when downloader is idle
+        this.completionExecutor = new ThreadPoolExecutor(
+                builder.parallelism, builder.parallelism, COMPLETION_THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "ranged-downloader-completion");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.completionExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Download resource to the target file, blocks until all segments are downloaded.
+     *
+     * @throws HttpRestClientException   if server responded with client error (4xx)
+     * @throws HttpRestServerException   if segment failed with server error (5xx) after all retries
+     * @throws HttpRestResourceException if segment failed with I/O error after all retries
+     */
+    @Nonnull
+    public FileMetadata download(@Nonnull String url, @Nonnull Path target) {
+        final Path file = target.toAbsolutePath();
+        final Path part = file.resolveSibling(file.getFileName() + PART_SUFFIX);
+        final Path statePath = file.resolveSibling(file.getFileName() + STATE_SUFFIX);
+
+        final ResourceInfo resource = probe(url);
+        final long length = resource.length;
+        final boolean ranged = resource.ranged;
+        final String validator = ranged ? resource.validator : null;
+        final String contentType = resource.contentType;
+
+        final DownloadState state = DownloadState.load(statePath, length, segmentSize, validator);
+        final List<Segment> segments = createSegments(length, ranged);
+        try {
+            if (state.isResumed() && (!Files.exists(part) || Files.size(part) != length)) {
+                state.reset();
+            }
+            if (!state.isResumed()) {
+                Files.deleteIfExists(part);
+            }
+            try (RandomAccessFile accessFile = new RandomAccessFile(part.toFile(), "rw");
+                 FileChannel channel = accessFile.getChannel()) {
+                if (ranged) {
+                    accessFile.setLength(length);
+                } else {
+                    channel.truncate(0);
+                }
+
+                final List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (Segment segment : segments) {
+                    if (!state.isCompleted(segment.getIndex())) {
+                        futures.add(downloadSegment(url, segment, validator, channel, state, segmentRetryCount));
+                    }
+                }
+                logger.debug("Download '{}': {} of {} segments to fetch", url, futures.size(), segments.size());
+                // wait for all segments: completed ones are kept for resume even if others failed
+                RuntimeException failure = null;
+                for (CompletableFuture<Void> future : futures) {
+                    try {
+                        future.join();
+                    } catch (CompletionException exception) {
+                        if (failure == null) {
+                            failure = toRestException(exception.getCause());
+                        }
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            state.delete();
+            return new FileMetadata(file, Files.size(file), contentType, digestAlgorithm, digest(file));
+        } catch (IOException exception) {
+            throw new HttpRestResourceException(exception);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+        completionExecutor.shutdown();
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> downloadSegment(@Nonnull String url, @Nonnull Segment segment,
+                                                    @Nullable String validator, @Nonnull FileChannel channel,
+                                                    @Nonnull DownloadState state, int retryCount) {
+        final HttpGet request = new HttpGet(url);
+        headers.forEach(request::setHeader);
+        if (segment.isRanged()) {
+            request.setHeader("Range", segment.getRange());
+            if (validator != null) {
+                request.setHeader("If-Range", validator);
+            }
+        }
+
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        httpClient.execute(HttpAsyncMethods.create(request), new SegmentConsumer(channel, segment), null,
+                           new FutureCallback<>() {
+                               @Override
+                               public void completed(HttpResponse response) {
+                                   try {
+                                       checkStatus(response);
+                                       // fsync and state file write block, they must not run on I/O dispatcher
+                                       completionExecutor.execute(
+                                               () -> completeSegment(segment, channel, state, result));
+                                   } catch (Exception exception) {
+                                       result.completeExceptionally(exception);
+                                   }
+                               }
+
+                               @Override
+                               public void failed(Exception exception) {
+                                   result.completeExceptionally(exception);
+                               }
+
+                               @Override
+                               public void cancelled() {
+                                   result.cancel(false);
+                               }
+                           });
+
+        return result
+                .handle((ignored, exception) -> {
+                    if (exception == null) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    final Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                    if (retryCount > 0 && isRetryable(cause)) {
+                        logger.warn("Segment {} of '{}' failed, retry: {}", segment, url, cause.getMessage());
+                        return downloadSegment(url, segment, validator, channel, state, retryCount - 1);
+                    }
+                    return CompletableFuture.<Void>failedFuture(cause);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private void completeSegment(@Nonnull Segment segment, @Nonnull FileChannel channel,
+                                 @Nonnull DownloadState state, @Nonnull CompletableFuture<Void> result) {
+        try {
+            channel.force(false);
+            state.complete(segment.getIndex());
+            result.complete(null);
+        } catch (Exception exception) {
+            result.completeExceptionally(exception);
+        }
+    }
+
+    @Nonnull
+    private ResourceInfo probe(@Nonnull String url) {
+        final HttpHead request = new HttpHead(url);
+        headers.forEach(request::setHeader);
+        try {
+            final HttpResponse response = httpClient.execute(request, null).get();
+            final int status = response.getStatusLine().getStatusCode();
+            if (status == HttpStatus.SC_FORBIDDEN || status == HttpStatus.SC_METHOD_NOT_ALLOWED ||
+                    status == HttpStatus.SC_NOT_IMPLEMENTED) {
+                logger.debug("HEAD of '{}' rejected with {}, probe by GET", url, status);
+                return probeByGet(url);
+            }
+            checkStatus(response);
+            final long length = getContentLength(response);
+            final boolean ranged = length > 0 && "bytes".equalsIgnoreCase(getHeader(response, "Accept-Ranges"));
+            return new ResourceInfo(length, ranged, getValidator(response), getHeader(response, "Content-Type"));
+        } catch (IOException exception) {
+            throw new HttpRestResourceException(exception);
+        } catch (ExecutionException exception) {
+            throw new HttpRestResourceException(exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new HttpRestResourceException(exception);
+        }
+    }
+
+    /**
+     * Request first byte: <code>206</code> has full length in <code>Content-Range</code>, server ignoring
+     * range sends whole body with <code>200</code>, connection is closed without reading it
+     */
+    @Nonnull
+    private ResourceInfo probeByGet(@Nonnull String url)
+            throws IOException, ExecutionException, InterruptedException {
+        final HttpGet request = new HttpGet(url);
+        headers.forEach(request::setHeader);
+        request.setHeader("Range", "bytes=0-0");
+        final StreamingResponseConsumer consumer = new StreamingResponseConsumer(PROBE_BUFFER_SIZE, 0);
+        final Future<HttpResponse> exchange = httpClient.execute(HttpAsyncMethods.create(request), consumer, null);
+        try {
+            final HttpResponse response = consumer.getResponseFuture().get();
+            checkStatus(response);
+            final String contentType = getHeader(response, "Content-Type");
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_PARTIAL_CONTENT) {
+                final long length = getRangeLength(response);
+                return new ResourceInfo(length, length > 0, getValidator(response), contentType);
+            }
+            return new ResourceInfo(getContentLength(response), false, null, contentType);
+        } finally {
+            exchange.cancel(true);
+        }
+    }
+
+    @Nonnull
+    private List<Segment> createSegments(long length, boolean ranged) {
+        final List<Segment> segments = new ArrayList<>();
+        if (!ranged) {
+            segments.add(new Segment(0, 0, length, false));
+            return segments;
+        }
+        for (long start = 0; start < length; start += segmentSize) {
+            segments.add(new Segment(segments.size(), start, Math.min(segmentSize, length - start), true));
+        }
+        return segments;
+    }
+
+    private void checkStatus(@Nonnull HttpResponse response) throws IOException {
+        final int status = response.getStatusLine().getStatusCode();
+        if (status < 400) {
+            return;
+        }
+        final String reason = response.getStatusLine().getReasonPhrase();
+        final String body = response.getEntity() != null
+                ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : null;
+        if (status < 500) {
+            throw new HttpRestClientException(status, reason, body);
+        }
+        throw new HttpRestServerException(status, reason, body);
+    }
+
+    private boolean isRetryable(@Nonnull Throwable exception) {
+        return exception instanceof IOException || exception instanceof HttpRestServerException;
+    }
+
+    @Nonnull
+    private RuntimeException toRestException(@Nonnull Throwable exception) {
+        return exception instanceof HttpRestException
+                ? (HttpRestException) exception
+                : new HttpRestResourceException(exception);
+    }
+
+    @Nullable
+    private String digest(@Nonnull Path file) throws IOException {
+        if (digestAlgorithm == null) {
+            return null;
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(digestAlgorithm);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return DownloadFile.toHex(digest.digest());
+    }
+
+    private static long getContentLength(@Nonnull HttpResponse response) {
+        final String value = getHeader(response, "Content-Length");
+        try {
+            return value != null ? Long.parseLong(value.trim()) : -1;
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return full length from <code>Content-Range: bytes 0-0/&lt;length&gt;</code> or -1 if it is unknown
+     */
+    private static long getRangeLength(@Nonnull HttpResponse response) {
+        final String value = getHeader(response, "Content-Range");
+        final int separator = value != null ? value.lastIndexOf('/') : -1;
+        try {
+            return separator >= 0 ? Long.parseLong(value.substring(separator + 1).trim()) : -1;
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    /**
+     * Strong <code>ETag</code> or <code>Last-Modified</code> usable in <code>If-Range</code>
+     */
+    @Nullable
+    private static String getValidator(@Nonnull HttpResponse response) {
+        final String etag = getHeader(response, "ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return getHeader(response, "Last-Modified");
+    }
+
+    @Nullable
+    private static String getHeader(@Nonnull HttpResponse response, @Nonnull String name) {
+        final Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    private static class ResourceInfo {
+        private final long length;
+        private final boolean ranged;
+        private final String validator;
+        private final String contentType;
+
+        ResourceInfo(long length, boolean ranged, @Nullable String validator, @Nullable String contentType) {
+            this.length = length;
+            this.ranged = ranged;
+            this.validator = validator;
+            this.contentType = contentType;
+        }
+    }
+
+    public static class Builder {
+        private long segmentSize;
+        private int parallelism;
+        private int segmentRetryCount;
+        private int socketTimeout;
+        private final Map<String, String> headers;
+        private String digestAlgorithm;
+
+        Builder() {
+            this.segmentSize = DEFAULT_SEGMENT_SIZE;
+            this.parallelism = DEFAULT_PARALLELISM;
+            this.segmentRetryCount = DEFAULT_SEGMENT_RETRY_COUNT;
+            this.socketTimeout = SOCKET_TIMEOUT;
+            this.headers = new HashMap<>();
+        }
+
+        @Nonnull
+        public Builder segmentSize(long segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Max concurrent connections (segments in flight) per download
+         */
+        @Nonnull
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        @Nonnull
+        public Builder segmentRetryCount(int segmentRetryCount) {
+            this.segmentRetryCount = segmentRetryCount;
+            return this;
+        }
+
+        /**
+         * Max inactivity between data packets of the segment in millis
+         */
+        @Nonnull
+        public Builder socketTimeout(int socketTimeout) {
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        @Nonnull
+        public Builder addHeader(@Nonnull String name, @Nonnull String value) {
+            this.headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * Calculate digest of downloaded file, segments arrive out of order, so file is read once more
+         */
+        @Nonnull
+        public Builder digestAlgorithm(@Nullable String digestAlgorithm) {
+            this.digestAlgorithm = digestAlgorithm;
+            return this;
+        }
+
+        @Nonnull
+        public RangedDownloader build() {
+            if (segmentSize <= 0 || parallelism <= 0) {
+                throw new IllegalStateException("Segment size and parallelism must be positive");
+            }
+            return new RangedDownloader(this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.romanow.core.rest.client.download;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Byte range <code>[start, start + length)</code> of the resource. Not ranged segment is the whole resource
+ * of possibly unknown length.
+ */
+class Segment {
+    private final int index;
+    private final long start;
+    private final long length;
+    private final boolean ranged;
+
+    Segment(int index, long start, long length, boolean ranged) {
+        this.index = index;
+        this.start = start;
+        this.length = length;
+        this.ranged = ranged;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    /**
+     * @return segment length or -1 if it is unknown
+     */
+    long getLength() {
+        return length;
+    }
+
+    boolean isRanged() {
+        return ranged;
+    }
+
+    @Nonnull
+    String getRange() {
+        return "bytes=" + start + "-" + (start + length - 1);
+    }
+
+    @Override
+    public String toString() {
+        return ranged ? index + " [" + start + "-" + (start + length - 1) + "]" : "[whole resource]";
+    }
+}
@@ -0,0 +1,119 @@
+package ru.romanow.core.rest.client.download;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.FileContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.protocol.HttpContext;
+import ru.romanow.core.rest.client.consumer.LimitedResponseConsumer;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static java.lang.String.format;
+
+/**
+ * Consumer writing response body of the single segment at its offset in the shared file channel.
+ * Ranged segment expects <code>206 Partial Content</code> starting at segment offset, error responses
+ * are buffered in memory as {@link LimitedResponseConsumer} does.
+ */
+class SegmentConsumer
+        extends LimitedResponseConsumer {
+    private static final int MAX_ERROR_BODY_SIZE = 64 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PARTIAL_CONTENT = 206;
+
+    private final FileChannel channel;
+    private final Segment segment;
+
+    private volatile boolean writing;
+    private volatile long written;
+    private ByteBuffer buffer;
+
+    SegmentConsumer(@Nonnull FileChannel channel, @Nonnull Segment segment) {
+        super(MAX_ERROR_BODY_SIZE);
+        this.channel = channel;
+        this.segment = segment;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        super.onResponseReceived(response);
+        final int status = response.getStatusLine().getStatusCode();
+        if (segment.isRanged() && status == PARTIAL_CONTENT) {
+            checkContentRange(response.getFirstHeader("Content-Range"));
+            writing = true;
+        } else if (segment.isRanged() && status >= 200 && status < 300) {
+            throw new IllegalStateException(format("Server ignored range request, status %d", status));
+        } else if (!segment.isRanged() && status >= 200 && status < 300) {
+            writing = true;
+        }
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        if (!writing) {
+            super.onEntityEnclosed(entity, contentType);
+        }
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        if (!writing) {
+            super.onContentReceived(decoder, ioctrl);
+            return;
+        }
+
+        final long remaining = segment.getLength() >= 0 ? segment.getLength() - written : Long.MAX_VALUE;
+        if (decoder instanceof FileContentDecoder) {
+            final long count = ((FileContentDecoder) decoder)
+                    .transfer(channel, segment.getStart() + written, Math.min(remaining, Integer.MAX_VALUE));
+            if (count > 0) {
+                written += count;
+            }
+        } else {
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            }
+            while (decoder.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer, segment.getStart() + written);
+                }
+                buffer.clear();
+            }
+        }
+        if (segment.getLength() >= 0 && written > segment.getLength()) {
+            throw new IOException(format("Segment %s received more than %d bytes", segment, segment.getLength()));
+        }
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) throws IOException {
+        if (writing && segment.getLength() >= 0 && written != segment.getLength()) {
+            throw new IOException(format("Segment %s is incomplete: received %d bytes", segment, written));
+        }
+        return super.buildResult(context);
+    }
+
+    @Override
+    protected void releaseResources() {
+        buffer = null;
+        super.releaseResources();
+    }
+
+    private void checkContentRange(Header header) {
+        // Content-Range: bytes <start>-<end>/<total>
+        final String value = header != null ? header.getValue().trim() : "";
+        final int dash = value.indexOf('-');
+        final String start = value.startsWith("bytes ") && dash > 0 ? value.substring(6, dash).trim() : null;
+        if (!String.valueOf(segment.getStart()).equals(start)) {
+            throw new IllegalStateException(format("Unexpected Content-Range '%s' for segment %s", value, segment));
+        }
+    }
+}
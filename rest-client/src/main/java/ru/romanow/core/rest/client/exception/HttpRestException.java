@@ -13,4 +13,11 @@ public abstract class HttpRestException
     public HttpRestException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * @param writableStackTrace false skips stack trace filling, for exceptions thrown on expected errors
+     */
+    protected HttpRestException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+    }
 }
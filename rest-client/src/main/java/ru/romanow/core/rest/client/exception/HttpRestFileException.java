@@ -0,0 +1,15 @@
+package ru.romanow.core.rest.client.exception;
+
+import java.io.IOException;
+
+/**
+ * Response body can't be written to the local file: missing directory, full disk, failed rename. Failure of the
+ * local file system is not a failure of the endpoint, so request is not retried and exception is always thrown.
+ */
+public class HttpRestFileException
+        extends HttpRestException {
+
+    public HttpRestFileException(String message, IOException cause) {
+        super(message, cause);
+    }
+}
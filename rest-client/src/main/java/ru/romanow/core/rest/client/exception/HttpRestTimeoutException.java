@@ -5,4 +5,8 @@ public class HttpRestTimeoutException
     public HttpRestTimeoutException(Throwable cause) {
         super(cause);
     }
+
+    public HttpRestTimeoutException(Throwable cause, boolean writableStackTrace) {
+        super(cause != null ? cause.toString() : null, cause, writableStackTrace);
+    }
 }
@@ -1,10 +1,16 @@
 package ru.romanow.core.rest.client.exception;
 
+import ru.romanow.core.rest.client.utils.JsonSerializer;
+
 public abstract class HttpStatusBasedException
         extends HttpRestException {
     private int responseStatus;
     private String responseMessage;
     private Object body;
+    private Class<?> bodyClass;
+
+    private Class<?> decodedClass;
+    private Object decodedBody;
 
     public HttpStatusBasedException(String message, int responseStatus, String responseMessage) {
         super(message);
@@ -19,6 +25,24 @@ public abstract class HttpStatusBasedException
         this.body = body;
     }
 
+    /**
+     * @param body      raw response body, decoded only when it is requested
+     * @param bodyClass class of the body declared for response status, nullable
+     */
+    public HttpStatusBasedException(String message, int responseStatus, String responseMessage,
+                                    String body, Class<?> bodyClass) {
+        this(message, responseStatus, responseMessage, body, bodyClass, true);
+    }
+
+    public HttpStatusBasedException(String message, int responseStatus, String responseMessage,
+                                    String body, Class<?> bodyClass, boolean writableStackTrace) {
+        super(message, null, writableStackTrace);
+        this.responseStatus = responseStatus;
+        this.responseMessage = responseMessage;
+        this.body = body;
+        this.bodyClass = bodyClass;
+    }
+
     public int getResponseStatus() {
         return responseStatus;
     }
@@ -27,12 +51,25 @@ public abstract class HttpStatusBasedException
         return responseMessage;
     }
 
+    /**
+     * @return body decoded to the declared error response class or raw body if class is not declared
+     */
     public Object getBody() {
-        return body;
+        return bodyClass != null ? getBody(bodyClass) : body;
     }
 
+    /**
+     * Raw body is decoded from JSON on first call, result is cached for the next calls with the same class
+     */
     @SuppressWarnings("unchecked")
-    public <T> T getBody(Class<T> cls) {
-        return (T)body;
+    public synchronized <T> T getBody(Class<T> cls) {
+        if (!(body instanceof String) || cls.isInstance(body)) {
+            return (T)body;
+        }
+        if (decodedClass != cls) {
+            decodedBody = JsonSerializer.fromJson((String) body, cls);
+            decodedClass = cls;
+        }
+        return (T)decodedBody;
     }
 }
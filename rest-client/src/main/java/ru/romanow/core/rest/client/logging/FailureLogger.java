@@ -0,0 +1,203 @@
+package ru.romanow.core.rest.client.logging;
+
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate-limited logging of request failures. First failure of the host and kind (client or server error status,
+ * timeout, connection error) in the interval is logged at once, next ones are only counted and reported by single
+ * summary line at the end of the interval: <code>1423 x server error 503 from 'host' in the last 10 sec</code>.
+ * Client-side rejections (rate limit, response size limit) are reported the same way.
+ * Nothing is formatted if WARN level is disabled. Summaries are flushed by <code>rest-client-failure-logger</code> thread
+ * that holds loggers weakly, so logger of the client that was not closed stops flushing when it becomes unreachable.
+ */
+public class FailureLogger
+        implements Closeable {
+    public static final long DEFAULT_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    private final Logger logger;
+    private final long interval;
+    private final ConcurrentMap<FailureKey, AtomicLong> failures;
+    private final ScheduledFuture<?> task;
+
+    public FailureLogger(@Nonnull Logger logger) {
+        this(logger, DEFAULT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param interval summary interval, zero logs every failure
+     */
+    public FailureLogger(@Nonnull Logger logger, long interval, @Nonnull TimeUnit timeUnit) {
+        this.logger = logger;
+        this.interval = timeUnit.toMillis(interval);
+        this.failures = new ConcurrentHashMap<>();
+        this.task = this.interval > 0 ? FlushTask.schedule(this, this.interval) : null;
+    }
+
+    public void clientError(@Nonnull String url, int status, @Nullable String reason) {
+        failure(url, "client error", status, reason);
+    }
+
+    public void serverError(@Nonnull String url, int status, @Nullable String reason) {
+        failure(url, "server error", status, reason);
+    }
+
+    public void timeout(@Nonnull String url) {
+        failure(url, "timeout", 0, null);
+    }
+
+    public void connectionError(@Nonnull String url) {
+        failure(url, "connection error", 0, null);
+    }
+
+    public void rateLimited(@Nonnull String url) {
+        failure(url, "client rate limit", 0, null);
+    }
+
+    /**
+     * @param reason exception message with actual and allowed size
+     */
+    public void responseTooLarge(@Nonnull String url, @Nonnull String reason) {
+        failure(url, "response size limit", 0, reason);
+    }
+
+    /**
+     * Log summaries of the failures counted since last flush
+     */
+    public void flush() {
+        failures.forEach((key, counter) -> {
+            final long count = counter.getAndSet(0);
+            if (count == 0) {
+                failures.remove(key, counter);
+            } else if (count > 1) {
+                logger.warn("{} x {} from '{}' in the last {} sec", count, key, key.host,
+                            TimeUnit.MILLISECONDS.toSeconds(interval));
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        if (task != null) {
+            task.cancel(false);
+            flush();
+        }
+    }
+
+    private void failure(@Nonnull String url, @Nonnull String type, int status, @Nullable String reason) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        if (task != null) {
+            final AtomicLong counter = failures.computeIfAbsent(new FailureKey(host(url), type, status),
+                                                                key -> new AtomicLong());
+            if (counter.getAndIncrement() > 0) {
+                return;
+            }
+        }
+        if (status > 0) {
+            logger.warn("Request to '{}' failed with {}: {}:{}", url, type, status, reason);
+        } else if (reason != null) {
+            logger.warn("Request to '{}' failed with {}: {}", url, type, reason);
+        } else {
+            logger.warn("Request to '{}' failed with {}", url, type);
+        }
+    }
+
+    /**
+     * @return host with port of absolute url, relative url as is
+     */
+    @Nonnull
+    static String host(@Nonnull String url) {
+        final int start = url.indexOf("://");
+        if (start < 0) {
+            return url;
+        }
+        int end = start + 3;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        return url.substring(start + 3, end);
+    }
+
+    private static class FailureKey {
+        private final String host;
+        private final String type;
+        private final int status;
+
+        FailureKey(@Nonnull String host, @Nonnull String type, int status) {
+            this.host = host;
+            this.type = type;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final FailureKey that = (FailureKey) o;
+            return status == that.status && host.equals(that.host) && type.equals(that.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, type, status);
+        }
+
+        @Override
+        public String toString() {
+            return status > 0 ? type + " " + status : type;
+        }
+    }
+
+    /**
+     * Holds logger weakly, so scheduled task doesn't keep unreachable logger (and its client) alive
+     */
+    private static class FlushTask
+            implements Runnable {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "rest-client-failure-logger");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final WeakReference<FailureLogger> failureLogger;
+        private volatile ScheduledFuture<?> future;
+
+        private FlushTask(@Nonnull FailureLogger failureLogger) {
+            this.failureLogger = new WeakReference<>(failureLogger);
+        }
+
+        @Nonnull
+        static ScheduledFuture<?> schedule(@Nonnull FailureLogger failureLogger, long interval) {
+            final FlushTask task = new FlushTask(failureLogger);
+            task.future = SCHEDULER.scheduleAtFixedRate(task, interval, interval, TimeUnit.MILLISECONDS);
+            return task.future;
+        }
+
+        @Override
+        public void run() {
+            final FailureLogger logger = failureLogger.get();
+            if (logger != null) {
+                try {
+                    logger.flush();
+                } catch (RuntimeException ignored) {
+                    // appender failure must not stop next flushes
+                }
+            } else if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
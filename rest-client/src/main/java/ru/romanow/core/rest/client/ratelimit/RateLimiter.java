@@ -0,0 +1,147 @@
+package ru.romanow.core.rest.client.ratelimit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Lock-free rate limiter based on Generic Cell Rate Algorithm. Besides configured rate it respects
+ * server feedback: <code>Retry-After</code> and <code>RateLimit-Remaining</code> / <code>RateLimit-Reset</code>
+ * headers block limiter until quota is restored.
+ */
+public class RateLimiter {
+    public static final String RETRY_AFTER = "Retry-After";
+    public static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private final long emissionInterval;
+    private final long burstTolerance;
+
+    private final AtomicLong theoreticalArrivalTime;
+    private volatile long blockedUntil;
+
+    /**
+     * @param permitsPerSecond sustained rate, zero or negative means unlimited
+     * @param burst            requests allowed at once over sustained rate
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this.emissionInterval = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.burstTolerance = emissionInterval * Math.max(burst - 1, 0);
+        final long now = System.nanoTime();
+        this.theoreticalArrivalTime = new AtomicLong(now);
+        this.blockedUntil = now;
+    }
+
+    /**
+     * Reserve permit if it becomes available not later than <code>maxWait</code>.
+     *
+     * @return nanos to wait before sending request, or -1 if permit is not available in time (permit is not reserved)
+     */
+    public long reserve(long maxWait, @Nonnull TimeUnit timeUnit) {
+        final long maxWaitNanos = timeUnit.toNanos(maxWait);
+        while (true) {
+            final long now = System.nanoTime();
+            final long tat = theoreticalArrivalTime.get();
+            long start = now;
+            if (tat - burstTolerance - start > 0) {
+                start = tat - burstTolerance;
+            }
+            final long blocked = blockedUntil;
+            if (blocked - start > 0) {
+                start = blocked;
+            }
+
+            final long wait = start - now;
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            final long next = (tat - start > 0 ? tat : start) + emissionInterval;
+            if (theoreticalArrivalTime.compareAndSet(tat, next)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * @return nanos until next permit is available, 0 if permit is available now
+     */
+    public long getWaitTime() {
+        final long now = System.nanoTime();
+        final long wait = Math.max(theoreticalArrivalTime.get() - burstTolerance, blockedUntil) - now;
+        return Math.max(wait, 0);
+    }
+
+    /**
+     * Update limiter from response headers.
+     *
+     * @param status response status
+     * @param header response header value by name
+     */
+    public void onResponse(int status, @Nonnull Function<String, String> header) {
+        final long delay = getBlockDelay(status, header);
+        if (delay > 0) {
+            block(delay);
+        }
+    }
+
+    /**
+     * @return nanos server asks not to send requests for, or -1 if response doesn't limit requests
+     */
+    public static long getBlockDelay(int status, @Nonnull Function<String, String> header) {
+        long delay = -1;
+        if (status == TOO_MANY_REQUESTS || status == SERVICE_UNAVAILABLE) {
+            delay = parseDelay(header.apply(RETRY_AFTER));
+        }
+        if (delay < 0 && "0".equals(trim(header.apply(RATE_LIMIT_REMAINING)))) {
+            delay = parseDelay(header.apply(RATE_LIMIT_RESET));
+        }
+        return delay;
+    }
+
+    /**
+     * @return true if limiter has full burst and is not blocked, so it behaves like a new one
+     */
+    public boolean isIdle() {
+        final long now = System.nanoTime();
+        return theoreticalArrivalTime.get() - now <= 0 && blockedUntil - now <= 0;
+    }
+
+    /**
+     * Don't allow requests for specified time.
+     */
+    public void block(long nanos) {
+        final long until = System.nanoTime() + nanos;
+        if (until - blockedUntil > 0) {
+            blockedUntil = until;
+        }
+    }
+
+    private static long parseDelay(@Nullable String value) {
+        value = trim(value);
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+        } catch (NumberFormatException ignored) {}
+        try {
+            final ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Duration.between(ZonedDateTime.now(date.getZone()), date).toNanos();
+        } catch (DateTimeParseException ignored) {}
+        return -1;
+    }
+
+    @Nullable
+    private static String trim(@Nullable String value) {
+        return value != null ? value.trim() : null;
+    }
+}
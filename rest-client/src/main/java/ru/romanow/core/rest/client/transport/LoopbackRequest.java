@@ -0,0 +1,55 @@
+package ru.romanow.core.rest.client.transport;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request received by {@link LoopbackTransport}: request line, headers and fully read body.
+ */
+public class LoopbackRequest {
+    private final HttpRequest request;
+    private final byte[] body;
+
+    LoopbackRequest(@Nonnull HttpRequest request, @Nonnull byte[] body) {
+        this.request = request;
+        this.body = body;
+    }
+
+    @Nonnull
+    public String getMethod() {
+        return request.getRequestLine().getMethod();
+    }
+
+    /**
+     * @return request uri as sent in request line
+     */
+    @Nonnull
+    public String getUri() {
+        return request.getRequestLine().getUri();
+    }
+
+    @Nullable
+    public String getHeader(@Nonnull String name) {
+        final Header header = request.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    @Nonnull
+    public byte[] getBody() {
+        return body;
+    }
+
+    @Nonnull
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Nonnull
+    public HttpRequest getRequest() {
+        return request;
+    }
+}
@@ -0,0 +1,161 @@
+package ru.romanow.core.rest.client.transport;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static ru.romanow.core.rest.client.utils.JsonSerializer.toJson;
+
+/**
+ * Canned response of {@link LoopbackTransport}: status, headers and body sent after delay,
+ * or I/O failure (e.g. connection reset) instead of response.
+ */
+public class LoopbackResponse {
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+
+    private final int status;
+    private final String reason;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final long delay;
+    private final IOException failure;
+
+    private LoopbackResponse(@Nonnull Builder builder) {
+        this.status = builder.status;
+        this.reason = builder.reason != null
+                ? builder.reason : EnglishReasonPhraseCatalog.INSTANCE.getReason(builder.status, Locale.ENGLISH);
+        this.headers = new LinkedHashMap<>(builder.headers);
+        this.body = builder.body;
+        this.delay = builder.delay;
+        this.failure = builder.failure;
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Connection reset by peer, handled by client as connection error
+     */
+    @Nonnull
+    public static LoopbackResponse reset() {
+        return builder().failure(new SocketException("Connection reset")).build();
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    @Nullable
+    public String getReason() {
+        return reason;
+    }
+
+    @Nonnull
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    @Nullable
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return delay in millis before response (or failure) is sent
+     */
+    public long getDelay() {
+        return delay;
+    }
+
+    @Nullable
+    public IOException getFailure() {
+        return failure;
+    }
+
+    public static class Builder {
+        private int status;
+        private String reason;
+        private final Map<String, String> headers;
+        private byte[] body;
+        private long delay;
+        private IOException failure;
+
+        Builder() {
+            this.status = 200;
+            this.headers = new LinkedHashMap<>();
+        }
+
+        @Nonnull
+        public Builder status(int status) {
+            this.status = status;
+            return this;
+        }
+
+        @Nonnull
+        public Builder status(int status, @Nonnull String reason) {
+            this.status = status;
+            this.reason = reason;
+            return this;
+        }
+
+        @Nonnull
+        public Builder header(@Nonnull String name, @Nonnull String value) {
+            this.headers.put(name, value);
+            return this;
+        }
+
+        @Nonnull
+        public Builder body(@Nonnull byte[] body, @Nonnull String contentType) {
+            this.body = body;
+            this.headers.put(HttpHeaders.CONTENT_TYPE, contentType);
+            return this;
+        }
+
+        @Nonnull
+        public Builder body(@Nonnull String body, @Nonnull String contentType) {
+            return body(body.getBytes(StandardCharsets.UTF_8), contentType);
+        }
+
+        /**
+         * Object serialized to JSON with <code>application/json</code> content type
+         */
+        @Nonnull
+        public Builder json(@Nonnull Object body) {
+            return body(toJson(body), JSON_CONTENT_TYPE);
+        }
+
+        /**
+         * Delay before response (or failure), e.g. to simulate server latency or request timeout
+         */
+        @Nonnull
+        public Builder delay(long delay, @Nonnull TimeUnit timeUnit) {
+            this.delay = timeUnit.toMillis(delay);
+            return this;
+        }
+
+        /**
+         * Fail exchange with the exception instead of response
+         */
+        @Nonnull
+        public Builder failure(@Nonnull IOException failure) {
+            this.failure = failure;
+            return this;
+        }
+
+        @Nonnull
+        public LoopbackResponse build() {
+            return new LoopbackResponse(this);
+        }
+    }
+}
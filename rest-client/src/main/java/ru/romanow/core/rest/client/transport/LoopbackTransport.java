@@ -0,0 +1,350 @@
+package ru.romanow.core.rest.client.transport;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-memory transport of {@link ru.romanow.core.rest.client.RestClient}: requests are not sent over network,
+ * handler returns response for each request. Request body is produced and response body is consumed
+ * by the same producers and consumers as on real connection (including suspended input of streamed
+ * responses), so whole client pipeline is exercised without sockets, e.g. in tests and benchmarks.
+ * <p>
+ * Responses without delay are completed in the calling thread, delayed responses and resumed input
+ * are processed by shared daemon threads.
+ */
+public class LoopbackTransport
+        extends CloseableHttpAsyncClient {
+    private final Function<LoopbackRequest, LoopbackResponse> handler;
+    private final AtomicLong requestCount = new AtomicLong();
+    private volatile boolean closed;
+
+    public LoopbackTransport(@Nonnull Function<LoopbackRequest, LoopbackResponse> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Same response for all requests
+     */
+    public LoopbackTransport(@Nonnull LoopbackResponse response) {
+        this(request -> response);
+    }
+
+    /**
+     * Responses in order of requests, last response is repeated for the next requests
+     */
+    @Nonnull
+    public static LoopbackTransport script(@Nonnull LoopbackResponse... responses) {
+        if (responses.length == 0) {
+            throw new IllegalArgumentException("At least one response is required");
+        }
+        final AtomicInteger next = new AtomicInteger();
+        return new LoopbackTransport(
+                request -> responses[next.getAndUpdate(i -> i < responses.length - 1 ? i + 1 : i)]);
+    }
+
+    /**
+     * @return requests received by the transport, including retries
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !closed;
+    }
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer, HttpAsyncResponseConsumer<T> responseConsumer,
+                                 HttpContext context, FutureCallback<T> callback) {
+        if (closed) {
+            throw new IllegalStateException("Loopback transport is closed");
+        }
+        requestCount.incrementAndGet();
+        final Exchange<T> exchange = new Exchange<>(requestProducer, responseConsumer,
+                                                    context != null ? context : new BasicHttpContext(), callback);
+        exchange.start();
+        return exchange.future;
+    }
+
+    private class Exchange<T>
+            implements IOControl {
+        private final HttpAsyncRequestProducer producer;
+        private final HttpAsyncResponseConsumer<T> consumer;
+        private final HttpContext context;
+        private final BasicFuture<T> future;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private ByteBuffer content;
+        private volatile boolean suspended;
+
+        Exchange(@Nonnull HttpAsyncRequestProducer producer, @Nonnull HttpAsyncResponseConsumer<T> consumer,
+                 @Nonnull HttpContext context, FutureCallback<T> callback) {
+            this.producer = producer;
+            this.consumer = consumer;
+            this.context = context;
+            this.future = new BasicFuture<>(new FutureCallback<T>() {
+                @Override
+                public void completed(T result) {
+                    if (callback != null) {
+                        callback.completed(result);
+                    }
+                }
+
+                @Override
+                public void failed(Exception exception) {
+                    if (callback != null) {
+                        callback.failed(exception);
+                    }
+                }
+
+                @Override
+                public void cancelled() {
+                    if (done.compareAndSet(false, true)) {
+                        consumer.cancel();
+                    }
+                    if (callback != null) {
+                        callback.cancelled();
+                    }
+                }
+            });
+        }
+
+        void start() {
+            final LoopbackResponse response;
+            try {
+                final HttpRequest request = producer.generateRequest();
+                context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, producer.getTarget());
+                context.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+                final byte[] body = readBody(request);
+                producer.requestCompleted(context);
+                producer.close();
+
+                response = handler.apply(new LoopbackRequest(request, body));
+            } catch (Exception exception) {
+                producer.failed(exception);
+                fail(exception);
+                return;
+            }
+
+            if (response.getDelay() > 0) {
+                SchedulerHolder.SCHEDULER.schedule(() -> respond(response), response.getDelay(), TimeUnit.MILLISECONDS);
+            } else {
+                respond(response);
+            }
+        }
+
+        @Nonnull
+        private byte[] readBody(@Nonnull HttpRequest request) throws IOException {
+            if (!(request instanceof HttpEntityEnclosingRequest) || ((HttpEntityEnclosingRequest) request).getEntity() == null) {
+                return new byte[0];
+            }
+            final BodyEncoder encoder = new BodyEncoder();
+            while (!encoder.isCompleted()) {
+                final int written = encoder.output.size();
+                producer.produceContent(encoder, this);
+                if (!encoder.isCompleted() && encoder.output.size() == written) {
+                    throw new IOException("Request body producer made no progress");
+                }
+            }
+            return encoder.output.toByteArray();
+        }
+
+        private void respond(@Nonnull LoopbackResponse response) {
+            if (done.get()) {
+                return;
+            }
+            try {
+                if (response.getFailure() != null) {
+                    throw response.getFailure();
+                }
+
+                final HttpResponse httpResponse =
+                        new BasicHttpResponse(HttpVersion.HTTP_1_1, response.getStatus(), response.getReason());
+                for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+                    httpResponse.addHeader(header.getKey(), header.getValue());
+                }
+                if (response.getBody() != null) {
+                    httpResponse.setEntity(createEntity(httpResponse, response.getBody()));
+                    content = ByteBuffer.wrap(response.getBody());
+                }
+                context.setAttribute(HttpCoreContext.HTTP_RESPONSE, httpResponse);
+                consumer.responseReceived(httpResponse);
+            } catch (Exception exception) {
+                fail(exception);
+                return;
+            }
+            pump();
+        }
+
+        @Nonnull
+        private HttpEntity createEntity(@Nonnull HttpResponse httpResponse, @Nonnull byte[] body) {
+            final BasicHttpEntity entity = new BasicHttpEntity();
+            entity.setContentLength(body.length);
+            entity.setContentType(httpResponse.getFirstHeader("Content-Type"));
+            entity.setContentEncoding(httpResponse.getFirstHeader("Content-Encoding"));
+            return entity;
+        }
+
+        /**
+         * Pass response body to the consumer until it is read or consumer suspends input
+         */
+        private synchronized void pump() {
+            try {
+                if (content != null) {
+                    final BodyDecoder decoder = new BodyDecoder();
+                    while (!suspended && !done.get() && !decoder.isCompleted()) {
+                        consumer.consumeContent(decoder, this);
+                    }
+                    if (!decoder.isCompleted()) {
+                        return;
+                    }
+                }
+                complete();
+            } catch (Exception exception) {
+                fail(exception);
+            }
+        }
+
+        private void complete() {
+            if (done.compareAndSet(false, true)) {
+                consumer.responseCompleted(context);
+                if (consumer.getException() != null) {
+                    future.failed(consumer.getException());
+                } else {
+                    future.completed(consumer.getResult());
+                }
+            }
+        }
+
+        private void fail(@Nonnull Exception exception) {
+            if (done.compareAndSet(false, true)) {
+                consumer.failed(exception);
+                future.failed(exception);
+            }
+        }
+
+        @Override
+        public void requestInput() {
+            if (suspended) {
+                suspended = false;
+                SchedulerHolder.SCHEDULER.execute(this::pump);
+            }
+        }
+
+        @Override
+        public void suspendInput() {
+            suspended = true;
+        }
+
+        @Override
+        public void requestOutput() {}
+
+        @Override
+        public void suspendOutput() {}
+
+        @Override
+        public void shutdown() {
+            fail(new IOException("Connection shut down"));
+        }
+
+        private class BodyDecoder
+                implements ContentDecoder {
+
+            @Override
+            public int read(ByteBuffer dst) {
+                if (!content.hasRemaining()) {
+                    return -1;
+                }
+                final int count = Math.min(dst.remaining(), content.remaining());
+                final ByteBuffer chunk = content.slice();
+                chunk.limit(count);
+                dst.put(chunk);
+                content.position(content.position() + count);
+                return count;
+            }
+
+            @Override
+            public boolean isCompleted() {
+                return !content.hasRemaining();
+            }
+        }
+    }
+
+    private static class BodyEncoder
+            implements ContentEncoder {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private boolean completed;
+
+        @Override
+        public int write(ByteBuffer src) {
+            final int count = src.remaining();
+            if (src.hasArray()) {
+                output.write(src.array(), src.arrayOffset() + src.position(), count);
+                src.position(src.limit());
+            } else {
+                final byte[] bytes = new byte[count];
+                src.get(bytes);
+                output.write(bytes, 0, count);
+            }
+            return count;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return completed;
+        }
+    }
+
+    private static class SchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(
+                Runtime.getRuntime().availableProcessors(), runnable -> {
+                    final Thread thread = new Thread(runnable, "rest-client-loopback");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
@@ -2,9 +2,11 @@ package ru.romanow.core.rest.client.utils;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collection;
 
 public class JsonSerializer {
 
@@ -24,4 +26,15 @@ public class JsonSerializer {
     public static <T> T fromJson(@Nullable String json, @Nonnull Class<T> cls) {
         return gson.fromJson(json, cls);
     }
+
+    public static <T> T fromJson(@Nonnull JsonReader reader, @Nonnull Class<T> cls) {
+        return gson.fromJson(reader, cls);
+    }
+
+    /**
+     * Build and cache type adapters of classes (and their fields) before first request
+     */
+    public static void warmUp(@Nonnull Collection<Class<?>> classes) {
+        classes.forEach(gson::getAdapter);
+    }
 }
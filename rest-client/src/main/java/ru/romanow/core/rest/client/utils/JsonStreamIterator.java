@@ -0,0 +1,94 @@
+package ru.romanow.core.rest.client.utils;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Decodes elements of top-level JSON array or newline-delimited JSON one at a time while reading the stream.
+ */
+public class JsonStreamIterator<T>
+        implements Iterator<T>, Closeable {
+    private final JsonReader reader;
+    private final Class<T> elementClass;
+    private final boolean lineDelimited;
+
+    private boolean started;
+    private boolean array;
+    private boolean finished;
+    private Boolean hasNext;
+
+    /**
+     * @param lineDelimited true if stream is newline-delimited JSON, otherwise top-level JSON array is
+     *                      decoded element by element and any other value is treated as single element
+     */
+    public JsonStreamIterator(@Nonnull InputStream stream, @Nonnull Charset charset,
+                              @Nonnull Class<T> elementClass, boolean lineDelimited) {
+        this.reader = new JsonReader(new InputStreamReader(stream, charset));
+        this.reader.setLenient(true);
+        this.elementClass = elementClass;
+        this.lineDelimited = lineDelimited;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasNext == null) {
+            try {
+                hasNext = advance();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+        return JsonSerializer.fromJson(reader, elementClass);
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private boolean advance() throws IOException {
+        if (finished) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+            if (!lineDelimited) {
+                if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    // single top-level value
+                    finished = true;
+                    return reader.peek() != JsonToken.END_DOCUMENT;
+                }
+                array = true;
+                reader.beginArray();
+            }
+        }
+        if (array) {
+            if (reader.hasNext()) {
+                return true;
+            }
+            reader.endArray();
+            finished = true;
+            return false;
+        }
+        return reader.peek() != JsonToken.END_DOCUMENT;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.romanow.core.rest.client.warmup;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up plan: connections to open per host and classes to prepare JSON adapters for,
+ * so first requests after start don't pay for DNS, TCP and TLS handshakes and reflection.
+ */
+public class WarmUp {
+    private static final long DEFAULT_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final Map<String, Integer> connections;
+    private final List<Class<?>> classes;
+    private final long timeout;
+
+    private WarmUp(@Nonnull Builder builder) {
+        this.connections = new LinkedHashMap<>(builder.connections);
+        this.classes = new ArrayList<>(builder.classes);
+        this.timeout = builder.timeout;
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return connections count by url
+     */
+    @Nonnull
+    public Map<String, Integer> getConnections() {
+        return connections;
+    }
+
+    @Nonnull
+    public List<Class<?>> getClasses() {
+        return classes;
+    }
+
+    /**
+     * @return max warm-up time in millis
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public static class Builder {
+        private final Map<String, Integer> connections;
+        private final List<Class<?>> classes;
+        private long timeout;
+
+        Builder() {
+            this.connections = new LinkedHashMap<>();
+            this.classes = new ArrayList<>();
+            this.timeout = DEFAULT_TIMEOUT;
+        }
+
+        /**
+         * @param url         url of the host (scheme, host and port are used)
+         * @param connections connections to open
+         */
+        @Nonnull
+        public Builder connections(@Nonnull String url, int connections) {
+            this.connections.put(url, connections);
+            return this;
+        }
+
+        /**
+         * Response and error response classes of the requests
+         */
+        @Nonnull
+        public Builder classes(@Nonnull Class<?>... classes) {
+            this.classes.addAll(Arrays.asList(classes));
+            return this;
+        }
+
+        @Nonnull
+        public Builder timeout(long timeout, @Nonnull TimeUnit timeUnit) {
+            this.timeout = timeUnit.toMillis(timeout);
+            return this;
+        }
+
+        @Nonnull
+        public WarmUp build() {
+            return new WarmUp(this);
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package ru.romanow.core.rest.client;
 
 import org.apache.http.HttpStatus;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import ru.romanow.core.rest.client.admission.AdmissionController;
+import ru.romanow.core.rest.client.balancer.Endpoint;
+import ru.romanow.core.rest.client.balancer.LoadBalancer;
+import ru.romanow.core.rest.client.balancer.RoundRobinStrategy;
+import ru.romanow.core.rest.client.body.MultipartBody;
+import ru.romanow.core.rest.client.download.FileMetadata;
 import ru.romanow.core.rest.client.exception.HttpRestClientException;
+import ru.romanow.core.rest.client.exception.HttpRestRejectedException;
 import ru.romanow.core.rest.client.exception.HttpRestResourceException;
+import ru.romanow.core.rest.client.exception.HttpRestResponseTooLargeException;
 import ru.romanow.core.rest.client.exception.HttpRestServerException;
 import ru.romanow.core.rest.client.exception.HttpRestTimeoutException;
 import ru.romanow.core.rest.client.exceptions.CustomException;
@@ -16,9 +25,27 @@ import ru.romanow.core.rest.client.model.AuthRequest;
 import ru.romanow.core.rest.client.model.AuthResponse;
 import ru.romanow.core.rest.client.model.PingResponse;
 import ru.romanow.core.rest.client.model.SimpleResponse;
-
+import ru.romanow.core.rest.client.warmup.WarmUp;
+import ru.romanow.core.rest.client.warmup.WarmUpResult;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static org.junit.Assert.*;
@@ -40,6 +67,11 @@ public class RestClientTest {
         restClient = new RestClient();
     }
 
+    @After
+    public void cleanup() throws IOException {
+        restClient.close();
+    }
+
     @Test
     public void testGetSuccess() {
         final String url = format("http://localhost:%d/%s", port, PING);
@@ -111,6 +143,19 @@ public class RestClientTest {
         }
     }
 
+    @Test
+    public void testStacklessClientError() throws IOException {
+        final String url = format("http://localhost:%d/%s", port, BAD_REQUEST_ERROR_BODY);
+        try (RestClient client = RestClient.builder().stacklessExceptions(true).build()) {
+            client.get(url, Void.class).execute();
+            fail("Client error expected");
+        } catch (HttpRestClientException exception) {
+            assertEquals(HttpStatus.SC_BAD_REQUEST, exception.getResponseStatus());
+            assertEquals(toJson(new SimpleResponse("Bad Request")), exception.getBody());
+            assertEquals(0, exception.getStackTrace().length);
+        }
+    }
+
     @Test
     public void testClientErrorWithBody() {
         final String url = format("http://localhost:%d/%s", port, BAD_REQUEST_ERROR_BODY);
@@ -138,6 +183,22 @@ public class RestClientTest {
         }
     }
 
+    @Test
+    public void testClientErrorWithTypedBody() {
+        final String url = format("http://localhost:%d/%s", port, BAD_REQUEST_ERROR_BODY);
+        try {
+            restClient.get(url, Void.class)
+                      .commonErrorResponseClass(SimpleResponse.class)
+                      .execute();
+            fail("Client error expected");
+        } catch (HttpRestClientException exception) {
+            final SimpleResponse body = exception.getBody(SimpleResponse.class);
+            assertEquals(new SimpleResponse("Bad Request"), body);
+            assertSame(body, exception.getBody());
+            assertEquals(toJson(new SimpleResponse("Bad Request")), exception.getBody(String.class));
+        }
+    }
+
     @Test
     public void testServerErrorSuppress() {
         final String url = format("http://localhost:%d/%s", port, BAD_GATEWAY_ERROR);
@@ -273,4 +334,371 @@ public class RestClientTest {
         assertTrue(response.isPresent());
         assertEquals("OK", response.get().getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadBalancerRetryOnAnotherHost() throws IOException {
+        final LoadBalancer loadBalancer = LoadBalancer
+                .builder()
+                .endpoints("http://localhost:5000", format("http://localhost:%d", port))
+                .strategy(new RoundRobinStrategy())
+                .build();
+        try (RestClient balancedClient = RestClient.builder().loadBalancer(loadBalancer).build()) {
+            for (int i = 0; i < 2; i++) {
+                final Optional<PingResponse> response =
+                        balancedClient.get(PING, PingResponse.class)
+                                      .retryConnectionError(true)
+                                      .retryCount(1)
+                                      .execute();
+
+                assertTrue(response.isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void testLoadBalancedStreamLeasedUntilClosed() throws IOException {
+        final LoadBalancer loadBalancer = LoadBalancer
+                .builder()
+                .endpoints(format("http://localhost:%d", port))
+                .build();
+        final Endpoint endpoint = loadBalancer.getEndpoints().get(0);
+        try (RestClient balancedClient = RestClient.builder().loadBalancer(loadBalancer).build()) {
+            try (Stream<SimpleResponse> stream =
+                         balancedClient.get(STREAM_ARRAY, Void.class).executeStream(SimpleResponse.class)) {
+                assertEquals(1, endpoint.getOutstanding());
+                assertEquals(STREAM_SIZE, stream.count());
+            }
+            assertEquals(0, endpoint.getOutstanding());
+            assertTrue(endpoint.getLatency() > 0);
+        }
+    }
+
+    @Test
+    public void testStreamArray() {
+        final String url = format("http://localhost:%d/%s", port, STREAM_ARRAY);
+        try (Stream<SimpleResponse> stream = restClient.get(url, Void.class).executeStream(SimpleResponse.class)) {
+            final long[] counter = { 0 };
+            stream.forEach(r -> assertEquals(String.valueOf(counter[0]++), r.getMessage()));
+            assertEquals(STREAM_SIZE, counter[0]);
+        }
+    }
+
+    @Test
+    public void testStreamNdjson() {
+        final String url = format("http://localhost:%d/%s", port, STREAM_NDJSON);
+        try (Stream<SimpleResponse> stream = restClient.get(url, Void.class).executeStream(SimpleResponse.class)) {
+            assertEquals("10", stream.skip(10).findFirst().map(SimpleResponse::getMessage).orElse(null));
+        }
+    }
+
+    @Test(expected = HttpRestServerException.class)
+    public void testStreamServerError() {
+        final String url = format("http://localhost:%d/%s", port, BAD_GATEWAY_ERROR);
+        restClient.get(url, Void.class).executeStream(SimpleResponse.class);
+    }
+
+    @Test(expected = HttpRestResponseTooLargeException.class)
+    public void testResponseTooLarge() throws IOException {
+        final String url = format("http://localhost:%d/%s", port, STREAM_ARRAY);
+        try (RestClient client = RestClient.builder().maxResponseSize(16 * 1024).build()) {
+            client.get(url, String.class).execute();
+        }
+    }
+
+    @Test(expected = CustomException.class)
+    public void testResponseTooLargeMapping() {
+        final String url = format("http://localhost:%d/%s", port, STREAM_NDJSON);
+        restClient.get(url, String.class)
+                  .maxResponseSize(1024)
+                  .responseSizeExceptionMapper((ex) -> new CustomException(ex.getMessage()))
+                  .execute();
+    }
+
+    @Test
+    public void testResponseTooLargeStream() {
+        final String url = format("http://localhost:%d/%s", port, STREAM_ARRAY);
+        try (Stream<SimpleResponse> stream = restClient.get(url, Void.class)
+                                                       .maxResponseSize(16 * 1024)
+                                                       .executeStream(SimpleResponse.class)) {
+            final Iterator<SimpleResponse> iterator = stream.iterator();
+            assertTrue(iterator.hasNext());
+            iterator.forEachRemaining(r -> {});
+            fail();
+        } catch (HttpRestResponseTooLargeException exception) {
+            assertEquals(16 * 1024, exception.getMaxSize());
+        }
+    }
+
+    @Test
+    public void testUploadFile() throws IOException {
+        final Path file = Files.createTempFile("upload", ".bin");
+        try {
+            Files.write(file, new byte[5 * 1024 * 1024]);
+            final AtomicLong progress = new AtomicLong();
+            final String url = format("http://localhost:%d/%s", port, UPLOAD);
+            final Optional<SimpleResponse> response =
+                    restClient.post(url, SimpleResponse.class)
+                              .requestBody(file, "application/octet-stream")
+                              .progressListener((transferred, total) -> progress.set(transferred))
+                              .execute();
+
+            assertTrue(response.isPresent());
+            assertEquals(Files.size(file) + ":null", response.get().getMessage());
+            assertEquals(Files.size(file), progress.get());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testUploadStreamChunked() {
+        final String url = format("http://localhost:%d/%s", port, UPLOAD);
+        final Optional<SimpleResponse> response =
+                restClient.post(url, SimpleResponse.class)
+                          .requestBody(new ByteArrayInputStream(new byte[100_000]), -1, "application/octet-stream")
+                          .execute();
+
+        assertTrue(response.isPresent());
+        assertEquals("100000:chunked", response.get().getMessage());
+    }
+
+    @Test
+    public void testUploadMultipart() throws IOException {
+        final Path file = Files.createTempFile("upload", ".txt");
+        try {
+            Files.write(file, new byte[300_000]);
+            final String url = format("http://localhost:%d/%s", port, UPLOAD_MULTIPART);
+            final MultipartBody multipart = MultipartBody
+                    .builder()
+                    .addText("name", "document")
+                    .addFile("file", file)
+                    .build();
+            final Optional<SimpleResponse> response =
+                    restClient.post(url, SimpleResponse.class)
+                              .multipart(multipart)
+                              .execute();
+
+            assertTrue(response.isPresent());
+            assertEquals("document:" + file.getFileName() + ":300000", response.get().getMessage());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDownloadToFile() throws IOException, NoSuchAlgorithmException {
+        final Path target = Files.createTempDirectory("download").resolve("content.bin");
+        try {
+            final String url = format("http://localhost:%d/%s", port, DOWNLOAD);
+            final Optional<FileMetadata> metadata = restClient.get(url, Void.class).executeToFile(target);
+
+            final byte[] expected = downloadContent();
+            assertTrue(metadata.isPresent());
+            assertEquals(target.toAbsolutePath(), metadata.get().getPath());
+            assertEquals(DOWNLOAD_SIZE, metadata.get().getSize());
+            assertEquals("application/octet-stream", metadata.get().getContentType());
+            assertEquals(toHex(MessageDigest.getInstance("SHA-256").digest(expected)), metadata.get().getDigest());
+            assertArrayEquals(expected, Files.readAllBytes(target));
+            assertEquals(1, Files.list(target.getParent()).count());
+        } finally {
+            Files.deleteIfExists(target);
+            Files.delete(target.getParent());
+        }
+    }
+
+    @Test
+    public void testDownloadToFileWithoutDigest() throws IOException {
+        final Path target = Files.createTempDirectory("download").resolve("content.bin");
+        try {
+            final String url = format("http://localhost:%d/%s", port, DOWNLOAD);
+            final Optional<FileMetadata> metadata = restClient.get(url, Void.class).executeToFile(target, null);
+
+            assertTrue(metadata.isPresent());
+            assertNull(metadata.get().getDigest());
+            assertArrayEquals(downloadContent(), Files.readAllBytes(target));
+        } finally {
+            Files.deleteIfExists(target);
+            Files.delete(target.getParent());
+        }
+    }
+
+    @Test
+    public void testDownloadToFileServerError() throws IOException {
+        final Path directory = Files.createTempDirectory("download");
+        try {
+            final String url = format("http://localhost:%d/%s", port, BAD_GATEWAY_ERROR);
+            restClient.get(url, Void.class).executeToFile(directory.resolve("content.bin"));
+            fail();
+        } catch (HttpRestServerException exception) {
+            assertEquals(0, Files.list(directory).count());
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testConnectionReuse() {
+        final String url = format("http://localhost:%d/%s", port, PING);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(restClient.get(url, PingResponse.class).execute().isPresent());
+        }
+
+        assertEquals(1, restClient.getConnectionStats().getAvailable());
+        assertEquals(0, restClient.getConnectionStats().getLeased());
+    }
+
+    @Test
+    public void testAdmissionRejected() throws Exception {
+        final String timeoutUrl = format("http://localhost:%d/%s", port, TIMEOUT);
+        final String url = format("http://localhost:%d/%s", port, PING);
+        final AdmissionController admissionController = AdmissionController
+                .builder()
+                .maxConcurrentRequests(1)
+                .maxQueueSize(0)
+                .build();
+        try (RestClient client = RestClient.builder().admissionController(admissionController).build()) {
+            final CompletableFuture<Optional<Void>> slow = CompletableFuture.supplyAsync(
+                    () -> client.get(timeoutUrl, Void.class).requestProcessingTimeout(1, TimeUnit.SECONDS)
+                                .processTimeoutExceptions(false).execute());
+            while (client.getAdmissionStats().getAdmitted() == 0) {
+                Thread.sleep(10);
+            }
+
+            try {
+                client.get(url, PingResponse.class).execute();
+                fail("Request must be rejected");
+            } catch (HttpRestRejectedException exception) {
+                assertEquals(HttpRestRejectedException.Reason.QUEUE_FULL, exception.getReason());
+            }
+
+            slow.get(5, TimeUnit.SECONDS);
+            assertTrue(client.get(url, PingResponse.class).execute().isPresent());
+            assertEquals(1, client.getAdmissionStats().getRejected());
+        }
+    }
+
+    @Test
+    public void testAdmissionPerBalancedHost() throws Exception {
+        final LoadBalancer loadBalancer = LoadBalancer
+                .builder()
+                .endpoints(format("http://localhost:%d", port), format("http://127.0.0.1:%d", port))
+                .strategy(new RoundRobinStrategy())
+                .build();
+        final AdmissionController admissionController = AdmissionController
+                .builder()
+                .maxConcurrentRequests(1)
+                .maxQueueSize(0)
+                .perHost(true)
+                .build();
+        try (RestClient client = RestClient.builder()
+                                           .loadBalancer(loadBalancer)
+                                           .admissionController(admissionController)
+                                           .build()) {
+            final CompletableFuture<Optional<Void>> slow = CompletableFuture.supplyAsync(
+                    () -> client.get(TIMEOUT, Void.class).requestProcessingTimeout(1, TimeUnit.SECONDS)
+                                .processTimeoutExceptions(false).execute());
+            while (client.getAdmissionStats().getAdmitted() == 0) {
+                Thread.sleep(10);
+            }
+
+            // second host has its own limit
+            assertTrue(client.get(PING, PingResponse.class).execute().isPresent());
+            slow.get(5, TimeUnit.SECONDS);
+            assertEquals(0, client.getAdmissionStats().getRejected());
+        }
+    }
+
+    @Test
+    public void testWarmUp() {
+        final String url = format("http://localhost:%d/%s", port, PING);
+        final WarmUpResult result = restClient.warmUp(WarmUp.builder()
+                                                            .connections(url, 3)
+                                                            .classes(PingResponse.class, SimpleResponse.class)
+                                                            .build());
+
+        assertEquals(3, result.getConnections());
+        assertEquals(0, result.getFailures());
+        assertEquals(3, restClient.getConnectionStats().getAvailable());
+
+        assertTrue(restClient.get(url, PingResponse.class).execute().isPresent());
+        assertEquals(3, restClient.getConnectionStats().getAvailable());
+    }
+
+    @Test
+    public void testIdleConnectionEviction() throws IOException, InterruptedException {
+        final String url = format("http://localhost:%d/%s", port, PING);
+        try (RestClient client = RestClient.builder().evictIdleConnections(200, TimeUnit.MILLISECONDS).build()) {
+            assertTrue(client.get(url, PingResponse.class).execute().isPresent());
+            assertEquals(1, client.getConnectionStats().getAvailable());
+
+            Thread.sleep(1000);
+            assertEquals(0, client.getConnectionStats().getAvailable());
+        }
+    }
+
+    @Test
+    public void testStaleConnectionRetry() throws Exception {
+        final AtomicInteger connections = new AtomicInteger();
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread acceptor = new Thread(() -> {
+                for (int i = 0; i < 2; i++) {
+                    try (Socket socket = server.accept()) {
+                        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                        String line;
+                        while ((line = reader.readLine()) != null && !line.isEmpty()) {}
+                        // first connection is closed without response like stale keep-alive connection
+                        if (connections.incrementAndGet() > 1) {
+                            final String body = toJson(new PingResponse("OK"));
+                            socket.getOutputStream().write(
+                                    ("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " +
+                                            body.length() + "\r\n\r\n" + body).getBytes(StandardCharsets.UTF_8));
+                            socket.getOutputStream().flush();
+                        }
+                    } catch (IOException ignored) {}
+                }
+            });
+            acceptor.start();
+
+            final String url = format("http://localhost:%d/ping", server.getLocalPort());
+            final Optional<PingResponse> response = restClient.get(url, PingResponse.class).execute();
+            acceptor.join(5000);
+
+            assertTrue(response.isPresent());
+            assertEquals(2, connections.get());
+        }
+    }
+
+    @Test
+    public void testConnectionClosedWithoutResponse() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            // every connection is closed without response, resent request fails too
+            final Thread acceptor = new Thread(() -> {
+                for (int i = 0; i < 2; i++) {
+                    try (Socket socket = server.accept()) {
+                        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                        String line;
+                        while ((line = reader.readLine()) != null && !line.isEmpty()) {}
+                    } catch (IOException ignored) {}
+                }
+            });
+            acceptor.start();
+
+            final String url = format("http://localhost:%d/ping", server.getLocalPort());
+            try {
+                restClient.get(url, PingResponse.class).execute();
+                fail();
+            } catch (HttpRestResourceException exception) {
+                // ConnectionClosedException is connection error
+            }
+            acceptor.join(5000);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package ru.romanow.core.rest.client.admission;
+
+import org.junit.Test;
+import ru.romanow.core.rest.client.admission.AdmissionController.AdmissionPermit;
+import ru.romanow.core.rest.client.exception.HttpRestRejectedException;
+import ru.romanow.core.rest.client.exception.HttpRestRejectedException.Reason;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdmissionControllerTest {
+    private static final URI FIRST_HOST = URI.create("http://first:8080/api");
+    private static final URI SECOND_HOST = URI.create("http://second:8080/api");
+
+    @Test
+    public void testQueueFull() {
+        final AdmissionController controller = AdmissionController
+                .builder()
+                .maxConcurrentRequests(1)
+                .maxQueueSize(0)
+                .build();
+
+        final AdmissionPermit permit = controller.acquire(FIRST_HOST, deadline(1000));
+        assertEquals(Reason.QUEUE_FULL, reject(controller, FIRST_HOST, deadline(1000)));
+
+        // other host has own limit
+        controller.acquire(SECOND_HOST, deadline(1000)).release();
+
+        permit.release();
+        permit.release();
+        controller.acquire(FIRST_HOST, deadline(1000)).release();
+
+        final AdmissionStats stats = controller.getStats();
+        assertEquals(3, stats.getAdmitted());
+        assertEquals(1, stats.getRejected());
+    }
+
+    @Test
+    public void testQueueTimeout() {
+        final AdmissionController controller = AdmissionController
+                .builder()
+                .maxConcurrentRequests(1)
+                .maxQueueWait(50, TimeUnit.MILLISECONDS)
+                .build();
+
+        controller.acquire(FIRST_HOST, deadline(1000));
+        assertEquals(Reason.QUEUE_TIMEOUT, reject(controller, FIRST_HOST, deadline(1000)));
+        assertEquals(Reason.DEADLINE_EXPIRED, reject(controller, FIRST_HOST, deadline(20)));
+
+        final AdmissionStats stats = controller.getStats();
+        assertEquals(2, stats.getQueued());
+        assertEquals(1, stats.getQueueTimeouts());
+        assertEquals(1, stats.getExpired());
+    }
+
+    @Test
+    public void testQueuedRequestAdmitted() throws Exception {
+        final AdmissionController controller = AdmissionController
+                .builder()
+                .maxConcurrentRequests(1)
+                .perHost(false)
+                .build();
+
+        final AdmissionPermit permit = controller.acquire(FIRST_HOST, deadline(1000));
+        final CompletableFuture<AdmissionPermit> queued =
+                CompletableFuture.supplyAsync(() -> controller.acquire(SECOND_HOST, deadline(1000)));
+        while (controller.getStats().getQueued() == 0) {
+            Thread.sleep(1);
+        }
+        assertFalse(queued.isDone());
+
+        permit.release();
+        queued.get(1, TimeUnit.SECONDS).release();
+        assertEquals(2, controller.getStats().getAdmitted());
+    }
+
+    @Test
+    public void testPriority() throws Exception {
+        final AdmissionController controller = AdmissionController
+                .builder()
+                .maxConcurrentRequests(1)
+                .maxStarvation(1, TimeUnit.MINUTES)
+                .build();
+
+        final AdmissionPermit permit = controller.acquire(FIRST_HOST, deadline(1000));
+        final CompletableFuture<AdmissionPermit> low = enqueue(controller, Priority.LOW, 1);
+        final CompletableFuture<AdmissionPermit> high = enqueue(controller, Priority.HIGH, 2);
+
+        permit.release();
+        final AdmissionPermit highPermit = high.get(1, TimeUnit.SECONDS);
+        assertFalse(low.isDone());
+        highPermit.release();
+        low.get(1, TimeUnit.SECONDS).release();
+    }
+
+    @Test
+    public void testStarvation() throws Exception {
+        final AdmissionController controller = AdmissionController
+                .builder()
+                .maxConcurrentRequests(1)
+                .maxStarvation(50, TimeUnit.MILLISECONDS)
+                .build();
+
+        final AdmissionPermit permit = controller.acquire(FIRST_HOST, deadline(1000));
+        final CompletableFuture<AdmissionPermit> low = enqueue(controller, Priority.LOW, 1);
+        Thread.sleep(100);
+        final CompletableFuture<AdmissionPermit> high = enqueue(controller, Priority.HIGH, 2);
+
+        permit.release();
+        low.get(1, TimeUnit.SECONDS);
+        assertFalse(high.isDone());
+        low.get().release();
+        high.get(1, TimeUnit.SECONDS).release();
+    }
+
+    private CompletableFuture<AdmissionPermit> enqueue(AdmissionController controller, Priority priority, int queued)
+            throws InterruptedException {
+        final CompletableFuture<AdmissionPermit> future =
+                CompletableFuture.supplyAsync(() -> controller.acquire(FIRST_HOST, deadline(1000), priority));
+        while (controller.getStats().getQueued() < queued) {
+            Thread.sleep(1);
+        }
+        return future;
+    }
+
+    private Reason reject(AdmissionController controller, URI uri, long deadline) {
+        try {
+            controller.acquire(uri, deadline);
+            fail("Request must be rejected");
+            return null;
+        } catch (HttpRestRejectedException exception) {
+            return exception.getReason();
+        }
+    }
+
+    private long deadline(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.romanow.core.rest.client.balancer;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.*;
+
+public class LoadBalancerTest {
+
+    @Test
+    public void testRoundRobin() {
+        final LoadBalancer loadBalancer = LoadBalancer
+                .builder()
+                .endpoints("http://a", "http://b", "http://c")
+                .strategy(new RoundRobinStrategy())
+                .build();
+
+        final Set<String> hosts = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            hosts.add(loadBalancer.choose(emptySet()).getBaseUrl());
+        }
+        assertEquals(new HashSet<>(asList("http://a", "http://b", "http://c")), hosts);
+    }
+
+    @Test
+    public void testPowerOfTwoChoicesPrefersLessLoaded() {
+        final LoadBalancer loadBalancer = LoadBalancer
+                .builder()
+                .endpoints("http://a", "http://b")
+                .strategy(new PowerOfTwoChoicesStrategy())
+                .build();
+
+        final EndpointLease busy = loadBalancer.acquire(emptySet());
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals(busy.getEndpoint(), loadBalancer.choose(emptySet()));
+        }
+        busy.release();
+        assertEquals(0, busy.getEndpoint().getOutstanding());
+    }
+
+    @Test
+    public void testExcludedEndpointNotChosen() {
+        final LoadBalancer loadBalancer = LoadBalancer
+                .builder()
+                .endpoints("http://a", "http://b")
+                .strategy(new LatencyWeightedStrategy())
+                .build();
+
+        final Endpoint first = loadBalancer.choose(emptySet());
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals(first, loadBalancer.choose(singleton(first)));
+        }
+    }
+
+    @Test
+    public void testOutlierEjection() {
+        final LoadBalancer loadBalancer = LoadBalancer
+                .builder()
+                .endpoints("http://a", "http://b")
+                .strategy(new RoundRobinStrategy())
+                .failureThreshold(2)
+                .ejectionTime(1, 10, TimeUnit.MINUTES)
+                .build();
+
+        final Endpoint failed = loadBalancer.getEndpoints().get(0);
+        for (int i = 0; i < 2; i++) {
+            final EndpointLease lease = loadBalancer.acquire(singleton(loadBalancer.getEndpoints().get(1)));
+            assertEquals(failed, lease.getEndpoint());
+            lease.failure();
+        }
+
+        assertTrue(failed.isEjected(System.nanoTime()));
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals(failed, loadBalancer.choose(emptySet()));
+        }
+
+        // second endpoint can't be ejected, max ejection percent is 50% by default
+        final Endpoint other = loadBalancer.getEndpoints().get(1);
+        for (int i = 0; i < 2; i++) {
+            loadBalancer.acquire(emptySet()).failure();
+        }
+        assertFalse(other.isEjected(System.nanoTime()));
+    }
+
+    @Test
+    public void testRefreshKeepsEndpointState() throws InterruptedException {
+        final AtomicReference<List<String>> urls = new AtomicReference<>(asList("http://a", "http://b"));
+        final LoadBalancer loadBalancer = LoadBalancer
+                .builder()
+                .endpoints(urls::get, 1, TimeUnit.MILLISECONDS)
+                .build();
+
+        final Endpoint endpoint = loadBalancer.getEndpoints().get(1);
+        urls.set(asList("http://b/", "http://c"));
+        Thread.sleep(5);
+
+        final List<Endpoint> endpoints = loadBalancer.getEndpoints();
+        assertEquals(2, endpoints.size());
+        assertSame(endpoint, endpoints.get(0));
+        assertEquals("http://c", endpoints.get(1).getBaseUrl());
+    }
+}
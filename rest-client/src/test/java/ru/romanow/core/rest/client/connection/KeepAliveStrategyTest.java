@@ -0,0 +1,65 @@
+package ru.romanow.core.rest.client.connection;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeepAliveStrategyTest {
+
+    @Test
+    public void testServerKeepAlive() {
+        final KeepAliveStrategy strategy = KeepAliveStrategy.builder().build();
+
+        assertEquals(5000, strategy.getKeepAliveDuration(response("timeout=5, max=100"), context("a", 80)));
+        assertEquals(15000, strategy.getKeepAliveDuration(response(null), context("a", 80)));
+    }
+
+    @Test
+    public void testDefaultKeepAlive() {
+        final KeepAliveStrategy strategy = KeepAliveStrategy
+                .builder()
+                .defaultKeepAlive(3, TimeUnit.SECONDS)
+                .build();
+
+        assertEquals(3000, strategy.getKeepAliveDuration(response(null), context("a", 80)));
+        assertEquals(60000, strategy.getKeepAliveDuration(response("timeout=60"), context("a", 80)));
+    }
+
+    @Test
+    public void testMaxKeepAlive() {
+        final KeepAliveStrategy strategy = KeepAliveStrategy
+                .builder()
+                .maxKeepAlive(10, TimeUnit.SECONDS)
+                .maxKeepAlive("a", 2, TimeUnit.SECONDS)
+                .maxKeepAlive("b:8080", 1, TimeUnit.SECONDS)
+                .build();
+
+        assertEquals(10000, strategy.getKeepAliveDuration(response("timeout=60"), context("c", 80)));
+        assertEquals(2000, strategy.getKeepAliveDuration(response("timeout=60"), context("a", 80)));
+        assertEquals(1000, strategy.getKeepAliveDuration(response("timeout=60"), context("b", 8080)));
+        assertEquals(10000, strategy.getKeepAliveDuration(response("timeout=60"), context("b", 8081)));
+    }
+
+    private HttpResponse response(String keepAlive) {
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        if (keepAlive != null) {
+            response.addHeader("Keep-Alive", keepAlive);
+        }
+        return response;
+    }
+
+    private HttpContext context(String host, int port) {
+        final HttpContext context = new BasicHttpContext();
+        context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, new HttpHost(host, port));
+        return context;
+    }
+}
@@ -0,0 +1,138 @@
+package ru.romanow.core.rest.client.download;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import ru.romanow.core.rest.client.TestRestServerConfiguration;
+import ru.romanow.core.rest.client.exception.HttpRestServerException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+import static org.junit.Assert.*;
+import static ru.romanow.core.rest.client.web.AuthController.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = TestRestServerConfiguration.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class RangedDownloaderTest {
+    private static final int SEGMENT_SIZE = 512 * 1024;
+    private static final int SEGMENTS = DOWNLOAD_SIZE / SEGMENT_SIZE + 1;
+
+    @LocalServerPort
+    private int port;
+
+    private Path directory;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("download");
+        rangedFailures.set(0);
+        rangedRequests.set(0);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testDownload() throws IOException {
+        final Path target = directory.resolve("content.bin");
+        try (RangedDownloader downloader = RangedDownloader
+                .builder()
+                .segmentSize(SEGMENT_SIZE)
+                .parallelism(3)
+                .digestAlgorithm("MD5")
+                .build()) {
+            final FileMetadata metadata = downloader.download(url(DOWNLOAD_RANGED), target);
+
+            assertEquals(DOWNLOAD_SIZE, metadata.getSize());
+            assertNotNull(metadata.getDigest());
+            assertArrayEquals(downloadContent(), Files.readAllBytes(target));
+            assertEquals(SEGMENTS, rangedRequests.get());
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        }
+    }
+
+    @Test
+    public void testDownloadWithoutRanges() throws IOException {
+        final Path target = directory.resolve("content.bin");
+        try (RangedDownloader downloader = RangedDownloader.builder().segmentSize(SEGMENT_SIZE).build()) {
+            final FileMetadata metadata = downloader.download(url(DOWNLOAD), target);
+
+            assertEquals(DOWNLOAD_SIZE, metadata.getSize());
+            assertArrayEquals(downloadContent(), Files.readAllBytes(target));
+        }
+    }
+
+    @Test
+    public void testDownloadWithoutHead() throws IOException {
+        final Path target = directory.resolve("content.bin");
+        try (RangedDownloader downloader = RangedDownloader.builder().segmentSize(SEGMENT_SIZE).build()) {
+            final FileMetadata metadata = downloader.download(url(DOWNLOAD_NO_HEAD), target);
+
+            assertEquals(DOWNLOAD_SIZE, metadata.getSize());
+            assertArrayEquals(downloadContent(), Files.readAllBytes(target));
+            // first byte probe and segments
+            assertEquals(SEGMENTS + 1, rangedRequests.get());
+        }
+    }
+
+    @Test
+    public void testSegmentRetry() throws IOException {
+        final Path target = directory.resolve("content.bin");
+        rangedFailureOffset = 2 * SEGMENT_SIZE;
+        rangedFailures.set(2);
+        try (RangedDownloader downloader = RangedDownloader.builder().segmentSize(SEGMENT_SIZE).build()) {
+            downloader.download(url(DOWNLOAD_RANGED), target);
+
+            assertArrayEquals(downloadContent(), Files.readAllBytes(target));
+            assertEquals(SEGMENTS + 2, rangedRequests.get());
+        }
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        final Path target = directory.resolve("content.bin");
+        rangedFailureOffset = 3 * SEGMENT_SIZE;
+        rangedFailures.set(1);
+        try (RangedDownloader downloader = RangedDownloader
+                .builder()
+                .segmentSize(SEGMENT_SIZE)
+                .segmentRetryCount(0)
+                .build()) {
+            try {
+                downloader.download(url(DOWNLOAD_RANGED), target);
+                fail();
+            } catch (HttpRestServerException exception) {
+                assertFalse(Files.exists(target));
+                assertTrue(Files.exists(directory.resolve("content.bin.part.state")));
+            }
+
+            rangedRequests.set(0);
+            downloader.download(url(DOWNLOAD_RANGED), target);
+
+            assertArrayEquals(downloadContent(), Files.readAllBytes(target));
+            assertEquals(1, rangedRequests.get());
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        }
+    }
+
+    private String url(String path) {
+        return format("http://localhost:%d%s", port, path);
+    }
+}
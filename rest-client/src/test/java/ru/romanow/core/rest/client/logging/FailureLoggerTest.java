@@ -0,0 +1,76 @@
+package ru.romanow.core.rest.client.logging;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class FailureLoggerTest {
+
+    @Test
+    public void testSummary() {
+        final Logger logger = mock(Logger.class);
+        when(logger.isWarnEnabled()).thenReturn(true);
+        try (FailureLogger failureLogger = new FailureLogger(logger, 1, TimeUnit.HOURS)) {
+            for (int i = 0; i < 100; i++) {
+                failureLogger.serverError("http://host:8080/api/v1/users?id=" + i, 503, "Service Unavailable");
+            }
+            failureLogger.timeout("http://host:8080/api/v1/users");
+
+            verify(logger).warn(eq("Request to '{}' failed with {}: {}:{}"),
+                                eq("http://host:8080/api/v1/users?id=0"), eq("server error"), eq(503), eq("Service Unavailable"));
+            verify(logger).warn(eq("Request to '{}' failed with {}"), eq("http://host:8080/api/v1/users"), eq("timeout"));
+
+            failureLogger.flush();
+            verify(logger).warn(eq("{} x {} from '{}' in the last {} sec"), eq(100L), any(), eq("host:8080"), eq(3600L));
+            verifyNoMoreInteractions(ignoreStubs(logger));
+
+            // next interval starts with logged failure again
+            failureLogger.serverError("http://host:8080/api/v1/users?id=100", 503, "Service Unavailable");
+            verify(logger).warn(eq("Request to '{}' failed with {}: {}:{}"),
+                                eq("http://host:8080/api/v1/users?id=100"), eq("server error"), eq(503), eq("Service Unavailable"));
+        }
+    }
+
+    @Test
+    public void testClientRejections() {
+        final Logger logger = mock(Logger.class);
+        when(logger.isWarnEnabled()).thenReturn(true);
+        try (FailureLogger failureLogger = new FailureLogger(logger, 1, TimeUnit.HOURS)) {
+            for (int i = 0; i < 10; i++) {
+                failureLogger.rateLimited("http://host/api/v1/users");
+            }
+            failureLogger.responseTooLarge("http://host/api/v1/users", "Response size 200 exceeds limit 100 bytes");
+
+            verify(logger).warn(eq("Request to '{}' failed with {}"), eq("http://host/api/v1/users"), eq("client rate limit"));
+            verify(logger).warn(eq("Request to '{}' failed with {}: {}"), eq("http://host/api/v1/users"),
+                                eq("response size limit"), eq("Response size 200 exceeds limit 100 bytes"));
+
+            failureLogger.flush();
+            verify(logger).warn(eq("{} x {} from '{}' in the last {} sec"), eq(10L), any(), eq("host"), eq(3600L));
+            verifyNoMoreInteractions(ignoreStubs(logger));
+        }
+    }
+
+    @Test
+    public void testWarnDisabled() {
+        final Logger logger = mock(Logger.class);
+        try (FailureLogger failureLogger = new FailureLogger(logger, 0, TimeUnit.SECONDS)) {
+            failureLogger.clientError("http://host/api", 404, "Not Found");
+            failureLogger.connectionError("http://host/api");
+        }
+        verify(logger, times(2)).isWarnEnabled();
+        verifyNoMoreInteractions(logger);
+    }
+
+    @Test
+    public void testHost() {
+        assertEquals("host:8080", FailureLogger.host("http://host:8080/api?id=1"));
+        assertEquals("host", FailureLogger.host("https://host"));
+        assertEquals("/api/v1/ping", FailureLogger.host("/api/v1/ping"));
+    }
+}
@@ -0,0 +1,105 @@
+package ru.romanow.core.rest.client.ratelimit;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+
+    @Test
+    public void testBurstThenWait() {
+        final RateLimiter rateLimiter = new RateLimiter(10, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.reserve(0, TimeUnit.MILLISECONDS));
+        }
+        assertEquals(-1, rateLimiter.reserve(0, TimeUnit.MILLISECONDS));
+
+        final long wait = rateLimiter.reserve(1, TimeUnit.SECONDS);
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testUnlimited() {
+        final RateLimiter rateLimiter = new RateLimiter(0, 0);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, rateLimiter.reserve(0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void testRetryAfter() {
+        final RateLimiter rateLimiter = new RateLimiter(0, 0);
+        final Map<String, String> headers = new HashMap<>();
+        headers.put(RateLimiter.RETRY_AFTER, "10");
+        rateLimiter.onResponse(429, headers::get);
+
+        assertEquals(-1, rateLimiter.reserve(1, TimeUnit.SECONDS));
+        assertTrue(rateLimiter.getWaitTime() > TimeUnit.SECONDS.toNanos(9));
+    }
+
+    @Test
+    public void testRateLimitRemaining() {
+        final RateLimiter rateLimiter = new RateLimiter(0, 0);
+        final Map<String, String> headers = new HashMap<>();
+        headers.put(RateLimiter.RATE_LIMIT_REMAINING, "1");
+        headers.put(RateLimiter.RATE_LIMIT_RESET, "5");
+        rateLimiter.onResponse(200, headers::get);
+        assertEquals(0, rateLimiter.getWaitTime());
+
+        headers.put(RateLimiter.RATE_LIMIT_REMAINING, "0");
+        rateLimiter.onResponse(200, headers::get);
+        assertTrue(rateLimiter.getWaitTime() > TimeUnit.SECONDS.toNanos(4));
+    }
+
+    @Test
+    public void testRegistryKeys() {
+        final RateLimiterRegistry registry = RateLimiterRegistry
+                .builder()
+                .limit("localhost:8080", 1, 1)
+                .build();
+
+        final URI uri = URI.create("http://localhost:8080/ping?a=b");
+        final RateLimiter rateLimiter = registry.getRateLimiter(uri, "http://localhost:8080/ping");
+        assertSame(rateLimiter, registry.getRateLimiter(URI.create("http://localhost:8080/auth"), "/auth"));
+        assertNotSame(rateLimiter, registry.getRateLimiter(URI.create("http://localhost/ping"), "/ping"));
+
+        assertEquals(0, rateLimiter.reserve(0, TimeUnit.MILLISECONDS));
+        assertEquals(-1, rateLimiter.reserve(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRegistryKeyWithoutLimit() {
+        final RateLimiterRegistry registry = RateLimiterRegistry.builder().build();
+        final URI uri = URI.create("http://localhost:8080/ping");
+        assertNull(registry.getRateLimiter(uri, "/ping"));
+        assertEquals(0, registry.size());
+
+        // limiter is created only when server asks to slow down
+        final Map<String, String> headers = new HashMap<>();
+        headers.put(RateLimiter.RETRY_AFTER, "10");
+        registry.onResponse(uri, "/ping", 200, headers::get);
+        assertEquals(0, registry.size());
+        registry.onResponse(uri, "/ping", 429, headers::get);
+        assertEquals(-1, registry.getRateLimiter(uri, "/ping").reserve(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRegistryIdleLimitersRemoved() {
+        final RateLimiterRegistry registry = RateLimiterRegistry
+                .builder()
+                .keyType(RateLimiterRegistry.KeyType.URL)
+                .defaultLimit(1000, 10)
+                .build();
+
+        for (int i = 0; i < 100_000; i++) {
+            final String url = "http://localhost:8080/users/" + i;
+            assertEquals(0, registry.getRateLimiter(URI.create(url), url).reserve(0, TimeUnit.MILLISECONDS));
+        }
+        assertTrue(registry.size() < 100_000);
+    }
+}
@@ -0,0 +1,181 @@
+package ru.romanow.core.rest.client.transport;
+
+import org.junit.After;
+import org.junit.Test;
+import ru.romanow.core.rest.client.RestClient;
+import ru.romanow.core.rest.client.exception.HttpRestClientException;
+import ru.romanow.core.rest.client.exception.HttpRestFileException;
+import ru.romanow.core.rest.client.exception.HttpRestResourceException;
+import ru.romanow.core.rest.client.exception.HttpRestTimeoutException;
+import ru.romanow.core.rest.client.model.AuthRequest;
+import ru.romanow.core.rest.client.model.PingResponse;
+import ru.romanow.core.rest.client.warmup.WarmUp;
+import ru.romanow.core.rest.client.warmup.WarmUpResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static ru.romanow.core.rest.client.utils.JsonSerializer.toJson;
+
+public class LoopbackTransportTest {
+    private static final String TEST_URL = "http://loopback/api/ping";
+
+    private RestClient restClient;
+
+    @After
+    public void close() throws IOException {
+        restClient.close();
+    }
+
+    @Test
+    public void testRequestAndResponse() {
+        final LoopbackTransport transport = new LoopbackTransport(request -> {
+            assertEquals("POST", request.getMethod());
+            assertEquals(TEST_URL, request.getUri());
+            assertEquals(toJson(new AuthRequest("login", "password")), request.getBodyAsString());
+            return LoopbackResponse.builder().json(new PingResponse("pong")).build();
+        });
+        restClient = RestClient.builder().transport(transport).build();
+
+        final PingResponse response = restClient
+                .post(TEST_URL, PingResponse.class)
+                .requestBody(new AuthRequest("login", "password"))
+                .execute()
+                .orElse(null);
+
+        assertEquals(new PingResponse("pong"), response);
+        assertEquals(1, transport.getRequestCount());
+    }
+
+    @Test
+    public void testScriptedErrors() {
+        final LoopbackTransport transport = LoopbackTransport.script(
+                LoopbackResponse.reset(),
+                LoopbackResponse.builder().status(404).body("Not found", "text/plain").build(),
+                LoopbackResponse.builder().delay(500, TimeUnit.MILLISECONDS).build());
+        restClient = RestClient.builder().transport(transport).build();
+
+        try {
+            restClient.get(TEST_URL, Void.class).execute();
+            fail();
+        } catch (HttpRestResourceException exception) {
+            // connection reset
+        }
+
+        try {
+            restClient.get(TEST_URL, Void.class).execute();
+            fail();
+        } catch (HttpRestClientException exception) {
+            assertEquals(404, exception.getResponseStatus());
+            assertEquals("Not found", exception.getBody());
+        }
+
+        try {
+            restClient.get(TEST_URL, Void.class)
+                      .requestProcessingTimeout(50, TimeUnit.MILLISECONDS)
+                      .execute();
+            fail();
+        } catch (HttpRestTimeoutException exception) {
+            // delayed response
+        }
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    @Test
+    public void testRetryConnectionError() {
+        final LoopbackTransport transport = LoopbackTransport.script(
+                LoopbackResponse.reset(),
+                LoopbackResponse.builder().json(new PingResponse("pong")).build());
+        restClient = RestClient.builder().transport(transport).build();
+
+        final PingResponse response = restClient
+                .get(TEST_URL, PingResponse.class)
+                .retryConnectionError(true)
+                .retryCount(1)
+                .execute()
+                .orElse(null);
+
+        assertEquals(new PingResponse("pong"), response);
+        assertEquals(2, transport.getRequestCount());
+    }
+
+    @Test
+    public void testOtherIOErrorNotRetried() {
+        final LoopbackTransport transport = LoopbackTransport.script(
+                LoopbackResponse.builder().failure(new IOException("Malformed chunk")).build(),
+                LoopbackResponse.builder().json(new PingResponse("pong")).build());
+        restClient = RestClient.builder().transport(transport).build();
+
+        try {
+            restClient.get(TEST_URL, PingResponse.class)
+                      .retryConnectionError(true)
+                      .retryCount(1)
+                      .execute();
+            fail();
+        } catch (RuntimeException exception) {
+            // not a network failure
+            assertFalse(exception instanceof HttpRestResourceException);
+        }
+        assertEquals(1, transport.getRequestCount());
+    }
+
+    @Test
+    public void testFileErrorNotRetried() throws IOException {
+        final LoopbackTransport transport =
+                new LoopbackTransport(LoopbackResponse.builder().body("content", "text/plain").build());
+        restClient = RestClient.builder().transport(transport).build();
+
+        final Path directory = Files.createTempDirectory("download");
+        try {
+            restClient.get(TEST_URL, Void.class)
+                      .retryConnectionError(true)
+                      .retryCount(2)
+                      .processResourceExceptions(false)
+                      .executeToFile(directory.resolve("missing").resolve("content.bin"));
+            fail();
+        } catch (HttpRestFileException exception) {
+            assertTrue(exception.getCause() instanceof NoSuchFileException);
+        } finally {
+            Files.delete(directory);
+        }
+        assertEquals(1, transport.getRequestCount());
+    }
+
+    @Test
+    public void testStreamLargeResponse() {
+        final List<PingResponse> elements = IntStream
+                .range(0, 20_000)
+                .mapToObj(i -> new PingResponse("pong-" + i))
+                .collect(Collectors.toList());
+        final LoopbackTransport transport = new LoopbackTransport(LoopbackResponse.builder().json(elements).build());
+        restClient = RestClient.builder().transport(transport).build();
+
+        try (Stream<PingResponse> stream = restClient.get(TEST_URL, Void.class).executeStream(PingResponse.class)) {
+            assertEquals(elements, stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testNoConnectionPool() {
+        final LoopbackTransport transport =
+                new LoopbackTransport(LoopbackResponse.builder().json(new PingResponse("pong")).build());
+        restClient = RestClient.builder().transport(transport).build();
+
+        final WarmUpResult result = restClient.warmUp(WarmUp.builder()
+                                                            .connections(TEST_URL, 3)
+                                                            .classes(PingResponse.class)
+                                                            .build());
+        assertEquals(0, result.getConnections());
+        assertEquals(0, result.getFailures());
+        assertEquals(0, restClient.getConnectionStats().getMax());
+        assertEquals(0, transport.getRequestCount());
+    }
+}
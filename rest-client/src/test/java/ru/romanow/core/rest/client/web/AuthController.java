@@ -1,15 +1,26 @@
 package ru.romanow.core.rest.client.web;
 
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import ru.romanow.core.rest.client.model.AuthRequest;
 import ru.romanow.core.rest.client.model.AuthResponse;
 import ru.romanow.core.rest.client.model.PingResponse;
 import ru.romanow.core.rest.client.model.SimpleResponse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @RestController
 public class AuthController {
@@ -24,6 +35,23 @@ public class AuthController {
     public static final String BAD_GATEWAY_ERROR_RETRY = "/error/server/retry";
     public static final String TIMEOUT = "/timeout";
     public static final String TIMEOUT_RETRY = "/timeout/retry";
+    public static final String STREAM_ARRAY = "/stream/array";
+    public static final String STREAM_NDJSON = "/stream/ndjson";
+    public static final int STREAM_SIZE = 10_000;
+    public static final String UPLOAD = "/upload";
+    public static final String UPLOAD_MULTIPART = "/upload/multipart";
+    public static final String DOWNLOAD = "/download";
+    public static final int DOWNLOAD_SIZE = 3 * 1024 * 1024 + 17;
+    public static final String DOWNLOAD_RANGED = "/download/ranged";
+    public static final String DOWNLOAD_NO_HEAD = "/download/no-head";
+    public static final String DOWNLOAD_ETAG = "\"v1\"";
+
+    /**
+     * Ranged download requests fail with 503 while counter is positive if range starts at this offset
+     */
+    public static final AtomicInteger rangedFailures = new AtomicInteger();
+    public static volatile long rangedFailureOffset;
+    public static final AtomicInteger rangedRequests = new AtomicInteger();
 
     private static int timeoutCounter = 0;
     private static int serverErrorCounter = 0;
@@ -90,4 +118,65 @@ public class AuthController {
         }
         return new SimpleResponse("OK");
     }
+
+    @GetMapping(value = STREAM_ARRAY, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public List<SimpleResponse> streamArray() {
+        return IntStream.range(0, STREAM_SIZE)
+                        .mapToObj(i -> new SimpleResponse(String.valueOf(i)))
+                        .collect(Collectors.toList());
+    }
+
+    @GetMapping(value = STREAM_NDJSON, produces = "application/x-ndjson")
+    public String streamNdjson() {
+        return IntStream.range(0, STREAM_SIZE)
+                        .mapToObj(i -> "{\"message\":\"" + i + "\"}")
+                        .collect(Collectors.joining("\n"));
+    }
+
+    @PostMapping(value = UPLOAD, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public SimpleResponse upload(InputStream body, @RequestHeader(value = "Transfer-Encoding", required = false) String encoding)
+            throws IOException {
+        return new SimpleResponse(body.transferTo(OutputStream.nullOutputStream()) + ":" + encoding);
+    }
+
+    @PostMapping(value = UPLOAD_MULTIPART,
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public SimpleResponse uploadMultipart(@RequestParam String name, @RequestParam MultipartFile file) {
+        return new SimpleResponse(name + ":" + file.getOriginalFilename() + ":" + file.getSize());
+    }
+
+    @GetMapping(value = DOWNLOAD, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] download() {
+        return downloadContent();
+    }
+
+    @GetMapping(value = DOWNLOAD_RANGED, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Resource> downloadRanged(@RequestHeader(value = "Range", required = false) String range) {
+        if (range != null) {
+            rangedRequests.incrementAndGet();
+            if (range.startsWith("bytes=" + rangedFailureOffset + "-") && rangedFailures.getAndDecrement() > 0) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+        }
+        return ResponseEntity.ok()
+                             .eTag(DOWNLOAD_ETAG)
+                             .body(new ByteArrayResource(downloadContent()));
+    }
+
+    @GetMapping(value = DOWNLOAD_NO_HEAD, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Resource> downloadNoHead(@RequestHeader(value = "Range", required = false) String range) {
+        return downloadRanged(range);
+    }
+
+    @RequestMapping(value = DOWNLOAD_NO_HEAD, method = RequestMethod.HEAD)
+    public ResponseEntity<Void> downloadNoHeadProbe() {
+        return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED).build();
+    }
+
+    public static byte[] downloadContent() {
+        final byte[] content = new byte[DOWNLOAD_SIZE];
+        new Random(42).nextBytes(content);
+        return content;
+    }
 }
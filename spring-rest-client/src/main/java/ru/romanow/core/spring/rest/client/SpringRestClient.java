@@ -2,46 +2,167 @@ package ru.romanow.core.spring.rest.client;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import ru.romanow.core.spring.rest.client.admission.AdmissionController;
+import ru.romanow.core.spring.rest.client.admission.AdmissionController.AdmissionPermit;
+import ru.romanow.core.spring.rest.client.admission.AdmissionStats;
+import ru.romanow.core.spring.rest.client.admission.Priority;
+import ru.romanow.core.spring.rest.client.body.BodySource;
+import ru.romanow.core.spring.rest.client.body.MultipartBody;
+import ru.romanow.core.spring.rest.client.body.ProgressListener;
+import ru.romanow.core.spring.rest.client.body.StreamingBody;
+import ru.romanow.core.spring.rest.client.download.FileMetadata;
+import ru.romanow.core.spring.rest.client.download.FileResponseExtractor;
 import ru.romanow.core.spring.rest.client.exception.*;
+import ru.romanow.core.spring.rest.client.logging.FailureLogger;
+import ru.romanow.core.spring.rest.client.ratelimit.RateLimitPolicy;
+import ru.romanow.core.spring.rest.client.ratelimit.RateLimiter;
+import ru.romanow.core.spring.rest.client.ratelimit.RateLimiterRegistry;
+import ru.romanow.core.spring.rest.client.utils.InterruptibleTask;
+import ru.romanow.core.spring.rest.client.utils.JsonSerializer;
+import ru.romanow.core.spring.rest.client.utils.JsonStreamIterator;
+import ru.romanow.core.spring.rest.client.utils.LimitedClientHttpResponse;
+import ru.romanow.core.spring.rest.client.utils.RequestExecutors;
+import ru.romanow.core.spring.rest.client.warmup.WarmUp;
+import ru.romanow.core.spring.rest.client.warmup.WarmUpResult;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.nio.charset.Charset;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
 import static java.util.Optional.ofNullable;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static org.springframework.util.StringUtils.hasLength;
-import static ru.romanow.core.spring.rest.client.utils.JsonSerializer.fromJson;
 
 public class SpringRestClient {
     private static final Logger logger = LoggerFactory.getLogger(SpringRestClient.class);
 
     private static final int DEFAULT_REQUEST_TIMEOUT = 60_000;
+    private static final String DEFAULT_DIGEST_ALGORITHM = "SHA-256";
+    private static final int ERROR_BODY_BUFFER_SIZE = 512;
+    private static final List<MediaType> NDJSON_MEDIA_TYPES = List.of(
+            MediaType.valueOf("application/x-ndjson"), MediaType.valueOf("application/ndjson"),
+            MediaType.valueOf("application/jsonl"), MediaType.APPLICATION_STREAM_JSON);
 
     private final RestTemplate restTemplate;
+    private final Executor executor;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final AdmissionController admissionController;
+    private final long maxResponseSize;
+    private final boolean stacklessExceptions;
+    private final FailureLogger failureLogger;
 
     public SpringRestClient(@Nonnull RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+        this(new Builder(restTemplate));
+    }
+
+    private SpringRestClient(@Nonnull Builder builder) {
+        this.restTemplate = builder.restTemplate;
+        this.executor = builder.executor;
+        this.rateLimiterRegistry = builder.rateLimiterRegistry;
+        this.admissionController = builder.admissionController;
+        this.maxResponseSize = builder.maxResponseSize;
+        this.stacklessExceptions = builder.stacklessExceptions;
+        this.failureLogger = new FailureLogger(logger, builder.failureLogInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Nonnull
+    public static Builder builder(@Nonnull RestTemplate restTemplate) {
+        return new Builder(restTemplate);
+    }
+
+    /**
+     * Send concurrent <code>HEAD</code> requests to the hosts, so pooled request factory opens connections,
+     * and prepare JSON adapters of the classes. Any HTTP response is counted as opened connection,
+     * connection errors and requests not completed in warm-up timeout are reported as failures.
+     */
+    @Nonnull
+    public WarmUpResult warmUp(@Nonnull WarmUp warmUp) {
+        final long start = System.nanoTime();
+        JsonSerializer.warmUp(warmUp.getClasses());
+
+        final List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (Map.Entry<String, Integer> connections : warmUp.getConnections().entrySet()) {
+            final URI uri = URI.create(connections.getKey());
+            for (int i = 0; i < connections.getValue(); i++) {
+                requests.add(CompletableFuture.runAsync(() -> head(uri), executor));
+            }
+        }
+
+        final long deadline = start + TimeUnit.MILLISECONDS.toNanos(warmUp.getTimeout());
+        int opened = 0;
+        int failures = 0;
+        for (CompletableFuture<Void> request : requests) {
+            try {
+                request.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                opened++;
+            } catch (ExecutionException | TimeoutException exception) {
+                failures++;
+                final Throwable cause = exception.getCause() != null ? exception.getCause() : exception;
+                logger.warn("Warm-up request failed: {}", cause.toString());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                failures++;
+            }
+        }
+
+        final WarmUpResult result = new WarmUpResult(Duration.ofNanos(System.nanoTime() - start), opened, failures);
+        logger.info("Warm-up finished: {}", result);
+        return result;
+    }
+
+    private void head(@Nonnull URI uri) {
+        try {
+            restTemplate.execute(uri, HttpMethod.HEAD, null, ClientHttpResponse::getRawStatusCode);
+        } catch (HttpStatusCodeException ignored) {
+            // error status is response as well, connection is opened
+        }
+    }
+
+    /**
+     * @return admission counters or null if client has no admission controller
+     */
+    @Nullable
+    public AdmissionStats getAdmissionStats() {
+        return admissionController != null ? admissionController.getStats() : null;
     }
 
     // region Builders
@@ -66,10 +187,97 @@ public class SpringRestClient {
     }
     // endregion
 
+    public static class Builder {
+        private final RestTemplate restTemplate;
+        private Executor executor;
+        private RateLimiterRegistry rateLimiterRegistry;
+        private AdmissionController admissionController;
+        private long maxResponseSize;
+        private boolean stacklessExceptions;
+        private long failureLogInterval;
+
+        Builder(@Nonnull RestTemplate restTemplate) {
+            this.restTemplate = restTemplate;
+            this.executor = RequestExecutors.defaultExecutor();
+            this.failureLogInterval = FailureLogger.DEFAULT_INTERVAL;
+        }
+
+        /**
+         * Executor for blocking {@link RestTemplate} calls, by default virtual thread per request on Java 21+
+         * and bounded pool of platform threads otherwise.
+         *
+         * @see RequestExecutors
+         */
+        @Nonnull
+        public Builder executor(@Nonnull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Limit request rate per host or per url, limiters also follow server <code>Retry-After</code>
+         * and <code>RateLimit-*</code> headers.
+         */
+        @Nonnull
+        public Builder rateLimiter(@Nonnull RateLimiterRegistry rateLimiterRegistry) {
+            this.rateLimiterRegistry = rateLimiterRegistry;
+            return this;
+        }
+
+        /**
+         * Limit concurrent requests per host with bounded priority queue, usually to connections per route
+         * of the request factory. Rejected requests fail with {@link HttpRestRejectedException}.
+         */
+        @Nonnull
+        public Builder admissionController(@Nonnull AdmissionController admissionController) {
+            this.admissionController = admissionController;
+            return this;
+        }
+
+        /**
+         * Default limit of response body size in bytes for all requests, zero means unlimited. Larger response
+         * is not read: connection is aborted and {@link HttpRestResponseTooLargeException} is thrown.
+         */
+        @Nonnull
+        public Builder maxResponseSize(long maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+            return this;
+        }
+
+        /**
+         * Throw client, server, timeout and resource exceptions without stack trace: filling it is the main
+         * cost of expected errors (e.g. 404 on lookups). Exception message, status and body are kept.
+         */
+        @Nonnull
+        public Builder stacklessExceptions(boolean stacklessExceptions) {
+            this.stacklessExceptions = stacklessExceptions;
+            return this;
+        }
+
+        /**
+         * Log first failure of host and status (or timeout, connection error) in the interval and summary
+         * of the next ones at the end of it, 10 sec by default. Zero logs every failure.
+         */
+        @Nonnull
+        public Builder failureLogInterval(long interval, @Nonnull TimeUnit timeUnit) {
+            this.failureLogInterval = timeUnit.toMillis(interval);
+            return this;
+        }
+
+        @Nonnull
+        public SpringRestClient build() {
+            return new SpringRestClient(this);
+        }
+    }
+
     public class RequestBuilder<RESP> {
         private String url;
         private HttpMethod method;
         private Object requestBody;
+        private List<BodySource> bodySources;
+        private String contentType;
+        private boolean chunked;
+        private ProgressListener progressListener;
         private MultiValueMap<String, String> params;
         private Map<String, String> headers;
 
@@ -94,6 +302,14 @@ public class SpringRestClient {
         private boolean processTimeoutExceptions;
         private TimeoutExceptionMapper<? extends RuntimeException> timeoutExceptionMapping;
 
+        private RateLimitPolicy rateLimitPolicy;
+        private ExceptionMapper<? extends RuntimeException, HttpRestRateLimitException> rateLimitExceptionMapper;
+        private ExceptionMapper<? extends RuntimeException, HttpRestRejectedException> rejectedExceptionMapper;
+        private Priority priority;
+
+        private long maxResponseSize;
+        private ExceptionMapper<? extends RuntimeException, HttpRestResponseTooLargeException> responseSizeExceptionMapper;
+
         RequestBuilder(@Nonnull String url, @Nonnull HttpMethod httpMethod, @Nullable Object requestBody, @Nonnull Class<RESP> responseClass) {
             this.url = url;
             this.requestBody = requestBody;
@@ -116,6 +332,11 @@ public class SpringRestClient {
             this.timeoutTimeUnit = TimeUnit.MILLISECONDS;
             this.processTimeoutExceptions = true;
             this.retryCount = 0;
+
+            this.rateLimitPolicy = RateLimitPolicy.WAIT;
+            this.priority = Priority.NORMAL;
+
+            this.maxResponseSize = SpringRestClient.this.maxResponseSize;
         }
 
         RequestBuilder(@Nonnull String url, @Nonnull HttpMethod httpMethod, @Nonnull Class<RESP> responseClass) {
@@ -209,6 +430,106 @@ public class SpringRestClient {
             return this;
         }
 
+        @Nonnull
+        public RequestBuilder<RESP> rateLimitPolicy(@Nonnull RateLimitPolicy rateLimitPolicy) {
+            this.rateLimitPolicy = rateLimitPolicy;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> rateLimitExceptionMapper(
+                @Nonnull ExceptionMapper<? extends RuntimeException, HttpRestRateLimitException> rateLimitExceptionMapper) {
+            this.rateLimitExceptionMapper = rateLimitExceptionMapper;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> rejectedExceptionMapper(
+                @Nonnull ExceptionMapper<? extends RuntimeException, HttpRestRejectedException> rejectedExceptionMapper) {
+            this.rejectedExceptionMapper = rejectedExceptionMapper;
+            return this;
+        }
+
+        /**
+         * Order of the request in admission queue, has effect only if client has admission controller
+         */
+        @Nonnull
+        public RequestBuilder<RESP> priority(@Nonnull Priority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> maxResponseSize(long maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> responseSizeExceptionMapper(
+                @Nonnull ExceptionMapper<? extends RuntimeException, HttpRestResponseTooLargeException> responseSizeExceptionMapper) {
+            this.responseSizeExceptionMapper = responseSizeExceptionMapper;
+            return this;
+        }
+
+        /**
+         * File body, streamed to the request if request factory doesn't buffer request body
+         */
+        @Nonnull
+        public RequestBuilder<RESP> requestBody(@Nonnull Path path, @Nonnull String contentType) {
+            return requestBody(BodySource.of(path), contentType);
+        }
+
+        /**
+         * Stream body, request with such body can't be retried
+         *
+         * @param contentLength stream length or -1 to send it with chunked encoding
+         */
+        @Nonnull
+        public RequestBuilder<RESP> requestBody(@Nonnull InputStream stream, long contentLength, @Nonnull String contentType) {
+            return requestBody(BodySource.of(stream, contentLength), contentType);
+        }
+
+        /**
+         * Channel body, request with such body can't be retried
+         *
+         * @param contentLength channel length or -1 to send it with chunked encoding
+         */
+        @Nonnull
+        public RequestBuilder<RESP> requestBody(@Nonnull ReadableByteChannel channel, long contentLength,
+                                                @Nonnull String contentType) {
+            return requestBody(BodySource.of(channel, contentLength), contentType);
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> requestBody(@Nonnull BodySource source, @Nonnull String contentType) {
+            this.bodySources = singletonList(source);
+            this.contentType = contentType;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> multipart(@Nonnull MultipartBody multipart) {
+            this.bodySources = multipart.getSources();
+            this.contentType = multipart.getContentType();
+            return this;
+        }
+
+        /**
+         * Send streamed body with chunked encoding even if its length is known
+         */
+        @Nonnull
+        public RequestBuilder<RESP> chunked(boolean chunked) {
+            this.chunked = chunked;
+            return this;
+        }
+
+        @Nonnull
+        public RequestBuilder<RESP> progressListener(@Nonnull ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
         @Nonnull
         public RequestBuilder<RESP> addParam(@Nonnull String name, @Nullable String value) {
             this.params.add(name, value);
@@ -223,86 +544,101 @@ public class SpringRestClient {
 
         @Nonnull
         public Optional<RESP> execute() {
-            return executeRequest(buildRequest(), retryCount);
+            final ResponseExtractor<ResponseEntity<RESP>> extractor =
+                    restTemplate.responseEntityExtractor(this.responseClass);
+            final RequestEntity<?> request = buildRequest();
+            final AdmissionPermit permit = admit(request);
+            try {
+                return executeRequest(request, this.responseClass, extractor, this.defaultResponse, retryCount);
+            } finally {
+                release(permit);
+            }
+        }
+
+        /**
+         * Execute request and write successful response body to the file while it is read. Body is written
+         * to the temporary file next to the target, synced to disk and atomically renamed to the target when
+         * response is completed. SHA-256 digest is calculated while body is written.
+         *
+         * @return written file metadata, empty if error is suppressed
+         */
+        @Nonnull
+        public Optional<FileMetadata> executeToFile(@Nonnull Path target) {
+            return executeToFile(target, DEFAULT_DIGEST_ALGORITHM);
+        }
+
+        /**
+         * @param digestAlgorithm {@link java.security.MessageDigest} algorithm or null to skip digest calculation
+         * @see #executeToFile(Path)
+         */
+        @Nonnull
+        public Optional<FileMetadata> executeToFile(@Nonnull Path target, @Nullable String digestAlgorithm) {
+            final RequestEntity<?> request = buildRequest();
+            final AdmissionPermit permit = admit(request);
+            try {
+                return executeRequest(request, null, new FileResponseExtractor(target, digestAlgorithm),
+                                      Optional::empty, retryCount);
+            } finally {
+                release(permit);
+            }
         }
 
         @Nonnull
-        private Optional<RESP> executeRequest(RequestEntity<?> request, int retryCount) {
-            final CompletableFuture<ResponseEntity<RESP>> future =
-                    supplyAsync(() -> restTemplate.exchange(request, responseClass));
+        private <T> Optional<T> executeRequest(@Nonnull RequestEntity<?> request, @Nullable Class<?> responseType,
+                                               @Nonnull ResponseExtractor<ResponseEntity<T>> extractor,
+                                               @Nonnull Supplier<Optional<T>> defaultResult, int retryCount) {
+            final RateLimiter rateLimiter = rateLimiterRegistry != null
+                    ? rateLimiterRegistry.getRateLimiter(request.getUrl(), this.url) : null;
+            final long wait = rateLimiter != null ? reservePermit(rateLimiter) : 0;
+            if (wait < 0) {
+                return defaultResult.get();
+            }
+
+            // wait for rate limiter permit without blocking executor thread
+            final Executor requestExecutor = wait > 0
+                    ? CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS, executor) : executor;
+            final InterruptibleTask<ResponseEntity<T>> task =
+                    new InterruptibleTask<>(() -> exchange(request, responseType, extractor));
+            final CompletableFuture<ResponseEntity<T>> future = supplyAsync(task, requestExecutor);
             try {
-                ResponseEntity<RESP> response = future.get(this.requestProcessingTimeout, this.timeoutTimeUnit);
+                ResponseEntity<T> response = future.get(this.requestProcessingTimeout, this.timeoutTimeUnit);
                 if (response.getStatusCode().is2xxSuccessful()) {
                     return ofNullable(response.getBody());
                 }
             } catch (ExecutionException exception) {
-                if (exception.getCause() instanceof ResourceAccessException) {
-                    if (this.retryConnectionError && retryCount > 0) {
-                        return executeRequest(request, retryCount - 1);
+                if (exception.getCause() instanceof HttpRestFileException) {
+                    // local file failure says nothing about endpoint and is not fixed by resending
+                    throw (HttpRestFileException) exception.getCause();
+                } else if (exception.getCause() instanceof HttpRestResponseTooLargeException) {
+                    processResponseSizeError((HttpRestResponseTooLargeException) exception.getCause());
+                } else if (exception.getCause() instanceof ResourceAccessException) {
+                    if (this.retryConnectionError && canRetry(retryCount)) {
+                        return executeRequest(request, responseType, extractor, defaultResult, retryCount - 1);
                     }
-                    final String message = format("Can't establish connection to '%s'", this.url);
-                    logger.warn(message);
-
-                    if (this.processResourceExceptions) {
-                        final HttpRestResourceException resourceException = new HttpRestResourceException(exception);
-                        if (this.resourceExceptionMapper != null) {
-                            throw this.resourceExceptionMapper.produce(resourceException);
-                        } else {
-                            throw resourceException;
-                        }
-                    }
-                } else if (exception.getCause() instanceof HttpClientErrorException) {
-                    final HttpClientErrorException clientErrorException = (HttpClientErrorException) exception.getCause();
-                    final int status = clientErrorException.getRawStatusCode();
-                    final String reason = clientErrorException.getStatusText();
-
-                    final String message = format("Request to '%s' failed with client error: %d:%s", this.url, status, reason);
-                    logger.warn(message);
-
-                    if (processClientExceptions) {
-                        final HttpRestClientException customException =
-                                new HttpRestClientException(status, reason,
-                                        getErrorResponseBody(status, clientErrorException.getResponseBodyAsString()));
-                        if (this.exceptionMapping.containsKey(status)) {
-                            throw this.exceptionMapping.get(status).produce(customException);
-                        } else {
-                            throw customException;
-                        }
-                    }
-                } else if (exception.getCause() instanceof HttpServerErrorException) {
-                    if (this.retryServerError && retryCount > 0) {
-                        return executeRequest(request, retryCount - 1);
-                    }
-
-                    final HttpServerErrorException serverErrorException = (HttpServerErrorException) exception.getCause();
-                    final int status = serverErrorException.getRawStatusCode();
-                    final String reason = serverErrorException.getStatusText();
-
-                    if (this.processServerExceptions) {
-                        final String message = format("Request to '%s' failed with server error: %d:%s", this.url, status, reason);
-                        logger.warn(message);
-
-                        final HttpRestServerException customException =
-                                new HttpRestServerException(status, reason,
-                                        getErrorResponseBody(status, serverErrorException.getResponseBodyAsString()));
-                        if (this.exceptionMapping.containsKey(status)) {
-                            throw this.exceptionMapping.get(status).produce(customException);
-                        } else {
-                            throw customException;
-                        }
+                    processResourceError(exception);
+                } else if (exception.getCause() instanceof HttpRestClientException) {
+                    processClientError((HttpRestClientException) exception.getCause());
+                } else if (exception.getCause() instanceof HttpRestServerException) {
+                    if (this.retryServerError && canRetry(retryCount)) {
+                        return executeRequest(request, responseType, extractor, defaultResult, retryCount - 1);
                     }
+                    processServerError((HttpRestServerException) exception.getCause());
                 } else {
                     throw new RuntimeException(exception);
                 }
             } catch (TimeoutException exception) {
-                if (retryCount > 0) {
-                    return executeRequest(request, retryCount - 1);
+                // request delayed by rate limiter must not be sent after caller got timeout,
+                // running download must not commit the file after retry started
+                future.cancel(true);
+                task.cancel();
+                if (canRetry(retryCount)) {
+                    return executeRequest(request, responseType, extractor, defaultResult, retryCount - 1);
                 }
-                final String message = format("Request to '%s' failed with timeout", this.url);
-                logger.warn(message);
+                failureLogger.timeout(this.url);
 
                 if (this.processTimeoutExceptions) {
-                    final HttpRestTimeoutException timeoutException = new HttpRestTimeoutException(exception);
+                    final HttpRestTimeoutException timeoutException =
+                            new HttpRestTimeoutException(exception, !stacklessExceptions);
                     if (this.timeoutExceptionMapping != null) {
                         throw this.timeoutExceptionMapping.produce(timeoutException);
                     } else {
@@ -313,21 +649,347 @@ public class SpringRestClient {
                 logger.error("InterruptedException", exception);
             }
 
-            return defaultResponse.get();
+            return defaultResult.get();
+        }
+
+        /**
+         * Execute request and decode elements of top-level JSON array or newline-delimited JSON
+         * (<code>application/x-ndjson</code>) while response body arrives, memory usage doesn't depend on response size.
+         * Request is executed on the calling thread, request processing timeout is not applied: use
+         * request factory read timeout. Returned stream holds connection and must be closed.
+         * Suppressed errors return empty stream, requests are not retried. Body over <code>maxResponseSize</code>
+         * fails iteration with {@link HttpRestResponseTooLargeException}.
+         */
+        @Nonnull
+        public <E> Stream<E> executeStream(@Nonnull Class<E> elementClass) {
+            final RequestEntity<?> request = buildRequest();
+            final RateLimiter rateLimiter = rateLimiterRegistry != null
+                    ? rateLimiterRegistry.getRateLimiter(request.getUrl(), this.url) : null;
+            if (rateLimiter != null && !waitPermit(rateLimiter)) {
+                return Stream.empty();
+            }
+
+            final AdmissionPermit permit = admit(request);
+            ClientHttpResponse response = null;
+            Stream<E> stream = null;
+            try {
+                final ClientHttpRequest httpRequest = createRequest(request, null);
+                final LimitedClientHttpResponse limitedResponse =
+                        new LimitedClientHttpResponse(httpRequest.execute(), this.maxResponseSize);
+                response = limitedResponse;
+                limitedResponse.checkContentLength();
+
+                final int status = response.getRawStatusCode();
+                updateRateLimiter(request, status, response.getHeaders());
+
+                final HttpStatus.Series series = HttpStatus.Series.resolve(status);
+                if (series == HttpStatus.Series.SUCCESSFUL) {
+                    stream = createStream(response, elementClass).onClose(() -> release(permit));
+                    return stream;
+                } else if (series == HttpStatus.Series.CLIENT_ERROR) {
+                    processClientError(clientError(status, response.getStatusText(), getResponseBodyAsString(response)));
+                } else if (series == HttpStatus.Series.SERVER_ERROR) {
+                    processServerError(serverError(status, response.getStatusText(), getResponseBodyAsString(response)));
+                }
+            } catch (IOException exception) {
+                processResourceError(new ResourceAccessException("I/O error on " + this.method + " request for \"" +
+                                                                         this.url + "\": " + exception.getMessage(), exception));
+            } catch (HttpRestResponseTooLargeException exception) {
+                processResponseSizeError(exception);
+            } finally {
+                if (stream == null) {
+                    if (response != null) {
+                        response.close();
+                    }
+                    release(permit);
+                }
+            }
+
+            return Stream.empty();
         }
 
+        /**
+         * Same as {@link RestTemplate#exchange(RequestEntity, Class)}, but response body is limited
+         * by <code>maxResponseSize</code>: response extractor reads {@link LimitedClientHttpResponse}.
+         * With {@link DefaultResponseErrorHandler} error status is mapped to {@link HttpRestClientException} or
+         * {@link HttpRestServerException} at once, without intermediate {@link HttpStatusCodeException}.
+         * Custom error handler of {@link RestTemplate} is called as {@link RestTemplate} does, its
+         * {@link HttpStatusCodeException} is mapped to the same exceptions.
+         */
+        @Nonnull
+        private <T> T exchange(@Nonnull RequestEntity<?> request, @Nullable Class<?> responseType,
+                               @Nonnull ResponseExtractor<T> extractor) {
+            try {
+                final ClientHttpRequest httpRequest = createRequest(request, responseType);
+                try (LimitedClientHttpResponse response =
+                             new LimitedClientHttpResponse(httpRequest.execute(), this.maxResponseSize)) {
+                    try {
+                        response.checkContentLength();
+                        final int status = response.getRawStatusCode();
+                        updateRateLimiter(request, status, response.getHeaders());
+
+                        final ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+                        if (errorHandler.getClass() == DefaultResponseErrorHandler.class) {
+                            final HttpStatus.Series series = HttpStatus.Series.resolve(status);
+                            if (series == HttpStatus.Series.CLIENT_ERROR) {
+                                throw clientError(status, response.getStatusText(), getResponseBodyAsString(response));
+                            } else if (series == HttpStatus.Series.SERVER_ERROR) {
+                                throw serverError(status, response.getStatusText(), getResponseBodyAsString(response));
+                            }
+                        } else if (errorHandler.hasError(response)) {
+                            try {
+                                errorHandler.handleError(request.getUrl(), this.method, response);
+                            } catch (HttpClientErrorException exception) {
+                                throw clientError(exception.getRawStatusCode(), exception.getStatusText(),
+                                                  exception.getResponseBodyAsString());
+                            } catch (HttpServerErrorException exception) {
+                                throw serverError(exception.getRawStatusCode(), exception.getStatusText(),
+                                                  exception.getResponseBodyAsString());
+                            }
+                        }
+                        final T result = extractor.extractData(response);
+                        if (response.getFailure() != null) {
+                            throw response.getFailure();
+                        }
+                        return result;
+                    } catch (RuntimeException exception) {
+                        // converters and error handler wrap or swallow body read errors
+                        throw response.getFailure() != null ? response.getFailure() : exception;
+                    }
+                }
+            } catch (IOException exception) {
+                throw new ResourceAccessException("I/O error on " + this.method + " request for \"" +
+                                                          this.url + "\": " + exception.getMessage(), exception);
+            }
+        }
+
+        /**
+         * Create request and write JSON body with message converters or stream body from body sources
+         */
+        @Nonnull
+        private ClientHttpRequest createRequest(@Nonnull RequestEntity<?> request, @Nullable Class<?> responseType)
+                throws IOException {
+            final ClientHttpRequest httpRequest =
+                    restTemplate.getRequestFactory().createRequest(request.getUrl(), this.method);
+            if (this.bodySources == null) {
+                restTemplate.httpEntityCallback(request, responseType).doWithRequest(httpRequest);
+                return httpRequest;
+            }
+
+            if (responseType != null) {
+                restTemplate.acceptHeaderRequestCallback(responseType).doWithRequest(httpRequest);
+            }
+            final StreamingBody body =
+                    new StreamingBody(this.bodySources, this.contentType, this.chunked, this.progressListener);
+            final HttpHeaders headers = httpRequest.getHeaders();
+            headers.putAll(request.getHeaders());
+            headers.set(HttpHeaders.CONTENT_TYPE, body.getContentType());
+            if (body.getContentLength() >= 0) {
+                headers.setContentLength(body.getContentLength());
+            }
+            if (httpRequest instanceof StreamingHttpOutputMessage) {
+                ((StreamingHttpOutputMessage) httpRequest).setBody(body::writeTo);
+            } else {
+                body.writeTo(httpRequest.getBody());
+            }
+            return httpRequest;
+        }
+
+        /**
+         * Request with streamed body can be sent only once
+         */
+        private boolean canRetry(int retryCount) {
+            return retryCount > 0 && (this.bodySources == null ||
+                    this.bodySources.stream().allMatch(BodySource::isRepeatable));
+        }
+
+        @Nonnull
+        private <E> Stream<E> createStream(@Nonnull ClientHttpResponse response, @Nonnull Class<E> elementClass)
+                throws IOException {
+            final MediaType contentType = response.getHeaders().getContentType();
+            final Charset charset = contentType != null && contentType.getCharset() != null
+                    ? contentType.getCharset() : StandardCharsets.UTF_8;
+            final boolean lineDelimited = contentType != null && NDJSON_MEDIA_TYPES
+                    .stream()
+                    .anyMatch(mediaType -> mediaType.isCompatibleWith(contentType));
+
+            final JsonStreamIterator<E> iterator =
+                    new JsonStreamIterator<>(response.getBody(), charset, elementClass, lineDelimited);
+            final Spliterator<E> spliterator =
+                    Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+            return StreamSupport
+                    .stream(spliterator, false)
+                    .onClose(() -> {
+                        iterator.close();
+                        response.close();
+                    });
+        }
+
+        /**
+         * @return error body or null if it can't be read, e.g. {@link java.net.HttpURLConnection} has no error stream
+         */
         @Nullable
-        private Object getErrorResponseBody(int status, @Nullable String response) {
-            if (hasLength(response)) {
-                if (this.errorResponseClass.containsKey(status)) {
-                    final Class<?> cls = this.errorResponseClass.get(status);
-                    return fromJson(response, cls);
-                } else if (commonErrorResponseClass != null) {
-                    return fromJson(response, commonErrorResponseClass);
+        private String getResponseBodyAsString(@Nonnull ClientHttpResponse response) {
+            final MediaType contentType = response.getHeaders().getContentType();
+            final Charset charset = contentType != null && contentType.getCharset() != null
+                    ? contentType.getCharset() : StandardCharsets.UTF_8;
+            // error bodies are usually small, 4 KB char buffer of StreamUtils is larger than the whole body
+            final ByteArrayOutputStream body = new ByteArrayOutputStream(ERROR_BODY_BUFFER_SIZE);
+            final byte[] buffer = new byte[ERROR_BODY_BUFFER_SIZE];
+            try {
+                final InputStream stream = response.getBody();
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
                 }
-                return response;
+            } catch (IOException exception) {
+                return null;
             }
-            return null;
+            return body.size() > 0 ? body.toString(charset) : null;
+        }
+
+        @Nonnull
+        private HttpRestClientException clientError(int status, @Nullable String reason, @Nullable String body) {
+            return new HttpRestClientException(status, reason, hasLength(body) ? body : null,
+                                               getErrorResponseClass(status),
+                                               processClientExceptions && !stacklessExceptions);
+        }
+
+        @Nonnull
+        private HttpRestServerException serverError(int status, @Nullable String reason, @Nullable String body) {
+            return new HttpRestServerException(status, reason, hasLength(body) ? body : null,
+                                               getErrorResponseClass(status),
+                                               processServerExceptions && !stacklessExceptions);
+        }
+
+        private void processClientError(@Nonnull HttpRestClientException exception) {
+            final int status = exception.getResponseStatus();
+            failureLogger.clientError(this.url, status, exception.getResponseMessage());
+
+            if (processClientExceptions) {
+                if (this.exceptionMapping.containsKey(status)) {
+                    throw this.exceptionMapping.get(status).produce(exception);
+                } else {
+                    throw exception;
+                }
+            }
+        }
+
+        private void processServerError(@Nonnull HttpRestServerException exception) {
+            if (this.processServerExceptions) {
+                final int status = exception.getResponseStatus();
+                failureLogger.serverError(this.url, status, exception.getResponseMessage());
+
+                if (this.exceptionMapping.containsKey(status)) {
+                    throw this.exceptionMapping.get(status).produce(exception);
+                } else {
+                    throw exception;
+                }
+            }
+        }
+
+        private void processResponseSizeError(@Nonnull HttpRestResponseTooLargeException exception) {
+            failureLogger.responseTooLarge(this.url, exception.getMessage());
+
+            if (this.responseSizeExceptionMapper != null) {
+                throw this.responseSizeExceptionMapper.produce(exception);
+            } else {
+                throw exception;
+            }
+        }
+
+        private void processResourceError(@Nonnull Exception exception) {
+            failureLogger.connectionError(this.url);
+
+            if (this.processResourceExceptions) {
+                final HttpRestResourceException resourceException =
+                        new HttpRestResourceException(exception, !stacklessExceptions);
+                if (this.resourceExceptionMapper != null) {
+                    throw this.resourceExceptionMapper.produce(resourceException);
+                } else {
+                    throw resourceException;
+                }
+            }
+        }
+
+        /**
+         * Wait for admission of the request on the calling thread, admitted request holds permit for all attempts
+         */
+        @Nullable
+        private AdmissionPermit admit(@Nonnull RequestEntity<?> request) {
+            if (admissionController == null) {
+                return null;
+            }
+            final long deadline = System.nanoTime() + this.timeoutTimeUnit.toNanos(this.requestProcessingTimeout);
+            try {
+                return admissionController.acquire(request.getUrl(), deadline, this.priority);
+            } catch (HttpRestRejectedException exception) {
+                if (this.rejectedExceptionMapper != null) {
+                    throw this.rejectedExceptionMapper.produce(exception);
+                } else {
+                    throw exception;
+                }
+            }
+        }
+
+        private void release(@Nullable AdmissionPermit permit) {
+            if (permit != null) {
+                permit.release();
+            }
+        }
+
+        /**
+         * Wait for rate limiter permit on the calling thread.
+         *
+         * @return false if request should return default response
+         */
+        private boolean waitPermit(@Nonnull RateLimiter rateLimiter) {
+            final long wait = reservePermit(rateLimiter);
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException exception) {
+                    logger.error("InterruptedException", exception);
+                    return false;
+                }
+            }
+            return wait >= 0;
+        }
+
+        /**
+         * @return nanos to wait before request or -1 if request should return default response
+         */
+        private long reservePermit(@Nonnull RateLimiter rateLimiter) {
+            final long maxWait = this.rateLimitPolicy == RateLimitPolicy.WAIT
+                    ? this.timeoutTimeUnit.toNanos(this.requestProcessingTimeout) : 0;
+            final long wait = rateLimiter.reserve(maxWait, TimeUnit.NANOSECONDS);
+            if (wait >= 0) {
+                return wait;
+            }
+
+            failureLogger.rateLimited(this.url);
+            if (this.rateLimitPolicy == RateLimitPolicy.DEFAULT_RESPONSE) {
+                return -1;
+            }
+            final String message = format("Request to '%s' rejected by client rate limiter", this.url);
+            final HttpRestRateLimitException exception =
+                    new HttpRestRateLimitException(message, TimeUnit.NANOSECONDS.toMillis(rateLimiter.getWaitTime()));
+            if (this.rateLimitExceptionMapper != null) {
+                throw this.rateLimitExceptionMapper.produce(exception);
+            } else {
+                throw exception;
+            }
+        }
+
+        private void updateRateLimiter(@Nonnull RequestEntity<?> request, int status, @Nullable HttpHeaders headers) {
+            if (rateLimiterRegistry != null && headers != null) {
+                rateLimiterRegistry.onResponse(request.getUrl(), this.url, status, headers::getFirst);
+            }
+        }
+
+        @Nullable
+        private Class<?> getErrorResponseClass(int status) {
+            return this.errorResponseClass.getOrDefault(status, this.commonErrorResponseClass);
         }
 
         @Nonnull
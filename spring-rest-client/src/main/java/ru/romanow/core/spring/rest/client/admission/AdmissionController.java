@@ -0,0 +1,323 @@
+package ru.romanow.core.spring.rest.client.admission;
+
+import ru.romanow.core.spring.rest.client.exception.HttpRestRejectedException;
+import ru.romanow.core.spring.rest.client.exception.HttpRestRejectedException.Reason;
+
+import javax.annotation.Nonnull;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+
+/**
+ * Limits concurrent requests per host (<code>host:port</code>) or per client. Requests over the limit wait
+ * in bounded queue not longer than <code>maxQueueWait</code> and request deadline, so calling threads
+ * are not held for the whole request timeout when downstream is slow. Request is rejected with
+ * {@link HttpRestRejectedException} if queue is full, if it waited too long or if its deadline passed
+ * before it was sent.
+ * <p>
+ * Queue is ordered by {@link Priority}, requests of the same priority are admitted in FIFO order.
+ * Request that waits longer than <code>maxStarvation</code> is admitted before requests of higher priority
+ * that came later, so background traffic is slowed down but not stopped.
+ */
+public class AdmissionController {
+    private static final int DEFAULT_MAX_QUEUE_SIZE = 100;
+    private static final long DEFAULT_MAX_QUEUE_WAIT = TimeUnit.SECONDS.toNanos(1);
+    private static final long DEFAULT_MAX_STARVATION = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final String CLIENT_KEY = "";
+
+    private final int maxConcurrentRequests;
+    private final int maxQueueSize;
+    private final long maxQueueWait;
+    private final long maxStarvation;
+    private final boolean perHost;
+    private final ConcurrentHashMap<String, Limiter> limiters;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueTimeouts = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    private AdmissionController(@Nonnull Builder builder) {
+        this.maxConcurrentRequests = builder.maxConcurrentRequests;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.maxQueueWait = builder.maxQueueWait;
+        this.maxStarvation = builder.maxStarvation;
+        this.perHost = builder.perHost;
+        this.limiters = new ConcurrentHashMap<>();
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Wait for free slot of the request host.
+     *
+     * @param deadline {@link System#nanoTime()} after which response is not needed
+     * @return permit that must be released when response is received
+     * @throws HttpRestRejectedException if request is not admitted
+     */
+    @Nonnull
+    public AdmissionPermit acquire(@Nonnull URI uri, long deadline) {
+        return acquire(uri, deadline, Priority.NORMAL);
+    }
+
+    /**
+     * @see #acquire(URI, long)
+     */
+    @Nonnull
+    public AdmissionPermit acquire(@Nonnull URI uri, long deadline, @Nonnull Priority priority) {
+        final String key = perHost ? getHostKey(uri) : CLIENT_KEY;
+        final Limiter limiter = limiters.get(key);
+        return (limiter != null ? limiter : limiters.computeIfAbsent(key, Limiter::new)).acquire(deadline, priority);
+    }
+
+    @Nonnull
+    public AdmissionStats getStats() {
+        return new AdmissionStats(admitted.sum(), queued.sum(), rejected.sum(), queueTimeouts.sum(), expired.sum());
+    }
+
+    @Nonnull
+    private String getHostKey(@Nonnull URI uri) {
+        if (uri.getHost() == null) {
+            return CLIENT_KEY;
+        }
+        return uri.getPort() > 0 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+    }
+
+    /**
+     * Slot of the request, release is idempotent
+     */
+    public static class AdmissionPermit {
+        private final Limiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private AdmissionPermit(@Nonnull Limiter limiter) {
+            this.limiter = limiter;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+    }
+
+    private class Limiter {
+        private final String key;
+        private final ReentrantLock lock = new ReentrantLock();
+        // iterated in priority order, highest first
+        private final EnumMap<Priority, Deque<Waiter>> queues;
+        private int queueSize;
+        private int inFlight;
+
+        Limiter(@Nonnull String key) {
+            this.key = key;
+            this.queues = new EnumMap<>(Priority.class);
+            for (Priority priority : Priority.values()) {
+                queues.put(priority, new ArrayDeque<>());
+            }
+        }
+
+        @Nonnull
+        AdmissionPermit acquire(long deadline, @Nonnull Priority priority) {
+            Waiter waiter = null;
+            lock.lock();
+            try {
+                if (inFlight < maxConcurrentRequests && queueSize == 0) {
+                    inFlight++;
+                    admitted.increment();
+                    return new AdmissionPermit(this);
+                }
+                if (queueSize >= maxQueueSize) {
+                    rejected.increment();
+                    final String message = format("Admission queue of '%s' is full (%d)", key, maxQueueSize);
+                    throw new HttpRestRejectedException(message, Reason.QUEUE_FULL);
+                }
+
+                waiter = new Waiter(lock.newCondition(), priority, System.nanoTime());
+                queues.get(priority).addLast(waiter);
+                queueSize++;
+                queued.increment();
+
+                long remaining = Math.min(maxQueueWait, deadline - System.nanoTime());
+                while (!waiter.granted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+                if (!waiter.granted) {
+                    remove(waiter);
+                    throw isExpired(deadline) ? expired() : queueTimeout();
+                }
+            } catch (InterruptedException exception) {
+                if (waiter.granted) {
+                    release();
+                } else {
+                    remove(waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw queueTimeout();
+            } finally {
+                lock.unlock();
+            }
+
+            if (isExpired(deadline)) {
+                // slot was granted too late, pass it to the next request
+                release();
+                throw expired();
+            }
+            admitted.increment();
+            return new AdmissionPermit(this);
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                final Waiter next = next();
+                if (next != null) {
+                    remove(next);
+                    next.granted = true;
+                    next.condition.signal();
+                } else {
+                    inFlight--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return head of the highest priority queue or older starving head of lower priority queue
+         */
+        private Waiter next() {
+            final long now = System.nanoTime();
+            Waiter next = null;
+            for (Deque<Waiter> queue : queues.values()) {
+                final Waiter head = queue.peekFirst();
+                if (head == null) {
+                    continue;
+                }
+                if (next == null) {
+                    next = head;
+                } else if (now - head.enqueued >= maxStarvation && head.enqueued - next.enqueued < 0) {
+                    next = head;
+                }
+            }
+            return next;
+        }
+
+        private void remove(@Nonnull Waiter waiter) {
+            if (queues.get(waiter.priority).remove(waiter)) {
+                queueSize--;
+            }
+        }
+
+        private boolean isExpired(long deadline) {
+            return System.nanoTime() - deadline >= 0;
+        }
+
+        @Nonnull
+        private HttpRestRejectedException expired() {
+            expired.increment();
+            return new HttpRestRejectedException(format("Request to '%s' expired in admission queue", key),
+                                                 Reason.DEADLINE_EXPIRED);
+        }
+
+        @Nonnull
+        private HttpRestRejectedException queueTimeout() {
+            queueTimeouts.increment();
+            final String message = format("Request to '%s' waited in admission queue longer than %d ms",
+                                          key, TimeUnit.NANOSECONDS.toMillis(maxQueueWait));
+            return new HttpRestRejectedException(message, Reason.QUEUE_TIMEOUT);
+        }
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private final Priority priority;
+        private final long enqueued;
+        private boolean granted;
+
+        Waiter(@Nonnull Condition condition, @Nonnull Priority priority, long enqueued) {
+            this.condition = condition;
+            this.priority = priority;
+            this.enqueued = enqueued;
+        }
+    }
+
+    public static class Builder {
+        private int maxConcurrentRequests;
+        private int maxQueueSize;
+        private long maxQueueWait;
+        private long maxStarvation;
+        private boolean perHost;
+
+        Builder() {
+            this.maxConcurrentRequests = Integer.MAX_VALUE;
+            this.maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+            this.maxQueueWait = DEFAULT_MAX_QUEUE_WAIT;
+            this.maxStarvation = DEFAULT_MAX_STARVATION;
+            this.perHost = true;
+        }
+
+        /**
+         * Requests sent at once, usually equal to max connections per route of the client
+         */
+        @Nonnull
+        public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * Requests waiting for free slot, next requests are rejected at once. 100 by default
+         */
+        @Nonnull
+        public Builder maxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * Max wait in the queue, request deadline (request timeout) is applied too. 1 sec by default
+         */
+        @Nonnull
+        public Builder maxQueueWait(long maxQueueWait, @Nonnull TimeUnit timeUnit) {
+            this.maxQueueWait = timeUnit.toNanos(maxQueueWait);
+            return this;
+        }
+
+        /**
+         * Wait after which request is admitted before requests of higher priority that came later. 500 ms by default
+         */
+        @Nonnull
+        public Builder maxStarvation(long maxStarvation, @Nonnull TimeUnit timeUnit) {
+            this.maxStarvation = timeUnit.toNanos(maxStarvation);
+            return this;
+        }
+
+        /**
+         * Limit per host (by default) or one limit for all requests of the client
+         */
+        @Nonnull
+        public Builder perHost(boolean perHost) {
+            this.perHost = perHost;
+            return this;
+        }
+
+        @Nonnull
+        public AdmissionController build() {
+            return new AdmissionController(this);
+        }
+    }
+}
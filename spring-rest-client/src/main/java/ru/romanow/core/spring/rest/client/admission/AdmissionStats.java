@@ -0,0 +1,61 @@
+package ru.romanow.core.spring.rest.client.admission;
+
+/**
+ * Counters of admission controller since it was created
+ */
+public class AdmissionStats {
+    private final long admitted;
+    private final long queued;
+    private final long rejected;
+    private final long queueTimeouts;
+    private final long expired;
+
+    public AdmissionStats(long admitted, long queued, long rejected, long queueTimeouts, long expired) {
+        this.admitted = admitted;
+        this.queued = queued;
+        this.rejected = rejected;
+        this.queueTimeouts = queueTimeouts;
+        this.expired = expired;
+    }
+
+    /**
+     * @return requests sent, including requests admitted after waiting in the queue
+     */
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * @return requests that waited in the queue
+     */
+    public long getQueued() {
+        return queued;
+    }
+
+    /**
+     * @return requests rejected because queue was full
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return requests rejected after max queue wait
+     */
+    public long getQueueTimeouts() {
+        return queueTimeouts;
+    }
+
+    /**
+     * @return requests dropped because request timeout expired before they were sent
+     */
+    public long getExpired() {
+        return expired;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionStats{admitted=" + admitted + ", queued=" + queued + ", rejected=" + rejected +
+                ", queueTimeouts=" + queueTimeouts + ", expired=" + expired + "}";
+    }
+}
@@ -0,0 +1,9 @@
+package ru.romanow.core.spring.rest.client.admission;
+
+/**
+ * Order of requests waiting in admission queue: next free slot is given to the request with the highest
+ * priority, request of lower priority that waits longer than starvation bound goes first
+ */
+public enum Priority {
+    HIGH, NORMAL, LOW
+}
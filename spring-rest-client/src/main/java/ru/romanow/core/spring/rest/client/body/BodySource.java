@@ -0,0 +1,156 @@
+package ru.romanow.core.spring.rest.client.body;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Request body read from the channel while it is written to the socket, body is never loaded into memory.
+ */
+public abstract class BodySource {
+
+    /**
+     * @return body length or -1 if length is unknown (body is sent with chunked encoding)
+     */
+    public abstract long getContentLength();
+
+    /**
+     * Open new channel with body content, caller must close it.
+     */
+    @Nonnull
+    public abstract ReadableByteChannel open() throws IOException;
+
+    /**
+     * @return true if source can be read more than once (request can be retried)
+     */
+    public abstract boolean isRepeatable();
+
+    @Nonnull
+    public static BodySource of(@Nonnull Path path) {
+        return new PathSource(path);
+    }
+
+    @Nonnull
+    public static BodySource of(@Nonnull byte[] content) {
+        return new BytesSource(content);
+    }
+
+    /**
+     * @param contentLength stream length or -1 if length is unknown
+     */
+    @Nonnull
+    public static BodySource of(@Nonnull InputStream stream, long contentLength) {
+        return new ChannelSource(Channels.newChannel(stream), contentLength);
+    }
+
+    /**
+     * @param contentLength channel length or -1 if length is unknown
+     */
+    @Nonnull
+    public static BodySource of(@Nonnull ReadableByteChannel channel, long contentLength) {
+        return new ChannelSource(channel, contentLength);
+    }
+
+    /**
+     * @return sum of source lengths or -1 if some source has unknown length
+     */
+    static long getContentLength(@Nonnull List<BodySource> sources) {
+        long length = 0;
+        for (BodySource source : sources) {
+            if (source.getContentLength() < 0) {
+                return -1;
+            }
+            length += source.getContentLength();
+        }
+        return length;
+    }
+
+    private static class PathSource
+            extends BodySource {
+        private final Path path;
+
+        PathSource(@Nonnull Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public long getContentLength() {
+            return path.toFile().length();
+        }
+
+        @Nonnull
+        @Override
+        public ReadableByteChannel open() throws IOException {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+    }
+
+    private static class BytesSource
+            extends BodySource {
+        private final byte[] content;
+
+        BytesSource(@Nonnull byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public long getContentLength() {
+            return content.length;
+        }
+
+        @Nonnull
+        @Override
+        public ReadableByteChannel open() {
+            return Channels.newChannel(new ByteArrayInputStream(content));
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+    }
+
+    private static class ChannelSource
+            extends BodySource {
+        private final ReadableByteChannel channel;
+        private final long contentLength;
+        private final AtomicBoolean consumed = new AtomicBoolean();
+
+        ChannelSource(@Nonnull ReadableByteChannel channel, long contentLength) {
+            this.channel = channel;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Nonnull
+        @Override
+        public ReadableByteChannel open() {
+            if (!consumed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Stream body can be read only once");
+            }
+            return channel;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+    }
+}
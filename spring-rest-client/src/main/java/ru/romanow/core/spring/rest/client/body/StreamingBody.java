@@ -0,0 +1,66 @@
+package ru.romanow.core.spring.rest.client.body;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+/**
+ * Body sources written one after another to the request output stream through the fixed buffer.
+ */
+public class StreamingBody {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<BodySource> sources;
+    private final String contentType;
+    private final boolean chunked;
+    private final ProgressListener progressListener;
+
+    /**
+     * @param chunked send body with chunked encoding even if length is known
+     */
+    public StreamingBody(@Nonnull List<BodySource> sources, @Nonnull String contentType,
+                         boolean chunked, @Nullable ProgressListener progressListener) {
+        this.sources = sources;
+        this.contentType = contentType;
+        this.chunked = chunked;
+        this.progressListener = progressListener;
+    }
+
+    @Nonnull
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return body length or -1 if body should be sent with chunked encoding
+     */
+    public long getContentLength() {
+        return chunked ? -1 : BodySource.getContentLength(sources);
+    }
+
+    public void writeTo(@Nonnull OutputStream outputStream) throws IOException {
+        final long total = BodySource.getContentLength(sources);
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long transferred = 0;
+        for (BodySource source : sources) {
+            try (ReadableByteChannel channel = source.open()) {
+                int read;
+                while ((read = channel.read(buffer)) != -1) {
+                    if (read > 0) {
+                        outputStream.write(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                        transferred += read;
+                        if (progressListener != null) {
+                            progressListener.onProgress(transferred, total);
+                        }
+                    }
+                }
+            }
+        }
+        outputStream.flush();
+    }
+}
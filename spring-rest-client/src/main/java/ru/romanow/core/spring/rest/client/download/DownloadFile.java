@@ -0,0 +1,130 @@
+package ru.romanow.core.spring.rest.client.download;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content written to the temporary file next to the target and digested on the fly. On {@link #commit(String)}
+ * file is synced to disk and atomically renamed to the target, so target never contains partial content.
+ * Closing not committed file deletes it.
+ */
+public class DownloadFile
+        implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DownloadFile.class);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final MessageDigest digest;
+    private long size;
+    private boolean committed;
+
+    /**
+     * @param digestAlgorithm {@link MessageDigest} algorithm or null to skip digest calculation
+     */
+    public DownloadFile(@Nonnull Path target, @Nullable String digestAlgorithm) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.digest = createDigest(digestAlgorithm);
+        this.temp = Files.createTempFile(this.target.getParent(), this.target.getFileName().toString(), ".part");
+        this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return true if content must pass through {@link #write(ByteBuffer)} to be digested
+     */
+    public boolean isDigested() {
+        return digest != null;
+    }
+
+    @Nonnull
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Digest and write all remaining bytes of the buffer
+     */
+    public void write(@Nonnull ByteBuffer buffer) throws IOException {
+        if (digest != null) {
+            digest.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer, size);
+        }
+    }
+
+    /**
+     * Account bytes written directly to {@link #getChannel()} at the current size position
+     */
+    public void written(long count) {
+        size += count;
+    }
+
+    @Nonnull
+    public FileMetadata commit(@Nullable String contentType) throws IOException {
+        channel.force(true);
+        channel.close();
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        return new FileMetadata(target, size, contentType,
+                                digest != null ? digest.getAlgorithm() : null,
+                                digest != null ? toHex(digest.digest()) : null);
+    }
+
+    @Override
+    public void close() {
+        if (!committed) {
+            try {
+                channel.close();
+                Files.deleteIfExists(temp);
+            } catch (IOException exception) {
+                logger.warn("Can't delete temporary file '{}': {}", temp, exception.getMessage());
+            }
+        }
+    }
+
+    @Nullable
+    private static MessageDigest createDigest(@Nullable String algorithm) {
+        if (algorithm == null) {
+            return null;
+        }
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    @Nonnull
+    private static String toHex(@Nonnull byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
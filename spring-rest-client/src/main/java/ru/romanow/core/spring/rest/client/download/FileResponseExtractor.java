@@ -0,0 +1,86 @@
+package ru.romanow.core.spring.rest.client.download;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseExtractor;
+import ru.romanow.core.spring.rest.client.exception.HttpRestFileException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+import static java.lang.String.format;
+
+/**
+ * Extractor writing response body to the file through the fixed buffer, body is never held in memory.
+ * Interrupted download (request timed out) is not committed, temporary file is deleted. Failures of the local
+ * file are thrown as {@link HttpRestFileException}, so they are not taken for connection errors.
+ */
+public class FileResponseExtractor
+        implements ResponseExtractor<ResponseEntity<FileMetadata>> {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final String digestAlgorithm;
+
+    /**
+     * @param digestAlgorithm {@link java.security.MessageDigest} algorithm or null to skip digest calculation
+     */
+    public FileResponseExtractor(@Nonnull Path target, @Nullable String digestAlgorithm) {
+        this.target = target;
+        this.digestAlgorithm = digestAlgorithm;
+    }
+
+    @Override
+    public ResponseEntity<FileMetadata> extractData(@Nonnull ClientHttpResponse response) throws IOException {
+        try (DownloadFile file = openFile();
+             ReadableByteChannel channel = Channels.newChannel(response.getBody())) {
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                try {
+                    file.write(buffer);
+                } catch (IOException exception) {
+                    throw fileError(exception);
+                }
+                buffer.clear();
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException(format("Download to '%s' cancelled", target));
+            }
+
+            final MediaType contentType = response.getHeaders().getContentType();
+            final FileMetadata metadata;
+            try {
+                metadata = file.commit(contentType != null ? contentType.toString() : null);
+            } catch (IOException exception) {
+                throw fileError(exception);
+            }
+            return ResponseEntity
+                    .status(response.getRawStatusCode())
+                    .headers(response.getHeaders())
+                    .body(metadata);
+        }
+    }
+
+    @Nonnull
+    private DownloadFile openFile() {
+        try {
+            return new DownloadFile(target, digestAlgorithm);
+        } catch (IOException exception) {
+            throw fileError(exception);
+        }
+    }
+
+    @Nonnull
+    private HttpRestFileException fileError(@Nonnull IOException exception) {
+        return new HttpRestFileException(format("Download to '%s' failed: %s", target, exception), exception);
+    }
+}
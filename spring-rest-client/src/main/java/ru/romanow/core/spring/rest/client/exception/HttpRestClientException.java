@@ -10,4 +10,18 @@ public class HttpRestClientException
     public HttpRestClientException(int responseStatus, String responseMessage, Object body) {
         super("Client error " + responseStatus + ": " + responseMessage, responseStatus, responseMessage, body);
     }
+
+    /**
+     * @param body      raw response body, decoded on first {@link #getBody(Class)} call
+     * @param bodyClass error response class declared for the status, nullable
+     */
+    public HttpRestClientException(int responseStatus, String responseMessage, String body, Class<?> bodyClass) {
+        this(responseStatus, responseMessage, body, bodyClass, true);
+    }
+
+    public HttpRestClientException(int responseStatus, String responseMessage, String body, Class<?> bodyClass,
+                                   boolean writableStackTrace) {
+        super("Client error " + responseStatus + ": " + responseMessage, responseStatus, responseMessage, body, bodyClass,
+              writableStackTrace);
+    }
 }
@@ -0,0 +1,18 @@
+package ru.romanow.core.spring.rest.client.exception;
+
+public class HttpRestRateLimitException
+        extends HttpRestException {
+    private final long retryAfter;
+
+    public HttpRestRateLimitException(String message, long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return millis until next permit is expected to be available
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.romanow.core.spring.rest.client.exception;
+
+public class HttpRestRejectedException
+        extends HttpRestException {
+    public enum Reason {
+        /** admission queue of the host is full */
+        QUEUE_FULL,
+        /** request waited in the queue longer than max queue wait */
+        QUEUE_TIMEOUT,
+        /** request timeout expired before request was sent */
+        DEADLINE_EXPIRED
+    }
+
+    private final Reason reason;
+
+    public HttpRestRejectedException(String message, Reason reason) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -6,4 +6,8 @@ public class HttpRestResourceException
     public HttpRestResourceException(Throwable cause) {
         super(cause);
     }
+
+    public HttpRestResourceException(Throwable cause, boolean writableStackTrace) {
+        super(cause != null ? cause.toString() : null, cause, writableStackTrace);
+    }
 }
@@ -0,0 +1,27 @@
+package ru.romanow.core.spring.rest.client.exception;
+
+public class HttpRestResponseTooLargeException
+        extends HttpRestException {
+    private final long maxSize;
+    private final long size;
+
+    public HttpRestResponseTooLargeException(String message, long maxSize, long size) {
+        super(message);
+        this.maxSize = maxSize;
+        this.size = size;
+    }
+
+    /**
+     * @return configured response size limit in bytes
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return declared <code>Content-Length</code> or bytes received before exchange was aborted
+     */
+    public long getSize() {
+        return size;
+    }
+}
@@ -7,7 +7,21 @@ public class HttpRestServerException
         this(responseStatus, responseMessage, null);
     }
 
-    public HttpRestServerException( int responseStatus, String responseMessage, Object body) {
+    public HttpRestServerException(int responseStatus, String responseMessage, Object body) {
         super("Server error " + responseStatus + " - " + responseMessage, responseStatus, responseMessage, body);
     }
+
+    /**
+     * @param body      raw response body, decoded on first {@link #getBody(Class)} call
+     * @param bodyClass error response class declared for the status, nullable
+     */
+    public HttpRestServerException(int responseStatus, String responseMessage, String body, Class<?> bodyClass) {
+        this(responseStatus, responseMessage, body, bodyClass, true);
+    }
+
+    public HttpRestServerException(int responseStatus, String responseMessage, String body, Class<?> bodyClass,
+                                   boolean writableStackTrace) {
+        super("Server error " + responseStatus + " - " + responseMessage, responseStatus, responseMessage, body, bodyClass,
+              writableStackTrace);
+    }
 }
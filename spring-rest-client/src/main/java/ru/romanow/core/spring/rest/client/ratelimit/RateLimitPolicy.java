@@ -0,0 +1,21 @@
+package ru.romanow.core.spring.rest.client.ratelimit;
+
+/**
+ * Behaviour of request over client rate limit
+ */
+public enum RateLimitPolicy {
+    /**
+     * Wait for permit, but not longer than request processing timeout
+     */
+    WAIT,
+
+    /**
+     * Throw {@link ru.romanow.core.spring.rest.client.exception.HttpRestRateLimitException} immediately
+     */
+    FAIL_FAST,
+
+    /**
+     * Return default response immediately
+     */
+    DEFAULT_RESPONSE
+}
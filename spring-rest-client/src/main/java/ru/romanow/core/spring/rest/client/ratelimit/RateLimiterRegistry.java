@@ -0,0 +1,162 @@
+package ru.romanow.core.spring.rest.client.ratelimit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Rate limiters keyed by request host (<code>host:port</code>) or by request url without query params.
+ * Keys without explicit limit get default limit. Keys without any limit are not limited, limiter is created
+ * for them only when server asks to slow down with <code>Retry-After</code> / <code>RateLimit-*</code> headers.
+ * <p>
+ * Idle limiters (full burst, not blocked) behave like new ones, so they are removed when number of limiters
+ * grows: memory depends on keys used within the limit window, not on all urls ever requested.
+ */
+public class RateLimiterRegistry {
+    private static final int MIN_SWEEP_THRESHOLD = 1024;
+
+    public enum KeyType {
+        HOST, URL
+    }
+
+    private final KeyType keyType;
+    private final Limit defaultLimit;
+    private final Map<String, Limit> limits;
+    private final ConcurrentHashMap<String, RateLimiter> limiters;
+
+    private volatile int sweepThreshold = MIN_SWEEP_THRESHOLD;
+
+    private RateLimiterRegistry(@Nonnull Builder builder) {
+        this.keyType = builder.keyType;
+        this.defaultLimit = builder.defaultLimit;
+        this.limits = new HashMap<>(builder.limits);
+        this.limiters = new ConcurrentHashMap<>();
+    }
+
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return limiter of request key or null if key is not limited
+     */
+    @Nullable
+    public RateLimiter getRateLimiter(@Nonnull URI uri, @Nonnull String url) {
+        final String key = getKey(uri, url);
+        final RateLimiter limiter = limiters.get(key);
+        if (limiter != null) {
+            return limiter;
+        }
+        final Limit limit = limits.getOrDefault(key, defaultLimit);
+        return limit != null ? createRateLimiter(key, limit) : null;
+    }
+
+    /**
+     * Block request key if response asks to slow down
+     *
+     * @param status response status
+     * @param header response header value by name
+     */
+    public void onResponse(@Nonnull URI uri, @Nonnull String url, int status, @Nonnull Function<String, String> header) {
+        final long delay = RateLimiter.getBlockDelay(status, header);
+        if (delay > 0) {
+            final String key = getKey(uri, url);
+            final RateLimiter limiter = limiters.get(key);
+            (limiter != null ? limiter : createRateLimiter(key, limits.getOrDefault(key, defaultLimit))).block(delay);
+        }
+    }
+
+    @Nonnull
+    private RateLimiter createRateLimiter(@Nonnull String key, @Nullable Limit limit) {
+        if (limiters.size() >= sweepThreshold) {
+            sweep();
+        }
+        return limiters.computeIfAbsent(key, k -> limit != null
+                ? new RateLimiter(limit.permitsPerSecond, limit.burst) : new RateLimiter(0, 0));
+    }
+
+    /**
+     * Remove idle limiters. Request that got limiter just before it is removed may pass together with
+     * request on the new limiter, so at most one extra burst is allowed.
+     */
+    private synchronized void sweep() {
+        if (limiters.size() < sweepThreshold) {
+            return;
+        }
+        limiters.values().removeIf(RateLimiter::isIdle);
+        sweepThreshold = Math.max(MIN_SWEEP_THRESHOLD, limiters.size() * 2);
+    }
+
+    @Nonnull
+    private String getKey(@Nonnull URI uri, @Nonnull String url) {
+        return keyType == KeyType.HOST ? getHostKey(uri) : getUrlKey(url);
+    }
+
+    @Nonnull
+    private String getHostKey(@Nonnull URI uri) {
+        return uri.getPort() > 0 ? uri.getHost() + ":" + uri.getPort() : String.valueOf(uri.getHost());
+    }
+
+    @Nonnull
+    private String getUrlKey(@Nonnull String url) {
+        final int query = url.indexOf('?');
+        return query >= 0 ? url.substring(0, query) : url;
+    }
+
+    int size() {
+        return limiters.size();
+    }
+
+    private static class Limit {
+        private final double permitsPerSecond;
+        private final int burst;
+
+        Limit(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    public static class Builder {
+        private KeyType keyType;
+        private Limit defaultLimit;
+        private final Map<String, Limit> limits;
+
+        Builder() {
+            this.keyType = KeyType.HOST;
+            this.limits = new HashMap<>();
+        }
+
+        @Nonnull
+        public Builder keyType(@Nonnull KeyType keyType) {
+            this.keyType = keyType;
+            return this;
+        }
+
+        @Nonnull
+        public Builder defaultLimit(double permitsPerSecond, int burst) {
+            this.defaultLimit = new Limit(permitsPerSecond, burst);
+            return this;
+        }
+
+        /**
+         * @param key <code>host:port</code> (<code>host</code> if port is not specified in url) for
+         *            {@link KeyType#HOST} or url without query params for {@link KeyType#URL}
+         */
+        @Nonnull
+        public Builder limit(@Nonnull String key, double permitsPerSecond, int burst) {
+            this.limits.put(key, new Limit(permitsPerSecond, burst));
+            return this;
+        }
+
+        @Nonnull
+        public RateLimiterRegistry build() {
+            return new RateLimiterRegistry(this);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ru.romanow.core.spring.rest.client.transport;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-memory request factory of {@link org.springframework.web.client.RestTemplate}: requests are not sent
+ * over network, handler returns response for each request. Unlike <code>MockRestServiceServer</code> it
+ * doesn't verify expectations and is safe for concurrent use, so it fits benchmarks and load tests of
+ * the client pipeline. Delay is spent in the calling thread.
+ */
+public class LoopbackClientHttpRequestFactory
+        implements ClientHttpRequestFactory {
+    private final Function<LoopbackRequest, LoopbackResponse> handler;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public LoopbackClientHttpRequestFactory(@Nonnull Function<LoopbackRequest, LoopbackResponse> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Same response for all requests
+     */
+    public LoopbackClientHttpRequestFactory(@Nonnull LoopbackResponse response) {
+        this(request -> response);
+    }
+
+    /**
+     * Responses in order of requests, last response is repeated for the next requests
+     */
+    @Nonnull
+    public static LoopbackClientHttpRequestFactory script(@Nonnull LoopbackResponse... responses) {
+        if (responses.length == 0) {
+            throw new IllegalArgumentException("At least one response is required");
+        }
+        final AtomicInteger next = new AtomicInteger();
+        return new LoopbackClientHttpRequestFactory(
+                request -> responses[next.getAndUpdate(i -> i < responses.length - 1 ? i + 1 : i)]);
+    }
+
+    /**
+     * @return requests received by the factory, including retries
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    @Nonnull
+    public ClientHttpRequest createRequest(@Nonnull URI uri, @Nonnull HttpMethod httpMethod) {
+        return new LoopbackClientHttpRequest(uri, httpMethod);
+    }
+
+    private class LoopbackClientHttpRequest
+            implements ClientHttpRequest {
+        private final URI uri;
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        LoopbackClientHttpRequest(@Nonnull URI uri, @Nonnull HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        @Nonnull
+        public ClientHttpResponse execute() throws IOException {
+            requestCount.incrementAndGet();
+            final LoopbackResponse response =
+                    handler.apply(new LoopbackRequest(method, uri, HttpHeaders.readOnlyHttpHeaders(headers), body.toByteArray()));
+            if (response.getDelay() > 0) {
+                try {
+                    Thread.sleep(response.getDelay());
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Loopback response interrupted");
+                }
+            }
+            if (response.getFailure() != null) {
+                throw response.getFailure();
+            }
+            return new LoopbackClientHttpResponse(response);
+        }
+
+        @Override
+        @Nonnull
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        @Nonnull
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        @Nonnull
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        @Nonnull
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static class LoopbackClientHttpResponse
+            implements ClientHttpResponse {
+        private final LoopbackResponse response;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final InputStream body;
+
+        LoopbackClientHttpResponse(@Nonnull LoopbackResponse response) {
+            this.response = response;
+            this.body = new ByteArrayInputStream(response.getBody() != null ? response.getBody() : new byte[0]);
+            for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+                headers.add(header.getKey(), header.getValue());
+            }
+            if (response.getBody() != null) {
+                headers.setContentLength(response.getBody().length);
+            }
+        }
+
+        @Override
+        @Nonnull
+        public HttpStatus getStatusCode() {
+            return HttpStatus.valueOf(response.getStatus());
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return response.getStatus();
+        }
+
+        @Override
+        @Nonnull
+        public String getStatusText() {
+            return response.getReason() != null ? response.getReason() : "";
+        }
+
+        @Override
+        @Nonnull
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        @Nonnull
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
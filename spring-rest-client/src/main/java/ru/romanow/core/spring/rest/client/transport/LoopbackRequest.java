@@ -0,0 +1,50 @@
+package ru.romanow.core.spring.rest.client.transport;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import javax.annotation.Nonnull;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request received by {@link LoopbackClientHttpRequestFactory}: method, uri, headers and written body.
+ */
+public class LoopbackRequest {
+    private final HttpMethod method;
+    private final URI uri;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    LoopbackRequest(@Nonnull HttpMethod method, @Nonnull URI uri, @Nonnull HttpHeaders headers, @Nonnull byte[] body) {
+        this.method = method;
+        this.uri = uri;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    @Nonnull
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    @Nonnull
+    public URI getUri() {
+        return uri;
+    }
+
+    @Nonnull
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Nonnull
+    public byte[] getBody() {
+        return body;
+    }
+
+    @Nonnull
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,54 @@
+package ru.romanow.core.spring.rest.client.utils;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * Task that can be interrupted from the caller thread, {@link java.util.concurrent.CompletableFuture#cancel(boolean)}
+ * doesn't interrupt running task. Thread is interrupted only while task runs on it and interrupt is cleared
+ * when task ends, so pooled executor thread is not passed interrupted to the next task.
+ */
+public class InterruptibleTask<T>
+        implements Supplier<T> {
+    private final Supplier<T> task;
+
+    private Thread runner;
+    private boolean cancelled;
+    private boolean interrupted;
+
+    public InterruptibleTask(@Nonnull Supplier<T> task) {
+        this.task = task;
+    }
+
+    @Override
+    public T get() {
+        synchronized (this) {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            runner = Thread.currentThread();
+        }
+        try {
+            return task.get();
+        } finally {
+            synchronized (this) {
+                runner = null;
+                if (interrupted) {
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * Prevent task from start or interrupt it, if it is running
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (runner != null) {
+            interrupted = true;
+            runner.interrupt();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package ru.romanow.core.spring.rest.client.utils;
+
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.ClassUtils;
+import ru.romanow.core.spring.rest.client.exception.HttpRestResponseTooLargeException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static java.lang.String.format;
+
+/**
+ * Response with body limited to <code>maxSize</code> bytes. <code>Content-Length</code> is checked
+ * before body is read, body without length is checked while it is read. Exceeding the limit throws
+ * {@link HttpRestResponseTooLargeException}, that is not swallowed by message converters or error handler:
+ * the failure is kept and available through {@link #getFailure()}. Body stream is aborted without reading
+ * the rest of response: Apache HttpClient connection is aborted, other connections are closed. {@link #close()}
+ * of aborted response doesn't close delegate, because delegate drains the body on close.
+ */
+public class LimitedClientHttpResponse
+        implements ClientHttpResponse {
+    private static final boolean APACHE_HTTP_CLIENT_PRESENT = ClassUtils.isPresent(
+            "org.apache.http.conn.ConnectionReleaseTrigger", LimitedClientHttpResponse.class.getClassLoader());
+
+    private final ClientHttpResponse response;
+    private final long maxSize;
+
+    private InputStream body;
+    private volatile HttpRestResponseTooLargeException failure;
+    private volatile boolean aborted;
+
+    /**
+     * @param maxSize max response body size in bytes, zero or negative means unlimited
+     */
+    public LimitedClientHttpResponse(@Nonnull ClientHttpResponse response, long maxSize) {
+        this.response = response;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Check declared <code>Content-Length</code> before body is read, oversized response is aborted.
+     */
+    public void checkContentLength() {
+        try {
+            checkSize(response.getHeaders().getContentLength());
+        } catch (HttpRestResponseTooLargeException exception) {
+            try {
+                abort(response.getBody());
+            } catch (IOException ignored) {}
+            throw exception;
+        }
+    }
+
+    /**
+     * @return limit failure, if body was read over the limit
+     */
+    @Nullable
+    public HttpRestResponseTooLargeException getFailure() {
+        return failure;
+    }
+
+    @Nonnull
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+        return response.getStatusCode();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+        return response.getRawStatusCode();
+    }
+
+    @Nonnull
+    @Override
+    public String getStatusText() throws IOException {
+        return response.getStatusText();
+    }
+
+    @Nonnull
+    @Override
+    public HttpHeaders getHeaders() {
+        return response.getHeaders();
+    }
+
+    @Nonnull
+    @Override
+    public InputStream getBody() throws IOException {
+        if (body == null) {
+            body = maxSize > 0 ? new LimitedInputStream(response.getBody()) : response.getBody();
+        }
+        return body;
+    }
+
+    @Override
+    public void close() {
+        if (!aborted) {
+            response.close();
+        }
+    }
+
+    private void checkSize(long size) {
+        if (maxSize > 0 && size > maxSize) {
+            failure = new HttpRestResponseTooLargeException(
+                    format("Response size %d exceeds limit %d bytes", size, maxSize), maxSize, size);
+            throw failure;
+        }
+    }
+
+    private void abort(@Nonnull InputStream stream) {
+        aborted = true;
+        try {
+            if (APACHE_HTTP_CLIENT_PRESENT && stream instanceof ConnectionReleaseTrigger) {
+                ((ConnectionReleaseTrigger) stream).abortConnection();
+            } else {
+                stream.close();
+            }
+        } catch (IOException ignored) {}
+    }
+
+    private class LimitedInputStream
+            extends FilterInputStream {
+        private long received;
+
+        LimitedInputStream(@Nonnull InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkFailure();
+            final int result = super.read();
+            if (result >= 0) {
+                onRead(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            checkFailure();
+            // read at most one byte over the limit to detect overflow
+            final int result = super.read(b, off, (int) Math.min(len, maxSize - received + 1));
+            if (result > 0) {
+                onRead(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            checkFailure();
+            final long skipped = super.skip(Math.min(n, maxSize - received + 1));
+            onRead(skipped);
+            return skipped;
+        }
+
+        private void onRead(long count) {
+            received += count;
+            try {
+                checkSize(received);
+            } catch (HttpRestResponseTooLargeException exception) {
+                abort(in);
+                throw exception;
+            }
+        }
+
+        private void checkFailure() {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
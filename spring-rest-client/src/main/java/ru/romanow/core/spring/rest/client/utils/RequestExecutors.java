@@ -0,0 +1,94 @@
+package ru.romanow.core.spring.rest.client.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking {@link org.springframework.web.client.RestTemplate} calls. Blocking I/O must not run on
+ * {@link ForkJoinPool#commonPool()}: it has only <code>cores - 1</code> threads and is shared with parallel streams.
+ */
+public final class RequestExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(RequestExecutors.class);
+
+    private static final int DEFAULT_MAX_THREADS = 200;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final Method VIRTUAL_THREAD_EXECUTOR_FACTORY = findVirtualThreadExecutorFactory();
+
+    private RequestExecutors() {}
+
+    /**
+     * @return true if runtime supports virtual threads (Java 21+)
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VIRTUAL_THREAD_EXECUTOR_FACTORY != null;
+    }
+
+    /**
+     * New virtual thread per request if runtime supports it, otherwise bounded pool of platform threads.
+     */
+    @Nonnull
+    public static ExecutorService virtualThreadPerRequest() {
+        if (VIRTUAL_THREAD_EXECUTOR_FACTORY != null) {
+            try {
+                return (ExecutorService) VIRTUAL_THREAD_EXECUTOR_FACTORY.invoke(null);
+            } catch (ReflectiveOperationException exception) {
+                logger.warn("Can't create virtual thread executor, fallback to platform threads: {}", exception.getMessage());
+            }
+        }
+        return boundedPool(DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * Pool of at most <code>maxThreads</code> daemon platform threads, idle threads are stopped after 60 sec.
+     * Requests above the limit wait in the queue.
+     */
+    @Nonnull
+    public static ExecutorService boundedPool(int maxThreads) {
+        final ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                                       new LinkedBlockingQueue<>(), new RequestThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Shared executor used by clients without explicit executor
+     */
+    @Nonnull
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException exception) {
+            return null;
+        }
+    }
+
+    private static class DefaultExecutorHolder {
+        private static final ExecutorService EXECUTOR = virtualThreadPerRequest();
+    }
+
+    private static class RequestThreadFactory
+            implements ThreadFactory {
+        private static final AtomicInteger poolNumber = new AtomicInteger();
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+        private final String prefix = "spring-rest-client-" + poolNumber.incrementAndGet() + "-";
+
+        @Override
+        public Thread newThread(@Nonnull Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
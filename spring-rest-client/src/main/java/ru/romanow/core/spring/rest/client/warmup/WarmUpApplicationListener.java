@@ -0,0 +1,46 @@
+package ru.romanow.core.spring.rest.client.warmup;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import ru.romanow.core.spring.rest.client.SpringRestClient;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Warm up client when application context is refreshed, before instance starts to receive traffic.
+ * Refresh of the child contexts doesn't repeat warm-up.
+ * <pre>
+ * &#64;Bean
+ * public WarmUpApplicationListener warmUpListener(SpringRestClient client) {
+ *     return new WarmUpApplicationListener(client, WarmUp.builder().connections(url, 10).build());
+ * }
+ * </pre>
+ */
+public class WarmUpApplicationListener
+        implements ApplicationListener<ContextRefreshedEvent> {
+    private final SpringRestClient restClient;
+    private final WarmUp warmUp;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile WarmUpResult result;
+
+    public WarmUpApplicationListener(@Nonnull SpringRestClient restClient, @Nonnull WarmUp warmUp) {
+        this.restClient = restClient;
+        this.warmUp = warmUp;
+    }
+
+    @Override
+    public void onApplicationEvent(@Nonnull ContextRefreshedEvent event) {
+        if (started.compareAndSet(false, true)) {
+            result = restClient.warmUp(warmUp);
+        }
+    }
+
+    /**
+     * @return result of the warm-up or null if context is not refreshed yet
+     */
+    public WarmUpResult getResult() {
+        return result;
+    }
+}
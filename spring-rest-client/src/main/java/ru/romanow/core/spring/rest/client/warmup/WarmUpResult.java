@@ -0,0 +1,41 @@
+package ru.romanow.core.spring.rest.client.warmup;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+public class WarmUpResult {
+    private final Duration duration;
+    private final int connections;
+    private final int failures;
+
+    public WarmUpResult(@Nonnull Duration duration, int connections, int failures) {
+        this.duration = duration;
+        this.connections = connections;
+        this.failures = failures;
+    }
+
+    @Nonnull
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return connections opened (or already open) and returned to the pool
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return connections failed to open in time
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpResult{duration=" + duration.toMillis() + "ms, connections=" + connections +
+                ", failures=" + failures + "}";
+    }
+}
@@ -22,6 +22,8 @@ import ru.romanow.core.spring.rest.client.model.AuthRequest;
 import ru.romanow.core.spring.rest.client.model.AuthResponse;
 import ru.romanow.core.spring.rest.client.model.PingResponse;
 import ru.romanow.core.spring.rest.client.model.SimpleResponse;
+import ru.romanow.core.spring.rest.client.warmup.WarmUp;
+import ru.romanow.core.spring.rest.client.warmup.WarmUpResult;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -137,4 +139,17 @@ public class SpringRestClientServerTest {
         Assert.assertTrue(response.isPresent());
         assertEquals("OK", response.get().getMessage());
     }
+
+    @Test
+    public void testWarmUp() {
+        final String url = format("http://localhost:%d/%s", port, PING);
+        final WarmUpResult result = restClient.warmUp(WarmUp.builder()
+                                                            .connections(url, 2)
+                                                            .connections(format("http://localhost:%d/", 1), 1)
+                                                            .classes(PingResponse.class, SimpleResponse.class)
+                                                            .build());
+
+        assertEquals(2, result.getConnections());
+        assertEquals(1, result.getFailures());
+    }
 }
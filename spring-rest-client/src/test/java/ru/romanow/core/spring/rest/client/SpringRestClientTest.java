@@ -6,25 +6,56 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
+import ru.romanow.core.spring.rest.client.body.BodySource;
+import ru.romanow.core.spring.rest.client.body.MultipartBody;
+import ru.romanow.core.spring.rest.client.download.FileMetadata;
 import ru.romanow.core.spring.rest.client.exception.HttpRestClientException;
+import ru.romanow.core.spring.rest.client.exception.HttpRestRateLimitException;
+import ru.romanow.core.spring.rest.client.exception.HttpRestResponseTooLargeException;
 import ru.romanow.core.spring.rest.client.exception.HttpRestServerException;
 import ru.romanow.core.spring.rest.client.exceptions.CustomException;
 import ru.romanow.core.spring.rest.client.model.AuthRequest;
 import ru.romanow.core.spring.rest.client.model.AuthResponse;
 import ru.romanow.core.spring.rest.client.model.PingResponse;
 import ru.romanow.core.spring.rest.client.model.SimpleResponse;
-
+import ru.romanow.core.spring.rest.client.ratelimit.RateLimitPolicy;
+import ru.romanow.core.spring.rest.client.ratelimit.RateLimiterRegistry;
+import ru.romanow.core.spring.rest.client.transport.LoopbackClientHttpRequestFactory;
+import ru.romanow.core.spring.rest.client.transport.LoopbackResponse;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static junit.framework.TestCase.assertTrue;
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
@@ -153,6 +184,25 @@ public class SpringRestClientTest {
         }
     }
 
+    @Test
+    public void testStacklessClientError() {
+        server.expect(requestTo(BAD_REQUEST_ERROR))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.BAD_REQUEST));
+
+        final SpringRestClient stacklessClient = SpringRestClient
+                .builder(restTemplate)
+                .stacklessExceptions(true)
+                .build();
+        try {
+            stacklessClient.get(BAD_REQUEST_ERROR, Void.class).execute();
+            fail("Client error expected");
+        } catch (HttpRestClientException exception) {
+            assertEquals(HttpStatus.BAD_REQUEST.value(), exception.getResponseStatus());
+            assertEquals(0, exception.getStackTrace().length);
+        }
+    }
+
     @Test
     public void testClientErrorWithBody() {
         final SimpleResponse simpleResponse = new SimpleResponse("Bad Request");
@@ -188,6 +238,27 @@ public class SpringRestClientTest {
         }
     }
 
+    @Test
+    public void testClientErrorWithTypedBody() {
+        final SimpleResponse simpleResponse = new SimpleResponse("Bad Request");
+        server.expect(requestTo(BAD_REQUEST_ERROR_BODY))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.BAD_REQUEST)
+                        .body(toJson(simpleResponse)));
+
+        try {
+            restClient.get(BAD_REQUEST_ERROR_BODY, Void.class)
+                    .errorResponseClass(HttpStatus.BAD_REQUEST.value(), SimpleResponse.class)
+                    .execute();
+            fail("Client error expected");
+        } catch (HttpRestClientException exception) {
+            final SimpleResponse body = exception.getBody(SimpleResponse.class);
+            assertEquals(simpleResponse, body);
+            assertSame(body, exception.getBody(SimpleResponse.class));
+            assertEquals(toJson(simpleResponse), exception.getBody(String.class));
+        }
+    }
+
     @Test
     public void testServerErrorSuppress() {
         server.expect(requestTo(BAD_GATEWAY_ERROR))
@@ -250,4 +321,322 @@ public class SpringRestClientTest {
             assertEquals(toJson(new SimpleResponse("Bad Gateway")), exception.getMessage());
         }
     }
+
+    @Test
+    public void testCustomErrorHandler() {
+        final LoopbackClientHttpRequestFactory requestFactory = LoopbackClientHttpRequestFactory.script(
+                LoopbackResponse.builder().status(404).build(),
+                LoopbackResponse.builder().status(502).body("Bad Gateway", "text/plain").build());
+        final RestTemplate restTemplate = new RestTemplate(requestFactory);
+        // not found is not an error for this client
+        restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            protected boolean hasError(HttpStatus status) {
+                return status != HttpStatus.NOT_FOUND && super.hasError(status);
+            }
+        });
+        final SpringRestClient customClient = new SpringRestClient(restTemplate);
+
+        assertFalse(customClient.get(PING, PingResponse.class).execute().isPresent());
+        try {
+            customClient.get(PING, PingResponse.class).execute();
+            fail();
+        } catch (HttpRestServerException exception) {
+            assertEquals(HttpStatus.BAD_GATEWAY.value(), exception.getResponseStatus());
+            assertEquals("Bad Gateway", exception.getBody());
+        }
+    }
+
+    @Test
+    public void testTimedOutRequestNotSent() throws InterruptedException {
+        final LoopbackClientHttpRequestFactory requestFactory =
+                new LoopbackClientHttpRequestFactory(LoopbackResponse.builder().json(new PingResponse("OK")).build());
+        // request waits longer than timeout before it is started, like delayed rate limited request
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        final SpringRestClient delayedClient = SpringRestClient
+                .builder(new RestTemplate(requestFactory))
+                .executor(command -> scheduler.schedule(command, 500, TimeUnit.MILLISECONDS))
+                .build();
+
+        try {
+            final Optional<PingResponse> response = delayedClient
+                    .get(PING, PingResponse.class)
+                    .requestProcessingTimeout(100, TimeUnit.MILLISECONDS)
+                    .processTimeoutExceptions(false)
+                    .execute();
+            assertFalse(response.isPresent());
+
+            Thread.sleep(1000);
+            assertEquals(0, requestFactory.getRequestCount());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRateLimitRetryAfter() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "60");
+        server.expect(requestTo(PING))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS)
+                        .headers(headers));
+
+        final SpringRestClient rateLimitedClient = SpringRestClient
+                .builder(restTemplate)
+                .rateLimiter(RateLimiterRegistry.builder().build())
+                .build();
+
+        try {
+            rateLimitedClient.get(PING, PingResponse.class).execute();
+            fail();
+        } catch (HttpRestClientException exception) {
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), exception.getResponseStatus());
+        }
+
+        // second request rejected without round trip
+        final Optional<PingResponse> response =
+                rateLimitedClient.get(PING, PingResponse.class)
+                        .rateLimitPolicy(RateLimitPolicy.DEFAULT_RESPONSE)
+                        .execute();
+        assertFalse(response.isPresent());
+
+        try {
+            rateLimitedClient.get(PING, PingResponse.class)
+                    .rateLimitPolicy(RateLimitPolicy.FAIL_FAST)
+                    .execute();
+            fail();
+        } catch (HttpRestRateLimitException exception) {
+            assertTrue(exception.getRetryAfter() > 0);
+        }
+        server.verify();
+    }
+
+    @Test
+    public void testStreamArray() {
+        final List<SimpleResponse> elements =
+                List.of(new SimpleResponse("1"), new SimpleResponse("2"), new SimpleResponse("3"));
+        server.expect(requestTo(PING))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .body(toJson(elements)));
+
+        try (Stream<SimpleResponse> stream = restClient.get(PING, Void.class).executeStream(SimpleResponse.class)) {
+            assertEquals(elements, stream.collect(Collectors.toList()));
+        }
+        server.verify();
+    }
+
+    @Test
+    public void testStreamNdjson() {
+        server.expect(requestTo(PING))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.valueOf("application/x-ndjson"))
+                        .body("{\"message\":\"1\"}\n{\"message\":\"2\"}\n"));
+
+        try (Stream<SimpleResponse> stream = restClient.get(PING, Void.class).executeStream(SimpleResponse.class)) {
+            assertEquals(List.of(new SimpleResponse("1"), new SimpleResponse("2")), stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test(expected = HttpRestResponseTooLargeException.class)
+    public void testResponseTooLarge() {
+        server.expect(requestTo(PING))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .body(toJson(new SimpleResponse("x".repeat(2048)))));
+
+        restClient.get(PING, SimpleResponse.class)
+                  .maxResponseSize(1024)
+                  .execute();
+    }
+
+    @Test(expected = HttpRestResponseTooLargeException.class)
+    public void testErrorResponseTooLarge() {
+        server.expect(requestTo(BAD_GATEWAY_ERROR))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.BAD_GATEWAY)
+                        .contentType(MediaType.TEXT_HTML)
+                        .body("x".repeat(2048)));
+
+        SpringRestClient
+                .builder(restTemplate)
+                .maxResponseSize(1024)
+                .build()
+                .get(BAD_GATEWAY_ERROR, SimpleResponse.class)
+                .execute();
+    }
+
+    @Test
+    public void testResponseTooLargeStream() {
+        server.expect(requestTo(PING))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.valueOf("application/x-ndjson"))
+                        .body("{\"message\":\"1\"}\n{\"message\":\"" + "x".repeat(2048) + "\"}\n"));
+
+        try (Stream<SimpleResponse> stream = restClient.get(PING, Void.class)
+                                                       .maxResponseSize(1024)
+                                                       .executeStream(SimpleResponse.class)) {
+            stream.forEach(r -> {});
+            fail();
+        } catch (HttpRestResponseTooLargeException exception) {
+            assertEquals(1024, exception.getMaxSize());
+        }
+    }
+
+    @Test
+    public void testStreamNonStandardStatus() {
+        final LoopbackClientHttpRequestFactory requestFactory =
+                new LoopbackClientHttpRequestFactory(LoopbackResponse.builder().status(600).build());
+        final SpringRestClient loopbackClient = new SpringRestClient(new RestTemplate(requestFactory));
+
+        try (Stream<SimpleResponse> stream = loopbackClient.get(PING, Void.class).executeStream(SimpleResponse.class)) {
+            assertEquals(0, stream.count());
+        }
+    }
+
+    @Test
+    public void testUploadFile() throws IOException {
+        final Path file = Files.createTempFile("upload", ".bin");
+        try {
+            final byte[] content = new byte[200_000];
+            content[content.length - 1] = 1;
+            Files.write(file, content);
+
+            server.expect(requestTo(PING))
+                    .andExpect(method(HttpMethod.POST))
+                    .andExpect(header(HttpHeaders.CONTENT_LENGTH, String.valueOf(content.length)))
+                    .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                    .andExpect(content().bytes(content))
+                    .andRespond(withStatus(HttpStatus.OK));
+
+            final AtomicLong progress = new AtomicLong();
+            restClient.post(PING, null, Void.class)
+                      .requestBody(file, MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                      .progressListener((transferred, total) -> progress.set(transferred))
+                      .execute();
+
+            server.verify();
+            assertEquals(content.length, progress.get());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testUploadMultipart() {
+        server.expect(requestTo(PING))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(content().string(containsString("Content-Disposition: form-data; name=\"name\"\r\n")))
+                .andExpect(content().string(containsString("name=\"file\"; filename=\"test.txt\"")))
+                .andExpect(content().string(containsString("\r\n\r\ncontent\r\n")))
+                .andRespond(withStatus(HttpStatus.OK));
+
+        final MultipartBody multipart = MultipartBody
+                .builder()
+                .addText("name", "document")
+                .addPart("file", "test.txt", MediaType.TEXT_PLAIN_VALUE,
+                         BodySource.of(new ByteArrayInputStream("content".getBytes()), -1))
+                .build();
+        restClient.post(PING, null, Void.class)
+                  .multipart(multipart)
+                  .execute();
+
+        server.verify();
+    }
+
+    @Test
+    public void testDownloadToFile() throws IOException {
+        final byte[] content = new byte[300_000];
+        new Random(42).nextBytes(content);
+        server.expect(requestTo(PING))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .body(content));
+
+        final Path target = Files.createTempDirectory("download").resolve("content.bin");
+        try {
+            final Optional<FileMetadata> metadata = restClient.get(PING, Void.class).executeToFile(target, "MD5");
+
+            assertTrue(metadata.isPresent());
+            assertEquals(content.length, metadata.get().getSize());
+            assertEquals(MediaType.APPLICATION_OCTET_STREAM_VALUE, metadata.get().getContentType());
+            assertEquals(DigestUtils.md5DigestAsHex(content), metadata.get().getDigest());
+            assertArrayEquals(content, Files.readAllBytes(target));
+        } finally {
+            Files.deleteIfExists(target);
+            Files.delete(target.getParent());
+        }
+    }
+
+    @Test
+    public void testTimedOutDownloadNotCommitted() throws IOException, InterruptedException {
+        // body of 20 bytes sent during 1 sec
+        final ClientHttpRequestFactory requestFactory = (uri, httpMethod) -> {
+            final MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            request.setResponse(new MockClientHttpResponse(new SlowInputStream(20, 50), HttpStatus.OK));
+            return request;
+        };
+        final SpringRestClient slowClient = new SpringRestClient(new RestTemplate(requestFactory));
+
+        final Path directory = Files.createTempDirectory("download");
+        final Path target = directory.resolve("content.bin");
+        try {
+            final Optional<FileMetadata> metadata = slowClient
+                    .get(PING, Void.class)
+                    .requestProcessingTimeout(200, TimeUnit.MILLISECONDS)
+                    .processTimeoutExceptions(false)
+                    .executeToFile(target);
+            assertFalse(metadata.isPresent());
+
+            Thread.sleep(1500);
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            Files.deleteIfExists(target);
+            Files.delete(directory);
+        }
+    }
+
+    private static class SlowInputStream
+            extends InputStream {
+        private final long delay;
+        private int remaining;
+
+        SlowInputStream(int size, long delay) {
+            this.remaining = size;
+            this.delay = delay;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException exception) {
+                throw new InterruptedIOException();
+            }
+            remaining--;
+            return 'a';
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            final int result = read();
+            if (result < 0) {
+                return -1;
+            }
+            b[off] = (byte) result;
+            return 1;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package ru.romanow.core.spring.rest.client.transport;
+
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+import ru.romanow.core.spring.rest.client.SpringRestClient;
+import ru.romanow.core.spring.rest.client.exception.HttpRestClientException;
+import ru.romanow.core.spring.rest.client.exception.HttpRestFileException;
+import ru.romanow.core.spring.rest.client.exception.HttpRestResourceException;
+import ru.romanow.core.spring.rest.client.model.AuthRequest;
+import ru.romanow.core.spring.rest.client.model.PingResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static ru.romanow.core.spring.rest.client.utils.JsonSerializer.toJson;
+
+public class LoopbackClientHttpRequestFactoryTest {
+    private static final String TEST_URL = "http://loopback/api/ping";
+
+    @Test
+    public void testRequestAndResponse() {
+        final LoopbackClientHttpRequestFactory requestFactory = new LoopbackClientHttpRequestFactory(request -> {
+            assertEquals(HttpMethod.POST, request.getMethod());
+            assertEquals(TEST_URL, request.getUri().toString());
+            assertEquals(toJson(new AuthRequest("login", "password")), request.getBodyAsString());
+            return LoopbackResponse.builder().json(new PingResponse("pong")).build();
+        });
+        final SpringRestClient restClient = new SpringRestClient(new RestTemplate(requestFactory));
+
+        final PingResponse response = restClient
+                .post(TEST_URL, new AuthRequest("login", "password"), PingResponse.class)
+                .execute()
+                .orElse(null);
+
+        assertEquals(new PingResponse("pong"), response);
+        assertEquals(1, requestFactory.getRequestCount());
+    }
+
+    @Test
+    public void testScriptedErrors() {
+        final LoopbackClientHttpRequestFactory requestFactory = LoopbackClientHttpRequestFactory.script(
+                LoopbackResponse.reset(),
+                LoopbackResponse.builder().status(404).body("Not found", "text/plain").build());
+        final SpringRestClient restClient = new SpringRestClient(new RestTemplate(requestFactory));
+
+        try {
+            restClient.get(TEST_URL, Void.class).execute();
+            fail();
+        } catch (HttpRestResourceException exception) {
+            // connection reset
+        }
+
+        try {
+            restClient.get(TEST_URL, Void.class).execute();
+            fail();
+        } catch (HttpRestClientException exception) {
+            assertEquals(404, exception.getResponseStatus());
+            assertEquals("Not found", exception.getBody());
+        }
+        assertEquals(2, requestFactory.getRequestCount());
+    }
+
+    @Test
+    public void testFileErrorNotRetried() throws IOException {
+        final LoopbackClientHttpRequestFactory requestFactory = new LoopbackClientHttpRequestFactory(
+                request -> LoopbackResponse.builder().body("content", "text/plain").build());
+        final SpringRestClient restClient = new SpringRestClient(new RestTemplate(requestFactory));
+
+        final Path directory = Files.createTempDirectory("download");
+        try {
+            restClient.get(TEST_URL, Void.class)
+                      .retryConnectionError(true)
+                      .retryCount(2)
+                      .processResourceExceptions(false)
+                      .executeToFile(directory.resolve("missing").resolve("content.bin"));
+            fail();
+        } catch (HttpRestFileException exception) {
+            assertTrue(exception.getCause() instanceof NoSuchFileException);
+        } finally {
+            Files.delete(directory);
+        }
+        assertEquals(1, requestFactory.getRequestCount());
+    }
+}
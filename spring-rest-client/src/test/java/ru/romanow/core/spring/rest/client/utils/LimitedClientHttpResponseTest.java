@@ -0,0 +1,105 @@
+package ru.romanow.core.spring.rest.client.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import ru.romanow.core.spring.rest.client.SpringRestClient;
+import ru.romanow.core.spring.rest.client.exception.HttpRestResponseTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Server declares 100 MB body, sends first chunk and keeps connection open: client that drains
+ * the body on close hangs, aborted client closes connection at once.
+ */
+public class LimitedClientHttpResponseTest {
+    private static final long DECLARED_SIZE = 100 * 1024 * 1024;
+
+    private ServerSocket serverSocket;
+    private Thread server;
+    private CountDownLatch connectionClosed;
+
+    @Before
+    public void init() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        connectionClosed = new CountDownLatch(1);
+        server = new Thread(this::serve, "oversized-response-server");
+        server.setDaemon(true);
+        server.start();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        serverSocket.close();
+    }
+
+    @Test
+    public void testContentLengthAbortsApacheConnection() throws InterruptedException {
+        checkAborted(new HttpComponentsClientHttpRequestFactory());
+    }
+
+    @Test
+    public void testContentLengthAbortsJdkConnection() throws InterruptedException {
+        checkAborted(new SimpleClientHttpRequestFactory());
+    }
+
+    private void checkAborted(ClientHttpRequestFactory requestFactory) throws InterruptedException {
+        final SpringRestClient restClient = new SpringRestClient(new RestTemplate(requestFactory));
+        final String url = format("http://%s:%d/large", serverSocket.getInetAddress().getHostAddress(),
+                                  serverSocket.getLocalPort());
+        try {
+            restClient.get(url, String.class)
+                      .maxResponseSize(1024)
+                      .requestProcessingTimeout(10, TimeUnit.SECONDS)
+                      .execute();
+            fail();
+        } catch (HttpRestResponseTooLargeException exception) {
+            assertTrue(exception.getMessage().contains(String.valueOf(DECLARED_SIZE)));
+        }
+        assertTrue("Connection is not closed", connectionClosed.await(5, TimeUnit.SECONDS));
+    }
+
+    private void serve() {
+        try (Socket socket = serverSocket.accept()) {
+            final InputStream input = socket.getInputStream();
+            int matched = 0;
+            while (matched < 4) {
+                final int b = input.read();
+                if (b < 0) {
+                    return;
+                }
+                matched = (b == "\r\n\r\n".charAt(matched)) ? matched + 1 : (b == '\r' ? 1 : 0);
+            }
+
+            final OutputStream output = socket.getOutputStream();
+            output.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n" +
+                    "Content-Length: " + DECLARED_SIZE + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            output.write(new byte[8192]);
+            output.flush();
+
+            socket.setSoTimeout(30_000);
+            if (input.read() < 0) {
+                connectionClosed.countDown();
+            }
+        } catch (IOException exception) {
+            // connection reset by client also means it is closed
+            connectionClosed.countDown();
+        }
+    }
+}